@@ -10,4 +10,5 @@ psql postgres $USER \
     -c "CREATE DATABASE ${DATABASE_NAME};" \
     -c "\connect ${DATABASE_NAME}" \
     -f "$SCRIPT_DIR/schema.sql" \
+    -f "$SCRIPT_DIR/migrations/006_status_notify.sql" \
     -f "$SCRIPT_DIR/local_data.sql"
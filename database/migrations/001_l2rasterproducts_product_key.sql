@@ -0,0 +1,67 @@
+-- Adds the canonical "productKey" column to existing L2RasterProducts tables
+-- and backfills it. The key format must match
+-- L2RasterProductParameters.productKey() in the API
+--
+-- Where duplicate products already exist, the oldest product is given the
+-- key and the newer duplicates are merged into it: their statuses and
+-- granules are moved to it, their users' history is moved to it (keeping
+-- the latest request of each user), and the duplicates are then deleted
+
+BEGIN;
+
+ALTER TABLE "L2RasterProducts" ADD COLUMN IF NOT EXISTS "productKey" varchar;
+
+CREATE TEMPORARY TABLE "ProductKeys" ON COMMIT DROP AS
+SELECT
+    "id",
+    concat_ws(':',
+        "cycle",
+        "pass",
+        "scene",
+        CASE WHEN "outputGranuleExtentFlag" THEN 'true' ELSE 'false' END,
+        "outputSamplingGridType",
+        "rasterResolution",
+        CASE WHEN "outputSamplingGridType" = 'GEO' THEN '' ELSE coalesce("utmZoneAdjust"::text, '') END,
+        CASE WHEN "outputSamplingGridType" = 'GEO' THEN '' ELSE coalesce("mgrsBandAdjust"::text, '') END
+    ) AS "productKey",
+    first_value("id") OVER w AS "survivorId"
+FROM "L2RasterProducts"
+WHERE "productKey" IS NULL
+WINDOW w AS (
+    PARTITION BY "cycle", "pass", "scene", "outputGranuleExtentFlag",
+        "outputSamplingGridType", "rasterResolution",
+        CASE WHEN "outputSamplingGridType" = 'GEO' THEN NULL ELSE "utmZoneAdjust" END,
+        CASE WHEN "outputSamplingGridType" = 'GEO' THEN NULL ELSE "mgrsBandAdjust" END
+    ORDER BY "timestamp", "id"
+);
+
+UPDATE "L2RasterProducts" SET "productKey" = k."productKey"
+FROM "ProductKeys" AS k
+WHERE "L2RasterProducts"."id" = k."id" AND k."id" = k."survivorId";
+
+-- Merge the duplicates into their survivors
+INSERT INTO "ProductHistory" ("requestedById", "rasterProductId", "timestamp")
+SELECT h."requestedById", k."survivorId", max(h."timestamp")
+FROM "ProductHistory" AS h
+JOIN "ProductKeys" AS k ON k."id" = h."rasterProductId" AND k."id" <> k."survivorId"
+GROUP BY h."requestedById", k."survivorId"
+ON CONFLICT ("requestedById", "rasterProductId")
+DO UPDATE SET "timestamp" = greatest("ProductHistory"."timestamp", EXCLUDED."timestamp");
+
+UPDATE "Status" SET "productId" = k."survivorId"
+FROM "ProductKeys" AS k
+WHERE "Status"."productId" = k."id" AND k."id" <> k."survivorId";
+
+UPDATE "Granules" SET "productId" = k."survivorId"
+FROM "ProductKeys" AS k
+WHERE "Granules"."productId" = k."id" AND k."id" <> k."survivorId";
+
+-- History rows of the duplicates are deleted along with them
+DELETE FROM "L2RasterProducts"
+USING "ProductKeys" AS k
+WHERE "L2RasterProducts"."id" = k."id" AND k."id" <> k."survivorId";
+
+ALTER TABLE "L2RasterProducts"
+    ADD CONSTRAINT "L2RasterProducts_productKey_key" UNIQUE ("productKey");
+
+COMMIT;
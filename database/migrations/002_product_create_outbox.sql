@@ -0,0 +1,15 @@
+-- Adds the outbox which product-create messages are written to before
+-- being relayed to SQS. Remember to grant the app user access to the new
+-- table and its identity sequence
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS "ProductCreateOutbox" (
+    "id" bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    "productId" uuid NOT NULL,
+    "timestamp" timestamp with time zone NOT NULL DEFAULT current_timestamp,
+    "attempts" int NOT NULL DEFAULT 0,
+    FOREIGN KEY ("productId") REFERENCES "L2RasterProducts" ("id") ON DELETE CASCADE
+);
+
+COMMIT;
@@ -0,0 +1,21 @@
+-- Adds the current status/state columns to "L2RasterProducts" and backfills
+-- them from each product's latest status. From here on the API writes both
+-- columns in the same transaction as each status it inserts; anything else
+-- inserting into "Status" must do the same
+
+BEGIN;
+
+ALTER TABLE "L2RasterProducts"
+    ADD COLUMN IF NOT EXISTS "currentStatusId" uuid,
+    ADD COLUMN IF NOT EXISTS "currentState" varchar;
+
+UPDATE "L2RasterProducts" AS p
+SET "currentStatusId" = s."id", "currentState" = s."state"
+FROM (
+    SELECT DISTINCT ON ("productId") "productId", "id", "state"
+    FROM "Status"
+    ORDER BY "productId", "timestamp" DESC
+) AS s
+WHERE s."productId" = p."id";
+
+COMMIT;
@@ -0,0 +1,16 @@
+-- Adds indexes for the access paths of the API's hot queries. Built
+-- concurrently so that writes to the tables aren't blocked while they build,
+-- which can't be done inside a transaction block; should a build fail, drop
+-- the invalid index it leaves behind and rerun this script
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS "RasterDefinitions_userId_idx"
+    ON "RasterDefinitions" ("userId");
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS "Granules_productId_idx"
+    ON "Granules" ("productId");
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS "ProductHistory_requestedById_timestamp_idx"
+    ON "ProductHistory" ("requestedById", "timestamp" DESC, "rasterProductId" DESC);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS "Status_productId_timestamp_idx"
+    ON "Status" ("productId", "timestamp" DESC, "id" DESC);
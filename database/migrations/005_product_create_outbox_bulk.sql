@@ -0,0 +1,13 @@
+-- Separates bulk admin re-queues from products requested by users in the
+-- product create outbox, so that the relay can pace the former. Existing
+-- entries are treated as user requests
+
+BEGIN;
+
+ALTER TABLE "ProductCreateOutbox"
+    ADD COLUMN IF NOT EXISTS "bulk" boolean NOT NULL DEFAULT false;
+
+CREATE INDEX IF NOT EXISTS "ProductCreateOutbox_bulk_id_idx"
+    ON "ProductCreateOutbox" ("bulk", "id");
+
+COMMIT;
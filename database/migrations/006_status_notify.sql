@@ -0,0 +1,21 @@
+-- Notifies the "status_changes" channel with the product id of each status
+-- inserted, which API instances LISTEN on to feed productStatus
+-- subscriptions. Notifications are delivered on commit, with repeats for a
+-- product within a transaction collapsed into one. Also applied by
+-- local-setup.sh, as schema.sql is kept runnable on H2 for tests
+
+BEGIN;
+
+CREATE OR REPLACE FUNCTION "notify_status_change"() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('status_changes', NEW."productId"::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS "Status_notify" ON "Status";
+CREATE TRIGGER "Status_notify"
+    AFTER INSERT ON "Status"
+    FOR EACH ROW EXECUTE FUNCTION "notify_status_change"();
+
+COMMIT;
@@ -0,0 +1,17 @@
+-- Adds the archive which status compaction moves old statuses into, each
+-- row holding a batch of a product's statuses as a gzipped JSON array
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS "StatusArchive" (
+    "id" bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    "productId" uuid NOT NULL,
+    "timestamp" timestamp with time zone NOT NULL DEFAULT current_timestamp,
+    "count" int NOT NULL,
+    "statuses" bytea NOT NULL,
+    FOREIGN KEY ("productId") REFERENCES "L2RasterProducts" ("id") ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS "StatusArchive_productId_idx" ON "StatusArchive" ("productId");
+
+COMMIT;
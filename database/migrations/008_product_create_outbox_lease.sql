@@ -0,0 +1,11 @@
+-- Lets relays claim product create outbox entries with a lease, rather than
+-- holding row locks while the entries are sent to the product create queue.
+-- An entry is only claimable once its lease has expired; a failed entry's
+-- lease doubles as its retry backoff
+
+BEGIN;
+
+ALTER TABLE "ProductCreateOutbox"
+    ADD COLUMN IF NOT EXISTS "leasedUntil" timestamp with time zone;
+
+COMMIT;
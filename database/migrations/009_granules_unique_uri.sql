@@ -0,0 +1,17 @@
+-- Makes granules unique per product and URI, so that product updates
+-- redelivered by the product update queue can insert their granules with ON
+-- CONFLICT DO NOTHING. Duplicates already recorded are removed first,
+-- keeping the earliest of each
+
+BEGIN;
+
+DELETE FROM "Granules" AS g
+USING "Granules" AS earlier
+WHERE earlier."productId" = g."productId"
+  AND earlier."uri" = g."uri"
+  AND (earlier."timestamp", earlier."id") < (g."timestamp", g."id");
+
+CREATE UNIQUE INDEX IF NOT EXISTS "Granules_productId_uri_idx"
+    ON "Granules" ("productId", "uri");
+
+COMMIT;
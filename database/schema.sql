@@ -29,7 +29,10 @@ CREATE TABLE "L2RasterProducts" (
     "outputSamplingGridType" varchar NOT NULL,
     "rasterResolution" int NOT NULL,
     "utmZoneAdjust" int,
-    "mgrsBandAdjust" int
+    "mgrsBandAdjust" int,
+    "productKey" varchar UNIQUE, -- See L2RasterProductParameters.productKey()
+    "currentStatusId" uuid, -- Latest row in "Status", kept in step by the API
+    "currentState" varchar
 );
 
 CREATE TABLE "Granules" (
@@ -49,6 +52,8 @@ CREATE TABLE "ProductHistory" (
     FOREIGN KEY ("rasterProductId") REFERENCES "L2RasterProducts" ("id") ON DELETE CASCADE
 );
 
+-- Inserts are notified on "status_changes" by a PostgreSQL-only trigger, see
+-- migrations/006_status_notify.sql
 CREATE TABLE "Status" (
     "id" uuid DEFAULT gen_random_uuid() PRIMARY KEY,
     "productId" uuid NOT NULL,
@@ -57,3 +62,34 @@ CREATE TABLE "Status" (
     "reason" text,
     FOREIGN KEY ("productId") REFERENCES "L2RasterProducts" ("id") ON DELETE CASCADE
 );
+
+-- Statuses compacted out of "Status", as gzipped JSON arrays of the rows
+CREATE TABLE "StatusArchive" (
+    "id" bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    "productId" uuid NOT NULL,
+    "timestamp" timestamp with time zone NOT NULL DEFAULT current_timestamp,
+    "count" int NOT NULL,
+    "statuses" bytea NOT NULL,
+    FOREIGN KEY ("productId") REFERENCES "L2RasterProducts" ("id") ON DELETE CASCADE
+);
+
+CREATE TABLE "ProductCreateOutbox" (
+    "id" bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    "productId" uuid NOT NULL,
+    "timestamp" timestamp with time zone NOT NULL DEFAULT current_timestamp,
+    "attempts" int NOT NULL DEFAULT 0,
+    "bulk" boolean NOT NULL DEFAULT false,
+    "leasedUntil" timestamp with time zone,
+    FOREIGN KEY ("productId") REFERENCES "L2RasterProducts" ("id") ON DELETE CASCADE
+);
+
+-- Create indexes
+CREATE INDEX "RasterDefinitions_userId_idx" ON "RasterDefinitions" ("userId");
+CREATE INDEX "Granules_productId_idx" ON "Granules" ("productId");
+CREATE UNIQUE INDEX "Granules_productId_uri_idx" ON "Granules" ("productId", "uri");
+CREATE INDEX "ProductHistory_requestedById_timestamp_idx"
+    ON "ProductHistory" ("requestedById", "timestamp" DESC, "rasterProductId" DESC);
+CREATE INDEX "Status_productId_timestamp_idx"
+    ON "Status" ("productId", "timestamp" DESC, "id" DESC);
+CREATE INDEX "StatusArchive_productId_idx" ON "StatusArchive" ("productId");
+CREATE INDEX "ProductCreateOutbox_bulk_id_idx" ON "ProductCreateOutbox" ("bulk", "id");
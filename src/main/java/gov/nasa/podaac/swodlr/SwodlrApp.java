@@ -2,10 +2,14 @@ package gov.nasa.podaac.swodlr;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// R2DBC is configured by R2dbcConfiguration, and only for the read path
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 @ConfigurationPropertiesScan
+@EnableScheduling
 public class SwodlrApp {
   public static void main(String[] args) {
     SpringApplication.run(SwodlrApp.class, args);
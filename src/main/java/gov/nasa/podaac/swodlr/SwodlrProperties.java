@@ -1,13 +1,94 @@
 package gov.nasa.podaac.swodlr;
 
+import java.time.Duration;
 import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
 
+/*
+ * Tuning of each component is grouped under swodlr.<component>, eg:
+ * swodlr.product-cache.max-size. The intervals of scheduled jobs are in the
+ * same groups, but are read by the jobs' @Scheduled placeholders, as are
+ * swodlr.read-path and swodlr.scene-lookup.mode by @ConditionalOnProperty
+ */
 @ConfigurationProperties("swodlr")
 @ConstructorBinding
 public record SwodlrProperties(
     Map<String, String> teaMapping,
     String productCreateQueueUrl,
-    String availableTilesTableName
-) { }
+    String productUpdateQueueUrl,
+    String availableTilesTableName,
+    @DefaultValue Fetcher fetcher,
+    @DefaultValue TeaLinkCache teaLinkCache,
+    @DefaultValue GranuleManifest granuleManifest,
+    @DefaultValue ProductCache productCache,
+    @DefaultValue ProductCreateRelay productCreateRelay,
+    @DefaultValue ProductUpdateConsumer productUpdateConsumer,
+    @DefaultValue StatusCompaction statusCompaction,
+    @DefaultValue TransitionMetrics transitionMetrics,
+    @DefaultValue Cmr cmr,
+    @DefaultValue SceneLookup sceneLookup,
+    @DefaultValue SceneCache sceneCache,
+    @DefaultValue SceneAvailability sceneAvailability,
+    @DefaultValue TileIndex tileIndex
+) {
+  public record Fetcher(@DefaultValue("100") int queueCapacity) { }
+
+  public record TeaLinkCache(@DefaultValue("100000") int maxSize) { }
+
+  public record GranuleManifest(@DefaultValue("500") int pageSize) { }
+
+  public record ProductCache(
+      @DefaultValue("10000") int maxSize,
+      @DefaultValue("PT5M") Duration ttl
+  ) { }
+
+  public record ProductCreateRelay(
+      @DefaultValue("100") int bulkLimit,
+      @DefaultValue("10") int maxAttempts
+  ) { }
+
+  public record ProductUpdateConsumer(@DefaultValue("true") boolean autoStartup) { }
+
+  public record StatusCompaction(
+      @DefaultValue("20") int keepLatest,
+      @DefaultValue("500") int batchSize
+  ) { }
+
+  public record TransitionMetrics(@DefaultValue("P7D") Duration backfill) { }
+
+  public record Cmr(
+      String endpoint,
+      @DefaultValue("SWOT_L2_HR_PIXC_2.0") String pixcShortName,
+      @DefaultValue("SWOT_L2_HR_PIXCVec_2.0") String pixcvecShortName,
+      @DefaultValue("50") int tilesPerQuery,
+      @DefaultValue("100000") int cacheMaxSize,
+      @DefaultValue("PT1H") Duration cacheTtl,
+      @DefaultValue("PT1M") Duration missingCacheTtl
+  ) { }
+
+  public record SceneLookup(
+      @DefaultValue("200") int maxScenes,
+      @DefaultValue("8") int concurrency,
+      @DefaultValue("5") int maxAttempts,
+      @DefaultValue("PT0.05S") Duration baseBackoff,
+      @DefaultValue("PT2S") Duration maxBackoff
+  ) { }
+
+  public record SceneCache(
+      @DefaultValue("100000") int maxSize,
+      @DefaultValue("PT1M") Duration unavailableTtl
+  ) { }
+
+  public record SceneAvailability(
+      @DefaultValue("80") int scenesPerPass,
+      @DefaultValue("584") int passesPerCycle,
+      @DefaultValue("PT1M") Duration maxAge
+  ) { }
+
+  public record TileIndex(
+      @DefaultValue("8") int scanSegments,
+      @DefaultValue("10000") int pageSize
+  ) { }
+}
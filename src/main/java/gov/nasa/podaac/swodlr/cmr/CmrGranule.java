@@ -0,0 +1,8 @@
+package gov.nasa.podaac.swodlr.cmr;
+
+import java.util.List;
+
+/*
+ * A granule found in CMR, with the links to its data and its size in MB
+ */
+public record CmrGranule(String granuleUr, List<String> links, double sizeMb) { }
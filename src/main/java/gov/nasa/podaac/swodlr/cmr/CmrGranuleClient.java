@@ -0,0 +1,294 @@
+package gov.nasa.podaac.swodlr.cmr;
+
+import gov.nasa.podaac.swodlr.SwodlrProperties;
+import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.graphql.client.ClientGraphQlResponse;
+import org.springframework.graphql.client.HttpGraphQlClient;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/*
+ * Looks up the PIXC and PIXCVec granules of tiles through the CMR GraphQL
+ * API, with the query in graphql-documents/query/granule_lookup.graphql.
+ * Tiles are looked up swodlr.cmr.tiles-per-query at a time, each query
+ * matching the granules of every tile in it by name pattern, so a request
+ * for many scenes costs a few queries rather than one per tile
+ *
+ * Results are cached by tile, up to swodlr.cmr.cache-max-size tiles,
+ * evicting the least recently used first. Tiles with both inputs are kept
+ * for swodlr.cmr.cache-ttl; tiles missing an input are kept for the
+ * shorter swodlr.cmr.missing-cache-ttl, as their granules may yet be
+ * ingested
+ */
+@Component
+public class CmrGranuleClient {
+  private static final String DOCUMENT = "query/granule_lookup";
+  private static final Pattern GRANULE_UR = Pattern.compile(
+      "^SWOT_L2_HR_(PIXC|PIXCVec)_(\\d{3})_(\\d{3})_(\\d{3})([LR])_"
+  );
+  private static final String DATA_REL = "http://esipfed.org/ns/fedsearch/1.1/data#";
+  private static final String S3_REL = "http://esipfed.org/ns/fedsearch/1.1/s3#";
+
+  /* CMR's largest page size */
+  private static final int MAX_ITEMS = 2000;
+  private static final int QUERY_CONCURRENCY = 4;
+
+  private static final String LOOKUPS_METRIC = "swodlr.cmr.cache.lookups";
+  private static final String LOOKUPS_DESCRIPTION = "CMR tile cache lookups, by result";
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final HttpGraphQlClient graphQlClient;
+  private final Map<Tile, Entry> entries;
+  private final int maxSize;
+  private final long ttlNanos;
+  private final long missingTtlNanos;
+
+  private final Counter hitCounter;
+  private final Counter missCounter;
+
+  private final String pixcShortName;
+  private final String pixcVecShortName;
+  private final int tilesPerQuery;
+
+  public CmrGranuleClient(
+      WebClient.Builder webClientBuilder,
+      MeterRegistry meterRegistry,
+      SwodlrProperties swodlrProperties
+  ) {
+    SwodlrProperties.Cmr cmr = swodlrProperties.cmr();
+    graphQlClient = HttpGraphQlClient.builder(webClientBuilder).url(cmr.endpoint()).build();
+    pixcShortName = cmr.pixcShortName();
+    pixcVecShortName = cmr.pixcvecShortName();
+    tilesPerQuery = cmr.tilesPerQuery();
+    maxSize = cmr.cacheMaxSize();
+    ttlNanos = cmr.cacheTtl().toNanos();
+    missingTtlNanos = cmr.missingCacheTtl().toNanos();
+    entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Tile, Entry> eldest) {
+        return size() > CmrGranuleClient.this.maxSize;
+      }
+    };
+
+    hitCounter = Counter.builder(LOOKUPS_METRIC)
+        .description(LOOKUPS_DESCRIPTION)
+        .tag("result", "hit")
+        .register(meterRegistry);
+    missCounter = Counter.builder(LOOKUPS_METRIC)
+        .description(LOOKUPS_DESCRIPTION)
+        .tag("result", "miss")
+        .register(meterRegistry);
+  }
+
+  /*
+   * Returns the input granules of each scene, in the order given
+   */
+  public Mono<List<SceneInputs>> findScenes(Collection<Scene> scenes) {
+    List<Tile> tiles = new ArrayList<>();
+    for (Scene scene : scenes) {
+      tiles.addAll(scene.tiles());
+    }
+
+    return findTiles(tiles).map((granules) -> {
+      List<SceneInputs> inputs = new ArrayList<>(scenes.size());
+      for (Scene scene : scenes) {
+        List<TileGranules> sceneTiles = new ArrayList<>(8);
+        for (Tile tile : scene.tiles()) {
+          sceneTiles.add(granules.get(tile));
+        }
+        inputs.add(new SceneInputs(scene, sceneTiles));
+      }
+
+      return inputs;
+    });
+  }
+
+  /*
+   * Returns the granules of each tile, from the cache where possible
+   */
+  public Mono<Map<Tile, TileGranules>> findTiles(Collection<Tile> tiles) {
+    return Mono.defer(() -> {
+      Map<Tile, TileGranules> found = new HashMap<>();
+      List<Tile> missing = new ArrayList<>();
+      for (Tile tile : new LinkedHashSet<>(tiles)) {
+        TileGranules cached = get(tile);
+        if (cached != null) {
+          found.put(tile, cached);
+        } else {
+          missing.add(tile);
+        }
+      }
+
+      hitCounter.increment(found.size());
+      missCounter.increment(missing.size());
+      if (missing.isEmpty()) {
+        return Mono.just(found);
+      }
+
+      List<List<Tile>> batches = new ArrayList<>();
+      for (int i = 0; i < missing.size(); i += tilesPerQuery) {
+        batches.add(missing.subList(i, Math.min(i + tilesPerQuery, missing.size())));
+      }
+
+      return Flux.fromIterable(batches)
+          .flatMap(this::query, QUERY_CONCURRENCY)
+          .doOnNext(this::putAll)
+          .reduce(found, (results, batch) -> {
+            results.putAll(batch);
+            return results;
+          });
+    });
+  }
+
+  private Mono<Map<Tile, TileGranules>> query(List<Tile> tiles) {
+    return graphQlClient
+        .documentName(DOCUMENT)
+        .variable("pixcParams", params(pixcShortName, "PIXC", tiles))
+        .variable("pixcVecParams", params(pixcVecShortName, "PIXCVec", tiles))
+        .execute()
+        .map((response) -> {
+          if (!response.isValid() || !response.getErrors().isEmpty()) {
+            logger.error("CMR granule lookup failed: {}", response.getErrors());
+            throw new SwodlrException("Unable to look up granules in CMR");
+          }
+
+          Map<Tile, TileGranules> results = new HashMap<>();
+          for (Tile tile : tiles) {
+            results.put(tile, new TileGranules(tile, new ArrayList<>(), new ArrayList<>()));
+          }
+          collect(response, "pixc", results);
+          collect(response, "pixcVec", results);
+
+          results.replaceAll((tile, granules) -> new TileGranules(
+              tile, List.copyOf(granules.pixc()), List.copyOf(granules.pixcVec())
+          ));
+          return results;
+        });
+  }
+
+  private Map<String, Object> params(String shortName, String product, List<Tile> tiles) {
+    List<String> patterns = new ArrayList<>(tiles.size());
+    for (Tile tile : tiles) {
+      patterns.add(tile.granuleNamePattern(product));
+    }
+
+    return Map.of(
+        "shortName", shortName,
+        "readableGranuleName", patterns,
+        "options", Map.of("readableGranuleName", Map.of("pattern", true)),
+        "limit", MAX_ITEMS
+    );
+  }
+
+  private void collect(
+      ClientGraphQlResponse response,
+      String field,
+      Map<Tile, TileGranules> results
+  ) {
+    GranuleList granules = response.field(field).toEntity(GranuleList.class);
+    if (granules == null || granules.items() == null) {
+      return;
+    }
+
+    if (granules.count() > granules.items().size()) {
+      // Lowering swodlr.cmr.tiles-per-query keeps results to one page
+      logger.error(
+          "CMR granule lookup returned {} of {} {} granules",
+          granules.items().size(), granules.count(), field
+      );
+      throw new SwodlrException("Unable to look up granules in CMR");
+    }
+
+    for (Item item : granules.items()) {
+      Matcher matcher = GRANULE_UR.matcher(item.granuleUr() != null ? item.granuleUr() : "");
+      if (!matcher.find()) {
+        continue;
+      }
+
+      TileGranules tileGranules = results.get(new Tile(
+          Integer.parseInt(matcher.group(2)),
+          Integer.parseInt(matcher.group(3)),
+          Integer.parseInt(matcher.group(4)),
+          matcher.group(5).charAt(0)
+      ));
+      if (tileGranules == null) {
+        continue;
+      }
+
+      CmrGranule granule = new CmrGranule(
+          item.granuleUr(),
+          links(item),
+          item.granuleSize() != null ? item.granuleSize() : 0
+      );
+      if (matcher.group(1).equals("PIXC")) {
+        tileGranules.pixc().add(granule);
+      } else {
+        tileGranules.pixcVec().add(granule);
+      }
+    }
+  }
+
+  private static List<String> links(Item item) {
+    List<String> links = new ArrayList<>();
+    if (item.links() == null) {
+      return links;
+    }
+
+    for (Map<String, Object> link : item.links()) {
+      Object rel = link.get("rel");
+      if ((DATA_REL.equals(rel) || S3_REL.equals(rel)) && link.get("href") instanceof String href) {
+        links.add(href);
+      }
+    }
+
+    return links;
+  }
+
+  private TileGranules get(Tile tile) {
+    synchronized (entries) {
+      Entry entry = entries.get(tile);
+      if (entry == null) {
+        return null;
+      }
+
+      if (System.nanoTime() > entry.expiresAt()) {
+        entries.remove(tile);
+        return null;
+      }
+
+      return entry.granules();
+    }
+  }
+
+  private void putAll(Map<Tile, TileGranules> granules) {
+    long now = System.nanoTime();
+    synchronized (entries) {
+      for (TileGranules tileGranules : granules.values()) {
+        long ttl = tileGranules.available() ? ttlNanos : missingTtlNanos;
+        entries.put(tileGranules.tile(), new Entry(tileGranules, now + ttl));
+      }
+    }
+  }
+
+  private record Entry(TileGranules granules, long expiresAt) { }
+
+  private record GranuleList(int count, List<Item> items) { }
+
+  private record Item(String granuleUr, List<Map<String, Object>> links, Double granuleSize) { }
+}
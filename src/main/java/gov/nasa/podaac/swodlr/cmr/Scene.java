@@ -0,0 +1,20 @@
+package gov.nasa.podaac.swodlr.cmr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public record Scene(int cycle, int pass, int scene) {
+  /*
+   * The tile sides a scene is generated from: the four tiles from
+   * (scene * 2) - 2, on both sides
+   */
+  public List<Tile> tiles() {
+    List<Tile> tiles = new ArrayList<>(8);
+    for (int tile = (scene * 2) - 2; tile <= (scene * 2) + 1; tile++) {
+      tiles.add(new Tile(cycle, pass, tile, 'L'));
+      tiles.add(new Tile(cycle, pass, tile, 'R'));
+    }
+
+    return tiles;
+  }
+}
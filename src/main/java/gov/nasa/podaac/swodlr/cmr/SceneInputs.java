@@ -0,0 +1,31 @@
+package gov.nasa.podaac.swodlr.cmr;
+
+import java.util.List;
+
+/*
+ * The input granules of a scene, for size estimates and checks run before
+ * a product is generated
+ */
+public record SceneInputs(Scene scene, List<TileGranules> tiles) {
+  /*
+   * Whether every tile side of the scene has both of its inputs
+   */
+  public boolean available() {
+    for (TileGranules tile : tiles) {
+      if (!tile.available()) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  public double sizeMb() {
+    double size = 0;
+    for (TileGranules tile : tiles) {
+      size += tile.sizeMb();
+    }
+
+    return size;
+  }
+}
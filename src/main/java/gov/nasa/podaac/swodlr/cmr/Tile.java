@@ -0,0 +1,14 @@
+package gov.nasa.podaac.swodlr.cmr;
+
+/*
+ * A side of a SWOT tile, as numbered in PIXC and PIXCVec granule names
+ */
+public record Tile(int cycle, int pass, int tile, char side) {
+  /*
+   * Returns the CMR readable granule name pattern matching the tile's
+   * granules of a product ("PIXC" or "PIXCVec")
+   */
+  public String granuleNamePattern(String product) {
+    return "SWOT_L2_HR_%s_%03d_%03d_%03d%c_*".formatted(product, cycle, pass, tile, side);
+  }
+}
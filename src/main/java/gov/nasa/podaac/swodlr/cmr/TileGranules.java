@@ -0,0 +1,25 @@
+package gov.nasa.podaac.swodlr.cmr;
+
+import java.util.List;
+
+/*
+ * The PIXC and PIXCVec granules found for a tile side. A tile may have
+ * several granules of a product when it has been reprocessed
+ */
+public record TileGranules(Tile tile, List<CmrGranule> pixc, List<CmrGranule> pixcVec) {
+  public boolean available() {
+    return !pixc.isEmpty() && !pixcVec.isEmpty();
+  }
+
+  public double sizeMb() {
+    double size = 0;
+    for (CmrGranule granule : pixc) {
+      size += granule.sizeMb();
+    }
+    for (CmrGranule granule : pixcVec) {
+      size += granule.sizeMb();
+    }
+
+    return size;
+  }
+}
@@ -20,36 +20,54 @@ import org.springframework.transaction.TransactionSystemException;
 public class SwodlrExceptionResolver extends DataFetcherExceptionResolverAdapter {
   @Override
   public List<GraphQLError> resolveToMultipleErrors(Throwable ex, DataFetchingEnvironment env) {
-    if (ex instanceof SwodlrException) {
+    if (ex instanceof SwodlrValidationException validationException) {
+      return Collections.singletonList(validationError(
+          validationException.getProperty(), validationException.getMessage(), env
+      ));
+    } else if (ex instanceof SwodlrException) {
       return Collections.singletonList(
         GraphqlErrorBuilder.newError(env).message(ex.getMessage()).build()
       );
+    } else if (ex instanceof ConstraintViolationException constraintViolationException) {
+      return resolveConstraintViolations(constraintViolationException, env);
     } else if (ex instanceof TransactionSystemException) {
       var rootThrowable = ExceptionUtils.getRootCause(ex);
       if (!(rootThrowable instanceof ConstraintViolationException constraintViolationException)) {
         return null;
       }
 
-      List<GraphQLError> errors = new ArrayList<>();
-      var violations = constraintViolationException.getConstraintViolations();
-
-      for (var violation : violations) {
-        var error = GraphqlErrorBuilder
-            .newError(env)
-            .errorType(ErrorType.ValidationError)
-            .extensions(Collections.singletonMap(
-                "property",
-                violation.getPropertyPath().toString()
-            ))
-            .message(violation.getMessage())
-            .build();
-
-        errors.add(error);
-      }
-
-      return Collections.unmodifiableList(errors);
+      return resolveConstraintViolations(constraintViolationException, env);
     } else {
       return null;
     }
   }
+
+  private List<GraphQLError> resolveConstraintViolations(
+      ConstraintViolationException ex,
+      DataFetchingEnvironment env
+  ) {
+    List<GraphQLError> errors = new ArrayList<>();
+    var violations = ex.getConstraintViolations();
+
+    for (var violation : violations) {
+      errors.add(validationError(
+          violation.getPropertyPath().toString(), violation.getMessage(), env
+      ));
+    }
+
+    return Collections.unmodifiableList(errors);
+  }
+
+  private GraphQLError validationError(
+      String property,
+      String message,
+      DataFetchingEnvironment env
+  ) {
+    return GraphqlErrorBuilder
+        .newError(env)
+        .errorType(ErrorType.ValidationError)
+        .extensions(Collections.singletonMap("property", property))
+        .message(message)
+        .build();
+  }
 }
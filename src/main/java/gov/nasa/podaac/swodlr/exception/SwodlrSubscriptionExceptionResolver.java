@@ -0,0 +1,25 @@
+package gov.nasa.podaac.swodlr.exception;
+
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.graphql.execution.SubscriptionExceptionResolverAdapter;
+import org.springframework.stereotype.Component;
+
+/*
+ * Errors raised by subscription streams bypass the DataFetcherExceptionResolvers,
+ * so SwodlrExceptions are resolved here too
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SwodlrSubscriptionExceptionResolver extends SubscriptionExceptionResolverAdapter {
+  @Override
+  protected GraphQLError resolveToSingleError(Throwable ex) {
+    if (ex instanceof SwodlrException) {
+      return GraphqlErrorBuilder.newError().message(ex.getMessage()).build();
+    }
+
+    return null;
+  }
+}
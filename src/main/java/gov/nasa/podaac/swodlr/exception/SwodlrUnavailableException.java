@@ -0,0 +1,20 @@
+package gov.nasa.podaac.swodlr.exception;
+
+import java.time.Duration;
+
+/*
+ * A SwodlrException raised when a dependency is temporarily unable to
+ * serve a request, which users may retry after retryAfter
+ */
+public class SwodlrUnavailableException extends SwodlrException {
+  private final Duration retryAfter;
+
+  public SwodlrUnavailableException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
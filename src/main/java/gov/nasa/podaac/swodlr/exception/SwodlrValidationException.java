@@ -0,0 +1,18 @@
+package gov.nasa.podaac.swodlr.exception;
+
+/*
+ * A SwodlrException raised for an invalid argument, which is reported to
+ * users as a validation error of that property
+ */
+public class SwodlrValidationException extends SwodlrException {
+  private final String property;
+
+  public SwodlrValidationException(String property, String message) {
+    super(message);
+    this.property = property;
+  }
+
+  public String getProperty() {
+    return property;
+  }
+}
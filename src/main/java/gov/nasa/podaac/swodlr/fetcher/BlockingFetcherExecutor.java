@@ -0,0 +1,137 @@
+package gov.nasa.podaac.swodlr.fetcher;
+
+import com.zaxxer.hikari.HikariDataSource;
+import gov.nasa.podaac.swodlr.SwodlrProperties;
+import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/*
+ * Runs blocking (JPA/JDBC) work for data fetchers off of the event loop.
+ * The pool has one thread per database connection, so work beyond what the
+ * connection pool can serve waits in a bounded queue here rather than
+ * holding a thread while it waits on Hikari. Once the queue is full, new
+ * work is rejected immediately with a "busy" error instead of piling up
+ */
+@Component
+public class BlockingFetcherExecutor {
+  private static final int DEFAULT_THREADS = 10;
+
+  private final ThreadPoolExecutor executor;
+  private final Timer queueWaitTimer;
+  private final Timer runTimer;
+  private final Counter rejectedCounter;
+
+  public BlockingFetcherExecutor(
+      DataSource dataSource,
+      MeterRegistry meterRegistry,
+      SwodlrProperties swodlrProperties
+  ) {
+    int threads = dataSource instanceof HikariDataSource hikariDataSource
+        ? hikariDataSource.getMaximumPoolSize()
+        : DEFAULT_THREADS;
+
+    executor = new ThreadPoolExecutor(
+        threads,
+        threads,
+        0,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(swodlrProperties.fetcher().queueCapacity()),
+        new FetcherThreadFactory(),
+        new ThreadPoolExecutor.AbortPolicy()
+    );
+
+    queueWaitTimer = Timer.builder("swodlr.fetcher.queue.wait")
+        .description("Time blocking data fetchers spent waiting for a thread")
+        .register(meterRegistry);
+    runTimer = Timer.builder("swodlr.fetcher.run")
+        .description("Time blocking data fetchers spent running")
+        .register(meterRegistry);
+    rejectedCounter = Counter.builder("swodlr.fetcher.rejected")
+        .description("Blocking data fetchers rejected because the queue was full")
+        .register(meterRegistry);
+
+    meterRegistry.gauge(
+        "swodlr.fetcher.queue.depth", Tags.empty(), executor,
+        (pool) -> pool.getQueue().size()
+    );
+    meterRegistry.gauge(
+        "swodlr.fetcher.active", Tags.empty(), executor,
+        ThreadPoolExecutor::getActiveCount
+    );
+  }
+
+  /*
+   * Returns a Mono which runs the callable on the executor when subscribed.
+   * A null result completes the Mono empty
+   */
+  public <T> Mono<T> fromCallable(Callable<T> callable) {
+    return Mono.create((sink) -> {
+      long queuedAt = System.nanoTime();
+      FutureTask<Void> task = new FutureTask<>(() -> {
+        queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        runTimer.record(() -> {
+          try {
+            sink.success(callable.call());
+          } catch (Throwable ex) {
+            sink.error(ex);
+          }
+        });
+      }, null);
+
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException ex) {
+        rejectedCounter.increment();
+        sink.error(new SwodlrException("The server is busy, please try again later"));
+        return;
+      }
+
+      sink.onCancel(() -> {
+        if (task.cancel(false)) {
+          executor.remove(task);
+        }
+      });
+    });
+  }
+
+  /*
+   * Returns a Mono which calls the supplier on the executor and subscribes
+   * to the Mono it returns. Used where a fetcher does its blocking work
+   * while assembling a Mono
+   */
+  public <T> Mono<T> defer(Supplier<Mono<T>> supplier) {
+    return fromCallable(supplier::get).flatMap((mono) -> mono);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private static class FetcherThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "blocking-fetcher-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -2,10 +2,7 @@ package gov.nasa.podaac.swodlr.granule;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import gov.nasa.podaac.swodlr.Utils;
-import gov.nasa.podaac.swodlr.exception.SwodlrException;
 import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.time.LocalDateTime;
 import java.util.UUID;
 import javax.persistence.Column;
@@ -14,10 +11,15 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Transient;
+import org.springframework.context.ApplicationContext;
 
 @Entity
 @Table(name = "Granules")
 public class Granule {
+  /* The TEA mapper last looked up, along with the context it came from */
+  private static volatile MapperHolder mapperHolder;
+
   @Id
   private UUID id;
 
@@ -31,6 +33,10 @@ public class Granule {
   @Column(nullable = false)
   private String uri;
 
+  /* Download link, when converted ahead of time (see GranuleController) */
+  @Transient
+  private String teaUri;
+
   Granule() { }
 
   public Granule(L2RasterProduct product, String uri) {
@@ -40,6 +46,16 @@ public class Granule {
     this.uri = uri;
   }
 
+  /*
+   * Rebuilds a granule from a row read outside of JPA (see R2dbcGranuleReader)
+   */
+  Granule(UUID id, L2RasterProduct product, LocalDateTime timestamp, String uri) {
+    this.id = id;
+    this.product = product;
+    this.timestamp = timestamp;
+    this.uri = uri;
+  }
+
   public UUID getId() {
     return id;
   }
@@ -58,16 +74,27 @@ public class Granule {
   }
 
   public String getUri() {
-    try {
-      return Utils
-        .applicationContext()
-        .getBean(TeaMapper.class)
-        .convertS3Uri(URI.create(uri))
-        .toString();
-    } catch (URISyntaxException ex) {
-      throw new SwodlrException(
-        "Error generating download link. Please contact support"
-      );
+    if (teaUri == null) {
+      teaUri = teaMapper().convert(uri);
+    }
+
+    return teaUri;
+  }
+
+  void setTeaUri(String teaUri) {
+    this.teaUri = teaUri;
+  }
+
+  private static TeaMapper teaMapper() {
+    ApplicationContext applicationContext = Utils.applicationContext();
+    MapperHolder holder = mapperHolder;
+    if (holder == null || holder.applicationContext() != applicationContext) {
+      holder = new MapperHolder(applicationContext, applicationContext.getBean(TeaMapper.class));
+      mapperHolder = holder;
     }
+
+    return holder.teaMapper();
   }
+
+  private record MapperHolder(ApplicationContext applicationContext, TeaMapper teaMapper) { }
 }
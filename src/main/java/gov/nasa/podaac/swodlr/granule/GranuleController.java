@@ -1,18 +1,71 @@
 package gov.nasa.podaac.swodlr.granule;
 
 import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.dataloader.DataLoader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
 
 @Controller
 public class GranuleController {
+  private static final String GRANULE_LOADER = "granuleLoader";
+
+  @Autowired
+  private GranuleReader granuleReader;
+
   @Autowired
-  private GranuleRepository granuleRepository;
+  private TeaMapper teaMapper;
+
+  /*
+   * Loads the granules of every product in a response with one statement
+   */
+  public GranuleController(BatchLoaderRegistry batchLoaderRegistry) {
+    batchLoaderRegistry
+        .<L2RasterProduct, Set<Granule>>forName(GRANULE_LOADER)
+        .registerMappedBatchLoader((products, env) -> loadGranules(products));
+  }
 
   @SchemaMapping(typeName = "L2RasterProduct", field = "granules")
-  public Set<Granule> getGranulesForProduct(L2RasterProduct product) {
-    return granuleRepository.findByProduct(product);
+  public CompletableFuture<Set<Granule>> getGranulesForProduct(
+      L2RasterProduct product,
+      DataLoader<L2RasterProduct, Set<Granule>> granuleLoader
+  ) {
+    return granuleLoader.load(product);
+  }
+
+  /*
+   * Also converts the download links of every loaded granule in one pass
+   */
+  private Mono<Map<L2RasterProduct, Set<Granule>>> loadGranules(Set<L2RasterProduct> products) {
+    return granuleReader.findByProducts(products).map((granules) -> {
+      List<Granule> loaded = new ArrayList<>();
+      List<String> s3Uris = new ArrayList<>();
+      for (Set<Granule> productGranules : granules.values()) {
+        for (Granule granule : productGranules) {
+          loaded.add(granule);
+          s3Uris.add(granule.getS3Uri());
+        }
+      }
+
+      List<String> teaUris = teaMapper.convertAll(s3Uris);
+      for (int i = 0; i < loaded.size(); i++) {
+        loaded.get(i).setTeaUri(teaUris.get(i));
+      }
+
+      Map<L2RasterProduct, Set<Granule>> results = new HashMap<>();
+      for (L2RasterProduct product : products) {
+        results.put(product, granules.getOrDefault(product.getId(), Set.of()));
+      }
+
+      return results;
+    });
   }
 }
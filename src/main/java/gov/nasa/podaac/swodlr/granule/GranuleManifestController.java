@@ -0,0 +1,88 @@
+package gov.nasa.podaac.swodlr.granule;
+
+import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductFilter;
+import gov.nasa.podaac.swodlr.security.UserBootstrapWebFilter;
+import gov.nasa.podaac.swodlr.user.UserReference;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.WebSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/*
+ * Streams a download manifest of the granules of the current user's
+ * products, optionally narrowed with the same filters as the bulk admin
+ * operations (see L2RasterProductFilter), e.g.
+ *
+ *    GET /granules/manifest?format=METALINK&cycleMin=10&currentStates=READY
+ *
+ * Lines are written in chunks as they are read from the database; a slow
+ * client slows the read instead of buffering the manifest in memory
+ */
+@RestController
+public class GranuleManifestController {
+  private static final int LINES_PER_CHUNK = 256;
+
+  @Autowired
+  private GranuleManifestRepository granuleManifestRepository;
+
+  @Autowired
+  private TeaMapper teaMapper;
+
+  @GetMapping("/granules/manifest")
+  public ResponseEntity<Flux<DataBuffer>> getManifest(
+      WebSession session,
+      @RequestParam(defaultValue = "NDJSON") ManifestFormat format,
+      @ModelAttribute L2RasterProductFilter filter
+  ) {
+    UserReference userReference = session.getAttribute(
+        UserBootstrapWebFilter.SESSION_ATTRIBUTE_KEY
+    );
+    if (userReference == null) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
+    filter.validateLists();
+    Flux<String> lines = granuleManifestRepository
+        .streamManifest(userReference.getId(), filter)
+        .map((entry) -> format.entry(entry, teaMapper.convert(entry.s3Uri())));
+
+    Flux<DataBuffer> body = Flux
+        .concat(Mono.just(format.header()), lines, Mono.just(format.footer()))
+        .buffer(LINES_PER_CHUNK)
+        .map(GranuleManifestController::chunk);
+
+    return ResponseEntity.ok()
+        .contentType(format.mediaType())
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(format.fileName()).build().toString()
+        )
+        .body(body);
+  }
+
+  @ExceptionHandler(SwodlrException.class)
+  public ResponseEntity<Map<String, String>> handleSwodlrException(SwodlrException ex) {
+    return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+  }
+
+  private static DataBuffer chunk(List<String> lines) {
+    return DefaultDataBufferFactory.sharedInstance.wrap(
+        String.join("", lines).getBytes(StandardCharsets.UTF_8)
+    );
+  }
+}
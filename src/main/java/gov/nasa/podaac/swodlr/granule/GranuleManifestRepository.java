@@ -0,0 +1,147 @@
+package gov.nasa.podaac.swodlr.granule;
+
+import gov.nasa.podaac.swodlr.SwodlrProperties;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductFilter;
+import gov.nasa.podaac.swodlr.producthistory.ProductHistoryBuffer;
+import gov.nasa.podaac.swodlr.sql.ShapedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LocalDateTimeType;
+import org.hibernate.type.StringType;
+import org.hibernate.type.UUIDCharType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+
+/*
+ * Streams the granules of a user's products for download manifests. This
+ * lives outside of GranuleRepository as Spring Data JPA rejects repositories
+ * with reactive methods
+ */
+@Repository
+public class GranuleManifestRepository {
+  /*
+   * A page of the granules of the products requested by a user, most
+   * recently requested product first, following the given granule
+   */
+  private static final ShapedStatement MANIFEST_PAGE = L2RasterProductFilter.predicates(
+      ShapedStatement
+          .builder(
+              """
+              SELECT
+                \"Granules\".\"id\", \"Granules\".\"productId\", \"Granules\".\"uri\",
+                \"L2RasterProducts\".\"cycle\", \"L2RasterProducts\".\"pass\",
+                \"L2RasterProducts\".\"scene\", \"ProductHistory\".\"timestamp\"
+              FROM \"Granules\"
+              JOIN \"L2RasterProducts\" ON \"L2RasterProducts\".\"id\" = \"Granules\".\"productId\"
+              JOIN \"ProductHistory\"
+                ON \"ProductHistory\".\"rasterProductId\" = \"L2RasterProducts\".\"id\"
+              """
+          )
+          .where("\"ProductHistory\".\"requestedById\" = CAST(:userId AS UUID)")
+          .optional(
+              """
+              (\"ProductHistory\".\"timestamp\" < :afterTimestamp
+                OR (\"ProductHistory\".\"timestamp\" = :afterTimestamp
+                  AND (\"Granules\".\"productId\" > CAST(:afterProductId AS UUID)
+                    OR (\"Granules\".\"productId\" = CAST(:afterProductId AS UUID)
+                      AND \"Granules\".\"uri\" > :afterUri))))
+              """
+          )
+      )
+      .suffix(
+          """
+          ORDER BY \"ProductHistory\".\"timestamp\" DESC, \"Granules\".\"productId\",
+            \"Granules\".\"uri\"
+          LIMIT :limit
+          """
+      )
+      .build();
+
+  @Autowired
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  @Autowired
+  private ProductHistoryBuffer productHistoryBuffer;
+
+  @Autowired
+  private SwodlrProperties swodlrProperties;
+
+  /*
+   * Streams the granules a page of pageSize rows at a time, each read as
+   * the previous one is consumed, so that memory use doesn't grow with the
+   * size of the manifest. Pages are read by keyset rather than through a
+   * cursor, so a connection is only held while a page is read and a slow
+   * client never holds one. A product requested again while its manifest
+   * is streaming moves ahead of the page being read, so any of its
+   * granules not yet streamed are left out. Rows are read on
+   * boundedElastic, after the user's buffered product history is flushed
+   */
+  public Flux<ManifestEntry> streamManifest(UUID userId, L2RasterProductFilter filter) {
+    int pageSize = swodlrProperties.granuleManifest().pageSize();
+    return Mono.fromRunnable(() -> productHistoryBuffer.flush(userId))
+        .thenMany(Flux.generate(
+            () -> new Page(List.of(), null),
+            (Page previous, SynchronousSink<Page> sink) -> {
+              Page page = readPage(userId, filter, previous.last(), pageSize);
+              if (!page.rows().isEmpty()) {
+                sink.next(page);
+              }
+              if (page.rows().size() < pageSize) {
+                sink.complete();
+              }
+              return page;
+            }
+        ))
+        .concatMapIterable(Page::rows, 1)
+        .map(Row::entry)
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  private Page readPage(UUID userId, L2RasterProductFilter filter, Row after, int pageSize) {
+    ShapedStatement.Bound statement = MANIFEST_PAGE.bind(
+        filter.applyTo(new ShapedStatement.Parameters())
+            .set("userId", userId, UUIDCharType.INSTANCE)
+            .set("afterTimestamp", after != null ? after.requestedAt() : null,
+                LocalDateTimeType.INSTANCE)
+            .set("afterProductId", after != null ? after.entry().productId() : null,
+                UUIDCharType.INSTANCE)
+            .set("afterUri", after != null ? after.entry().s3Uri() : null, StringType.INSTANCE)
+            .set("limit", pageSize, IntegerType.INSTANCE)
+    );
+
+    List<Row> rows = namedParameterJdbcTemplate.query(
+        statement.sql(),
+        statement.applyTo(new MapSqlParameterSource()),
+        (rs, rowNum) -> map(rs)
+    );
+    return new Page(rows, rows.isEmpty() ? after : rows.get(rows.size() - 1));
+  }
+
+  private static Row map(ResultSet rs) throws SQLException {
+    return new Row(
+        new ManifestEntry(
+            rs.getObject("id", UUID.class),
+            rs.getObject("productId", UUID.class),
+            rs.getInt("cycle"),
+            rs.getInt("pass"),
+            rs.getInt("scene"),
+            rs.getString("uri")
+        ),
+        rs.getTimestamp("timestamp").toLocalDateTime()
+    );
+  }
+
+  private record Row(ManifestEntry entry, LocalDateTime requestedAt) { }
+
+  private record Page(List<Row> rows, Row last) { }
+}
@@ -0,0 +1,20 @@
+package gov.nasa.podaac.swodlr.granule;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import reactor.core.publisher.Mono;
+
+/*
+ * Read path for granules used by data fetchers. Implemented with JPA or
+ * R2DBC depending on the swodlr.read-path property
+ */
+public interface GranuleReader {
+  /*
+   * Reads the granules of a batch of products with one statement, keyed by
+   * product id. Products without granules are absent from the result
+   */
+  Mono<Map<UUID, Set<Granule>>> findByProducts(Collection<L2RasterProduct> products);
+}
@@ -0,0 +1,57 @@
+package gov.nasa.podaac.swodlr.granule;
+
+import gov.nasa.podaac.swodlr.fetcher.BlockingFetcherExecutor;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@ConditionalOnProperty(name = "swodlr.read-path", havingValue = "jpa", matchIfMissing = true)
+public class JpaGranuleReader implements GranuleReader {
+  @Autowired
+  private BlockingFetcherExecutor blockingFetcherExecutor;
+
+  @Autowired
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  /*
+   * Maps rows without the entity manager, which would otherwise reload each
+   * granule's product by id
+   */
+  @Override
+  public Mono<Map<UUID, Set<Granule>>> findByProducts(Collection<L2RasterProduct> products) {
+    Map<UUID, L2RasterProduct> productsById = new HashMap<>();
+    for (L2RasterProduct product : products) {
+      productsById.put(product.getId(), product);
+    }
+
+    return blockingFetcherExecutor.fromCallable(() -> {
+      Map<UUID, Set<Granule>> granules = new HashMap<>();
+      namedParameterJdbcTemplate.query(
+          "SELECT * FROM \"Granules\" WHERE \"productId\" IN (:productIds)",
+          new MapSqlParameterSource("productIds", productsById.keySet()),
+          (rs) -> {
+            L2RasterProduct product = productsById.get(rs.getObject("productId", UUID.class));
+            granules.computeIfAbsent(product.getId(), (id) -> new HashSet<>()).add(new Granule(
+                rs.getObject("id", UUID.class),
+                product,
+                rs.getTimestamp("timestamp").toLocalDateTime(),
+                rs.getString("uri")
+            ));
+          }
+      );
+
+      return granules;
+    });
+  }
+}
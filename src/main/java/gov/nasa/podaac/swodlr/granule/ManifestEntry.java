@@ -0,0 +1,16 @@
+package gov.nasa.podaac.swodlr.granule;
+
+import java.util.UUID;
+
+/*
+ * A granule listed in a download manifest, along with the product it
+ * belongs to
+ */
+public record ManifestEntry(
+    UUID granuleId,
+    UUID productId,
+    int cycle,
+    int pass,
+    int scene,
+    String s3Uri
+) { }
@@ -0,0 +1,110 @@
+package gov.nasa.podaac.swodlr.granule;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.MediaType;
+
+/*
+ * Formats in which a granule download manifest can be rendered. Each is
+ * rendered as a header, a line per granule and a footer, so that manifests
+ * can be written out as granules are read
+ */
+public enum ManifestFormat {
+  /* One JSON object per line */
+  NDJSON("application/x-ndjson", "ndjson") {
+    @Override
+    public String entry(ManifestEntry entry, String url) {
+      return ("{\"productId\":\"%s\",\"cycle\":%d,\"pass\":%d,\"scene\":%d,"
+          + "\"granuleId\":\"%s\",\"url\":\"%s\"}\n")
+          .formatted(
+              entry.productId(), entry.cycle(), entry.pass(), entry.scene(), entry.granuleId(),
+              new String(JsonStringEncoder.getInstance().quoteAsString(url))
+          );
+    }
+  },
+
+  /* Metalink 4 (RFC 5854), accepted by aria2 and most download managers */
+  METALINK("application/metalink4+xml", "meta4") {
+    @Override
+    public String header() {
+      return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+          + "<metalink xmlns=\"urn:ietf:params:xml:ns:metalink\">\n";
+    }
+
+    @Override
+    public String entry(ManifestEntry entry, String url) {
+      return "  <file name=\"%s\">\n    <url>%s</url>\n  </file>\n"
+          .formatted(escapeXml(baseName(url)), escapeXml(url));
+    }
+
+    @Override
+    public String footer() {
+      return "</metalink>\n";
+    }
+  },
+
+  /* A shell script downloading each granule with wget */
+  WGET("text/x-shellscript", "sh") {
+    @Override
+    public String header() {
+      return
+          """
+          #!/bin/sh
+          # Downloads the granules of your SWODLR products. Granule links
+          # require Earthdata Login credentials for urs.earthdata.nasa.gov
+          # in ~/.netrc
+          set -e
+          COOKIES=\"${COOKIES:-$HOME/.urs_cookies}\"
+
+          fetch() {
+            wget --continue --auth-no-challenge --keep-session-cookies \\
+              --load-cookies \"$COOKIES\" --save-cookies \"$COOKIES\" \"$1\"
+          }
+
+          """;
+    }
+
+    @Override
+    public String entry(ManifestEntry entry, String url) {
+      return "fetch '" + url.replace("'", "'\\''") + "'\n";
+    }
+  };
+
+  private final MediaType mediaType;
+  private final String extension;
+
+  ManifestFormat(String mediaType, String extension) {
+    this.mediaType = MediaType.parseMediaType(mediaType);
+    this.extension = extension;
+  }
+
+  public MediaType mediaType() {
+    return mediaType;
+  }
+
+  public String fileName() {
+    return "swodlr-granules." + extension;
+  }
+
+  public String header() {
+    return "";
+  }
+
+  public abstract String entry(ManifestEntry entry, String url);
+
+  public String footer() {
+    return "";
+  }
+
+  private static String baseName(String url) {
+    return url.substring(url.lastIndexOf('/') + 1);
+  }
+
+  private static String escapeXml(String value) {
+    return value
+        .replace("&", "&amp;")
+        .replace("<", "&lt;")
+        .replace(">", "&gt;")
+        .replace("\"", "&quot;")
+        .replace("'", "&apos;");
+  }
+}
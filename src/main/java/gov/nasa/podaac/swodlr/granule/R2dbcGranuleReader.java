@@ -0,0 +1,45 @@
+package gov.nasa.podaac.swodlr.granule;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.r2dbc.R2dbcUtils;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@ConditionalOnProperty(name = "swodlr.read-path", havingValue = "r2dbc")
+public class R2dbcGranuleReader implements GranuleReader {
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  @Override
+  public Mono<Map<UUID, Set<Granule>>> findByProducts(Collection<L2RasterProduct> products) {
+    Map<UUID, L2RasterProduct> productsById = new HashMap<>();
+    for (L2RasterProduct product : products) {
+      productsById.put(product.getId(), product);
+    }
+
+    return databaseClient
+        .sql("SELECT * FROM \"Granules\" WHERE \"productId\" IN (:productIds)")
+        .bind("productIds", productsById.keySet())
+        .map((row, metadata) -> new Granule(
+            row.get("id", UUID.class),
+            productsById.get(row.get("productId", UUID.class)),
+            R2dbcUtils.getLocalDateTime(row, "timestamp"),
+            row.get("uri", String.class)
+        ))
+        .all()
+        .collect(Collectors.groupingBy(
+            (granule) -> granule.getProduct().getId(),
+            Collectors.toSet()
+        ));
+  }
+}
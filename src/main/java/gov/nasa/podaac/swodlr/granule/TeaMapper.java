@@ -1,15 +1,52 @@
 package gov.nasa.podaac.swodlr.granule;
 
 import gov.nasa.podaac.swodlr.SwodlrProperties;
+import gov.nasa.podaac.swodlr.exception.SwodlrException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import org.springframework.beans.factory.annotation.Autowired;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.stereotype.Component;
 
+/*
+ * Rewrites s3:// granule URIs into TEA download links. The configured
+ * bucket to host mapping is compiled on startup into a table of link
+ * prefixes by bucket, so most URIs are rewritten by looking up their bucket
+ * and appending their path, without parsing or building a URI. URIs with
+ * anything the URI constructor would re-quote or drop (escapes, a query, a
+ * fragment, characters outside of a plain path) and unmapped buckets take
+ * the slower URI-based conversion, which produces the same link
+ *
+ * Rewritten links are cached up to swodlr.tea-link-cache.max-size entries.
+ * As a link only depends on its URI, the cache is simply cleared when full
+ */
 @Component
 public class TeaMapper {
-  @Autowired
-  private SwodlrProperties swodlrProperties;
+  private static final String S3_SCHEME = "s3://";
+
+  private final Map<String, String> prefixes = new HashMap<>();
+  private final Map<String, String> cache = new ConcurrentHashMap<>();
+  private final SwodlrProperties swodlrProperties;
+  private final int cacheSize;
+
+  public TeaMapper(
+      SwodlrProperties swodlrProperties
+  ) {
+    this.swodlrProperties = swodlrProperties;
+    cacheSize = swodlrProperties.teaLinkCache().maxSize();
+
+    Map<String, String> teaMapping = swodlrProperties.teaMapping();
+    if (teaMapping != null) {
+      for (var mapping : teaMapping.entrySet()) {
+        if (isPlain(mapping.getKey()) && isPlain(mapping.getValue())) {
+          prefixes.put(mapping.getKey(), "https://" + mapping.getValue() + "/" + mapping.getKey());
+        }
+      }
+    }
+  }
 
   public URI convertS3Uri(URI s3Uri) throws URISyntaxException {
     String bucketName = s3Uri.getAuthority();
@@ -19,4 +56,76 @@ public class TeaMapper {
     URI teaUri = new URI("https", teaHost, path, null);
     return teaUri;
   }
+
+  /*
+   * Returns the download link for an s3:// URI
+   */
+  public String convert(String s3Uri) {
+    String teaUri = cache.get(s3Uri);
+    if (teaUri != null) {
+      return teaUri;
+    }
+
+    teaUri = rewrite(s3Uri);
+    if (cache.size() >= cacheSize) {
+      cache.clear();
+    }
+    cache.put(s3Uri, teaUri);
+
+    return teaUri;
+  }
+
+  /*
+   * Returns the download links for s3:// URIs, in the same order
+   */
+  public List<String> convertAll(List<String> s3Uris) {
+    List<String> teaUris = new ArrayList<>(s3Uris.size());
+    for (String s3Uri : s3Uris) {
+      teaUris.add(convert(s3Uri));
+    }
+
+    return teaUris;
+  }
+
+  private String rewrite(String s3Uri) {
+    if (s3Uri.startsWith(S3_SCHEME)) {
+      int pathStart = s3Uri.indexOf('/', S3_SCHEME.length());
+      if (pathStart > S3_SCHEME.length() && isPlain(s3Uri, pathStart)) {
+        String prefix = prefixes.get(s3Uri.substring(S3_SCHEME.length(), pathStart));
+        if (prefix != null) {
+          return prefix.concat(s3Uri.substring(pathStart));
+        }
+      }
+    }
+
+    try {
+      return convertS3Uri(URI.create(s3Uri)).toString();
+    } catch (IllegalArgumentException | URISyntaxException ex) {
+      throw new SwodlrException("Error generating download link. Please contact support");
+    }
+  }
+
+  private static boolean isPlain(String value) {
+    return value != null && !value.isEmpty() && isPlain(value, 0);
+  }
+
+  /*
+   * Whether the characters from the given index are all ones which are
+   * legal in a URI path as is
+   */
+  private static boolean isPlain(String value, int from) {
+    for (int i = from; i < value.length(); i++) {
+      char c = value.charAt(i);
+      boolean plain = (c >= 'a' && c <= 'z')
+          || (c >= 'A' && c <= 'Z')
+          || (c >= '0' && c <= '9')
+          || "-._~!$&'()*+,;=:@/".indexOf(c) >= 0;
+
+      if (!plain) {
+        return false;
+      }
+    }
+
+    return true;
+  }
 }
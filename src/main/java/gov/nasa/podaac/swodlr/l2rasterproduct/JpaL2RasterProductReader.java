@@ -0,0 +1,103 @@
+package gov.nasa.podaac.swodlr.l2rasterproduct;
+
+import gov.nasa.podaac.swodlr.fetcher.BlockingFetcherExecutor;
+import gov.nasa.podaac.swodlr.pagination.Connection;
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.user.UserRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@ConditionalOnProperty(name = "swodlr.read-path", havingValue = "jpa", matchIfMissing = true)
+public class JpaL2RasterProductReader implements L2RasterProductReader {
+  @Autowired
+  private BlockingFetcherExecutor blockingFetcherExecutor;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Override
+  public Mono<L2RasterProduct> findById(UUID id) {
+    return blockingFetcherExecutor.fromCallable(
+      () -> l2RasterProductRepository.findById(id).orElse(null)
+    );
+  }
+
+  @Override
+  public Mono<List<L2RasterProduct>> findByUser(
+      UUID userId,
+      Integer cycle,
+      Integer pass,
+      Integer scene,
+      Boolean outputGranuleExtentFlag,
+      GridType outputSamplingGridType,
+      Integer rasterResolution,
+      Integer utmZoneAdjust,
+      Integer mgrsBandAdjust,
+      LocalDateTime beforeTimestamp,
+      LocalDateTime afterTimestamp,
+      UUID after,
+      int limit
+  ) {
+    return blockingFetcherExecutor.fromCallable(() -> l2RasterProductRepository.findByUser(
+        userRepository.getReferenceById(userId),
+        cycle,
+        pass,
+        scene,
+        outputGranuleExtentFlag,
+        outputSamplingGridType,
+        rasterResolution,
+        utmZoneAdjust,
+        mgrsBandAdjust,
+        beforeTimestamp,
+        afterTimestamp,
+        after,
+        limit
+    ));
+  }
+
+  @Override
+  public Mono<Connection<L2RasterProduct>> findPageByUser(
+      UUID userId,
+      Integer cycle,
+      Integer pass,
+      Integer scene,
+      Boolean outputGranuleExtentFlag,
+      GridType outputSamplingGridType,
+      Integer rasterResolution,
+      Integer utmZoneAdjust,
+      Integer mgrsBandAdjust,
+      LocalDateTime beforeTimestamp,
+      LocalDateTime afterTimestamp,
+      Cursor after,
+      int limit
+  ) {
+    return blockingFetcherExecutor.fromCallable(() -> Connection.of(
+        l2RasterProductRepository.findPageByUser(
+            userRepository.getReferenceById(userId),
+            cycle,
+            pass,
+            scene,
+            outputGranuleExtentFlag,
+            outputSamplingGridType,
+            rasterResolution,
+            utmZoneAdjust,
+            mgrsBandAdjust,
+            beforeTimestamp,
+            afterTimestamp,
+            after,
+            limit + 1
+        ),
+        limit
+    ));
+  }
+}
@@ -3,6 +3,7 @@ package gov.nasa.podaac.swodlr.l2rasterproduct;
 import gov.nasa.podaac.swodlr.granule.Granule;
 import gov.nasa.podaac.swodlr.producthistory.ProductHistory;
 import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.status.State;
 import gov.nasa.podaac.swodlr.status.Status;
 import gov.nasa.podaac.swodlr.user.User;
 import gov.nasa.podaac.swodlr.validation.ValidRasterOptions;
@@ -12,6 +13,7 @@ import java.util.Set;
 import java.util.UUID;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.Id;
@@ -23,6 +25,7 @@ import javax.persistence.OrderBy;
 import javax.persistence.Table;
 
 @Entity
+@EntityListeners(L2RasterProductListener.class)
 @Table(name = "L2RasterProducts")
 @ValidRasterOptions
 public class L2RasterProduct {
@@ -57,6 +60,21 @@ public class L2RasterProduct {
   @Column
   private Integer mgrsBandAdjust;
 
+  @Column(unique = true)
+  private String productKey;
+
+  /*
+   * Denormalized from the product's latest Status so that its current state
+   * can be read without loading the status history. Written alongside each
+   * status by L2RasterProductBatchRepository.insertStatuses, never by JPA
+   */
+  @Column(insertable = false, updatable = false)
+  private UUID currentStatusId;
+
+  @Column(insertable = false, updatable = false)
+  @Enumerated(EnumType.STRING)
+  private State currentState;
+
   @OneToMany(mappedBy = "product")
   @OrderBy("timestamp DESC")
   private List<Status> statuses;
@@ -97,12 +115,51 @@ public class L2RasterProduct {
     this.rasterResolution = rasterResolution;
     this.utmZoneAdjust = utmZoneAdjust;
     this.mgrsBandAdjust = mgrsBandAdjust;
+    this.productKey = L2RasterProductParameters.of(this).productKey();
+  }
+
+  /*
+   * Rebuilds a product from a row read outside of JPA (see
+   * R2dbcL2RasterProductReader). Associations are left unloaded
+   */
+  L2RasterProduct(
+      UUID id,
+      LocalDateTime timestamp,
+      int cycle,
+      int pass,
+      int scene,
+      boolean outputGranuleExtentFlag,
+      GridType outputSamplingGridType,
+      int rasterResolution,
+      Integer utmZoneAdjust,
+      Integer mgrsBandAdjust,
+      String productKey,
+      UUID currentStatusId,
+      State currentState
+  ) {
+    this.id = id;
+    this.timestamp = timestamp;
+    this.cycle = cycle;
+    this.pass = pass;
+    this.scene = scene;
+    this.outputGranuleExtentFlag = outputGranuleExtentFlag;
+    this.outputSamplingGridType = outputSamplingGridType;
+    this.rasterResolution = rasterResolution;
+    this.utmZoneAdjust = utmZoneAdjust;
+    this.mgrsBandAdjust = mgrsBandAdjust;
+    this.productKey = productKey;
+    this.currentStatusId = currentStatusId;
+    this.currentState = currentState;
   }
 
   public UUID getId() {
     return id;
   }
 
+  public LocalDateTime getTimestamp() {
+    return timestamp;
+  }
+
   public int getCycle() {
     return cycle;
   }
@@ -135,6 +192,27 @@ public class L2RasterProduct {
     return mgrsBandAdjust;
   }
 
+  public String getProductKey() {
+    return productKey;
+  }
+
+  public UUID getCurrentStatusId() {
+    return currentStatusId;
+  }
+
+  public State getCurrentState() {
+    return currentState;
+  }
+
+  /*
+   * Keeps an already loaded product in step with a status written for it.
+   * The columns themselves are updated by insertStatuses
+   */
+  void setCurrentStatus(Status status) {
+    this.currentStatusId = status.getId();
+    this.currentState = status.getState();
+  }
+
   public Set<Granule> getGranules() {
     return granules;
   }
@@ -0,0 +1,205 @@
+package gov.nasa.podaac.swodlr.l2rasterproduct;
+
+import gov.nasa.podaac.swodlr.granule.Granule;
+import gov.nasa.podaac.swodlr.status.StateTransitionMetrics;
+import gov.nasa.podaac.swodlr.status.Status;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/*
+ * Writes rows for batch product generation and product updates with JDBC
+ * batching rather than through the entity manager, which would otherwise
+ * issue a SELECT and an INSERT per entity. Callers are expected to run
+ * inside a transaction and to have validated the products beforehand, as
+ * entity validation is bypassed here
+ */
+@Repository
+public class L2RasterProductBatchRepository {
+  private static final String INSERT_PRODUCTS =
+      """
+      INSERT INTO \"L2RasterProducts\" (
+        \"id\", \"timestamp\", \"cycle\", \"pass\", \"scene\",
+        \"outputGranuleExtentFlag\", \"outputSamplingGridType\",
+        \"rasterResolution\", \"utmZoneAdjust\", \"mgrsBandAdjust\", \"productKey\"
+      ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+      ON CONFLICT DO NOTHING
+      """;
+
+  private static final String INSERT_STATUSES =
+      """
+      INSERT INTO \"Status\" (\"id\", \"productId\", \"timestamp\", \"state\", \"reason\")
+      VALUES (?, ?, ?, ?, ?)
+      ON CONFLICT DO NOTHING
+      """;
+
+  /*
+   * Unless the product's current status is newer. The current status is
+   * never archived (see StatusArchive), so its timestamp can always be
+   * compared against
+   */
+  public static final String UPDATE_CURRENT_STATUS =
+      """
+      UPDATE \"L2RasterProducts\" SET \"currentStatusId\" = ?, \"currentState\" = ?
+      WHERE \"id\" = ? AND NOT EXISTS (
+        SELECT 1 FROM \"Status\" AS s
+        WHERE s.\"id\" = \"L2RasterProducts\".\"currentStatusId\" AND s.\"timestamp\" > ?
+      )
+      """;
+
+  private static final String INSERT_GRANULES =
+      """
+      INSERT INTO \"Granules\" (\"id\", \"productId\", \"timestamp\", \"uri\")
+      VALUES (?, ?, ?, ?)
+      ON CONFLICT DO NOTHING
+      """;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ProductLookupCache productLookupCache;
+
+  @Autowired
+  private StateTransitionMetrics stateTransitionMetrics;
+
+  /*
+   * Inserts the products, skipping any whose product key already exists.
+   * Conflicts are resolved by the unique index rather than a prior lookup,
+   * so this is safe against concurrent inserts from other API instances.
+   * Returns the products which were actually inserted
+   */
+  public List<L2RasterProduct> insertProducts(List<L2RasterProduct> products) {
+    List<Object[]> rows = new ArrayList<>(products.size());
+    for (L2RasterProduct product : products) {
+      rows.add(new Object[] {
+          product.getId(),
+          product.getTimestamp(),
+          product.getCycle(),
+          product.getPass(),
+          product.getScene(),
+          product.getOutputGranuleExtentFlag(),
+          product.getOutputSamplingGridType().toString(),
+          product.getRasterResolution(),
+          product.getUtmZoneAdjust(),
+          product.getMgrsBandAdjust(),
+          product.getProductKey()
+      });
+    }
+
+    int[] inserted = jdbcTemplate.batchUpdate(INSERT_PRODUCTS, rows, new int[] {
+        Types.OTHER,
+        Types.TIMESTAMP,
+        Types.INTEGER,
+        Types.INTEGER,
+        Types.INTEGER,
+        Types.BOOLEAN,
+        Types.VARCHAR,
+        Types.INTEGER,
+        Types.INTEGER,
+        Types.INTEGER,
+        Types.VARCHAR
+    });
+
+    List<L2RasterProduct> results = new ArrayList<>(products.size());
+    for (int i = 0; i < inserted.length; i++) {
+      if (inserted[i] != 0) {
+        results.add(products.get(i));
+      }
+    }
+
+    return results;
+  }
+
+  /*
+   * Inserts the statuses and makes each the current status of its product,
+   * unless the product's current status is newer. Statuses whose id already
+   * exists are skipped, so redelivered statuses are only recorded once. Both
+   * are written in the caller's transaction, so a product's current state
+   * never disagrees with its latest status, even when statuses are inserted
+   * out of order. Loaded
+   * products are updated in place and dropped from the ProductLookupCache,
+   * and the transitions are recorded by StateTransitionMetrics
+   */
+  public void insertStatuses(Collection<Status> statuses) {
+    List<Status> ordered = new ArrayList<>(statuses);
+    List<Object[]> rows = new ArrayList<>(ordered.size());
+    for (Status status : ordered) {
+      rows.add(new Object[] {
+          status.getId(),
+          status.getProduct().getId(),
+          status.getTimestamp(),
+          status.getState().toString(),
+          status.getReason()
+      });
+    }
+
+    int[] inserted = jdbcTemplate.batchUpdate(INSERT_STATUSES, rows, new int[] {
+        Types.OTHER,
+        Types.OTHER,
+        Types.TIMESTAMP,
+        Types.VARCHAR,
+        Types.VARCHAR
+    });
+
+    List<Status> written = new ArrayList<>(ordered.size());
+    for (int i = 0; i < inserted.length; i++) {
+      if (inserted[i] != 0) {
+        written.add(ordered.get(i));
+      }
+    }
+
+    stateTransitionMetrics.statusesWritten(written);
+
+    List<Object[]> updateRows = new ArrayList<>(written.size());
+    for (Status status : written) {
+      updateRows.add(new Object[] {
+          status.getId(),
+          status.getState().toString(),
+          status.getProduct().getId(),
+          status.getTimestamp()
+      });
+    }
+
+    int[] updated = jdbcTemplate.batchUpdate(UPDATE_CURRENT_STATUS, updateRows, new int[] {
+        Types.OTHER,
+        Types.VARCHAR,
+        Types.OTHER,
+        Types.TIMESTAMP
+    });
+
+    for (int i = 0; i < updated.length; i++) {
+      Status status = written.get(i);
+      if (updated[i] != 0) {
+        status.getProduct().setCurrentStatus(status);
+      }
+      productLookupCache.invalidate(status.getProduct());
+    }
+  }
+
+  /*
+   * Inserts the granules, skipping any whose URI the product already has
+   */
+  public void insertGranules(Collection<Granule> granules) {
+    List<Object[]> rows = new ArrayList<>(granules.size());
+    for (Granule granule : granules) {
+      rows.add(new Object[] {
+          granule.getId(),
+          granule.getProduct().getId(),
+          granule.getTimestamp(),
+          granule.getS3Uri()
+      });
+    }
+
+    jdbcTemplate.batchUpdate(INSERT_GRANULES, rows, new int[] {
+        Types.OTHER,
+        Types.OTHER,
+        Types.TIMESTAMP,
+        Types.VARCHAR
+    });
+  }
+}
@@ -0,0 +1,141 @@
+package gov.nasa.podaac.swodlr.l2rasterproduct;
+
+import com.zaxxer.hikari.HikariDataSource;
+import gov.nasa.podaac.swodlr.sql.ShapedStatement;
+import gov.nasa.podaac.swodlr.status.State;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/*
+ * Writes a status for every product matching an L2RasterProductFilter with
+ * set-based statements, so that bulk admin operations cost a few statements
+ * however many products they touch. Callers are expected to run inside a
+ * transaction
+ *
+ * The matching products are first copied, along with the ids of their new
+ * statuses, into the "BulkStatuses" temporary table, which the following
+ * statements read from. They don't re-evaluate the filter: concurrently
+ * committed products may match it by then, and a product matched on its
+ * current state may have been concurrently updated to another. Nor do they
+ * look statuses up by timestamp, which statuses written concurrently for
+ * the same products may share
+ */
+@Repository
+public class L2RasterProductBulkRepository {
+  /*
+   * Dropped when the transaction commits. H2, which tests run against,
+   * commits the open transaction on creating a table unless it's marked
+   * TRANSACTIONAL, which Postgres doesn't accept
+   */
+  private static final String CREATE_BULK_STATUSES =
+      """
+      CREATE LOCAL TEMPORARY TABLE IF NOT EXISTS \"BulkStatuses\" (
+        \"id\" UUID NOT NULL,
+        \"productId\" UUID PRIMARY KEY
+      ) ON COMMIT DROP
+      """;
+
+  private static final String CLEAR_BULK_STATUSES = "DELETE FROM \"BulkStatuses\"";
+
+  private static final ShapedStatement COLLECT_PRODUCTS = L2RasterProductFilter.predicates(
+      ShapedStatement.builder(
+          """
+          INSERT INTO \"BulkStatuses\" (\"id\", \"productId\")
+          SELECT gen_random_uuid(), \"id\" FROM \"L2RasterProducts\"
+          """
+      )
+  ).build();
+
+  private static final String INSERT_STATUSES =
+      """
+      INSERT INTO \"Status\" (\"id\", \"productId\", \"timestamp\", \"state\", \"reason\")
+      SELECT \"id\", \"productId\", CAST(:timestamp AS TIMESTAMP), :state, CAST(:reason AS TEXT)
+      FROM \"BulkStatuses\"
+      """;
+
+  private static final String QUEUE_PRODUCTS =
+      """
+      INSERT INTO \"ProductCreateOutbox\" (\"productId\", \"bulk\")
+      SELECT \"productId\", TRUE FROM \"BulkStatuses\"
+      """;
+
+  /*
+   * Unless the product's current status is newer, as with
+   * L2RasterProductBatchRepository.UPDATE_CURRENT_STATUS
+   */
+  private static final String UPDATE_CURRENT_STATUSES =
+      """
+      UPDATE \"L2RasterProducts\" SET
+        \"currentStatusId\" = (
+          SELECT \"id\" FROM \"BulkStatuses\"
+          WHERE \"BulkStatuses\".\"productId\" = \"L2RasterProducts\".\"id\"
+        ),
+        \"currentState\" = :state
+      WHERE \"id\" IN (SELECT \"productId\" FROM \"BulkStatuses\") AND NOT EXISTS (
+        SELECT 1 FROM \"Status\" AS s
+        WHERE s.\"id\" = \"L2RasterProducts\".\"currentStatusId\"
+          AND s.\"timestamp\" > CAST(:timestamp AS TIMESTAMP)
+      )
+      """;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  /*
+   * Inserts a status of the given state for each matching product and
+   * makes it the product's current status, unless the product's current
+   * status is newer. Products are also added to the product create outbox
+   * as bulk entries, which the relay paces, when queue is set. Returns the
+   * number of products matched
+   */
+  public int insertStatuses(
+      L2RasterProductFilter filter,
+      State state,
+      String reason,
+      boolean queue
+  ) {
+    jdbcTemplate.execute(CREATE_BULK_STATUSES + (postgres() ? "" : " TRANSACTIONAL"));
+    jdbcTemplate.update(CLEAR_BULK_STATUSES);
+
+    ShapedStatement.Bound collect = COLLECT_PRODUCTS.bind(
+        filter.applyTo(new ShapedStatement.Parameters()));
+    int matched = namedParameterJdbcTemplate.update(
+        collect.sql(), collect.applyTo(new MapSqlParameterSource()));
+    if (matched == 0) {
+      return 0;
+    }
+
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+        .addValue("timestamp", LocalDateTime.now().truncatedTo(ChronoUnit.MICROS),
+            Types.TIMESTAMP)
+        .addValue("state", state.toString(), Types.VARCHAR)
+        .addValue("reason", reason, Types.VARCHAR);
+
+    namedParameterJdbcTemplate.update(INSERT_STATUSES, parameters);
+    if (queue) {
+      namedParameterJdbcTemplate.update(QUEUE_PRODUCTS, parameters);
+    }
+    namedParameterJdbcTemplate.update(UPDATE_CURRENT_STATUSES, parameters);
+
+    return matched;
+  }
+
+  private boolean postgres() {
+    return dataSource instanceof HikariDataSource hikariDataSource
+        && hikariDataSource.getJdbcUrl() != null
+        && hikariDataSource.getJdbcUrl().startsWith("jdbc:postgresql:");
+  }
+}
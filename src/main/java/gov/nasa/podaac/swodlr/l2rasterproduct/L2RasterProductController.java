@@ -1,15 +1,16 @@
 package gov.nasa.podaac.swodlr.l2rasterproduct;
 
 import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import gov.nasa.podaac.swodlr.fetcher.BlockingFetcherExecutor;
+import gov.nasa.podaac.swodlr.pagination.Connection;
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import gov.nasa.podaac.swodlr.producthistory.ProductHistoryBuffer;
 import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
-import gov.nasa.podaac.swodlr.status.State;
 import gov.nasa.podaac.swodlr.status.Status;
-import gov.nasa.podaac.swodlr.status.StatusRepository;
 import gov.nasa.podaac.swodlr.user.User;
 import gov.nasa.podaac.swodlr.user.UserReference;
 import java.time.DateTimeException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.UUID;
 import javax.validation.constraints.NotNull;
@@ -23,21 +24,26 @@ import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
-import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Mono;
 
 @Controller
 public class L2RasterProductController {
   private Logger logger = LoggerFactory.getLogger(getClass());
 
+  @Autowired
+  private BlockingFetcherExecutor blockingFetcherExecutor;
+
   @Autowired
   private L2RasterProductService l2RasterProductService;
 
   @Autowired
-  private L2RasterProductRepository l2RasterProductRepository;
+  private ProductRequestCoalescer productRequestCoalescer;
+
+  @Autowired
+  private L2RasterProductReader l2RasterProductReader;
 
   @Autowired
-  private StatusRepository statusRepository;
+  private ProductHistoryBuffer productHistoryBuffer;
 
   @MutationMapping
   public Mono<L2RasterProduct> generateL2RasterProduct(
@@ -51,22 +57,9 @@ public class L2RasterProductController {
       @Argument Integer utmZoneAdjust,
       @Argument Integer mgrsBandAdjust
   ) {
-    return Mono.defer(() -> {
+    return blockingFetcherExecutor.defer(() -> {
       User user = userRef.fetch();
-
-      return l2RasterProductService.getL2RasterProduct(
-        user,
-        cycle,
-        pass,
-        scene,
-        outputGranuleExtentFlag,
-        outputSamplingGridType,
-        rasterResolution,
-        utmZoneAdjust,
-        mgrsBandAdjust
-      )
-        .switchIfEmpty(Mono.defer(() -> l2RasterProductService.createL2RasterProduct(
-          user,
+      L2RasterProductParameters parameters = new L2RasterProductParameters(
           cycle,
           pass,
           scene,
@@ -75,35 +68,75 @@ public class L2RasterProductController {
           rasterResolution,
           utmZoneAdjust,
           mgrsBandAdjust
-        )));
+      );
+      l2RasterProductService.validate(parameters);
+
+      L2RasterProduct cached = l2RasterProductService.recordCachedRequest(user, parameters);
+      if (cached != null) {
+        return Mono.just(cached);
+      }
+
+      return productRequestCoalescer
+        .coalesce(parameters, () -> l2RasterProductService.getL2RasterProduct(parameters)
+          .switchIfEmpty(Mono.defer(
+            () -> l2RasterProductService.createL2RasterProduct(parameters)
+          ))
+        )
+        .flatMap((product) -> blockingFetcherExecutor.fromCallable(
+          () -> l2RasterProductService.recordRequest(user, product)
+        ));
+    });
+  }
+
+  @MutationMapping
+  public Mono<List<L2RasterProduct>> generateL2RasterProducts(
+      @ContextValue UserReference userRef,
+      @Argument List<L2RasterProductParameters> requests
+  ) {
+    return blockingFetcherExecutor.defer(() -> {
+      User user = userRef.fetch();
+      return l2RasterProductService.generateL2RasterProducts(user, requests);
     });
   }
 
   @PreAuthorize("hasRole(\"ROLE_Administrator\")")
   @MutationMapping
-  @Transactional
-  public L2RasterProduct invalidateProduct(@Argument UUID id) {
-    var result = l2RasterProductRepository.findById(id);
-    if (result.isEmpty()) {
-      logger.debug("No products found with id: {}", id.toString());
-      return null;
-    }
+  public Mono<L2RasterProduct> invalidateProduct(@Argument UUID id) {
+    return blockingFetcherExecutor.fromCallable(() -> {
+      L2RasterProduct product = l2RasterProductService.invalidateProduct(id);
+      if (product == null) {
+        logger.debug("No products found with id: {}", id.toString());
+      }
+
+      return product;
+    });
+  }
 
-    L2RasterProduct product = result.get();
-    Status invalidatedStatus = new Status(product, State.UNAVAILABLE);
-    statusRepository.save(invalidatedStatus);
+  @PreAuthorize("hasRole(\"ROLE_Administrator\")")
+  @MutationMapping
+  public Mono<Integer> invalidateProducts(
+      @Argument L2RasterProductFilter filter,
+      @Argument String reason
+  ) {
+    return blockingFetcherExecutor.fromCallable(
+        () -> l2RasterProductService.invalidateProducts(filter, reason)
+    );
+  }
 
-    return product;
+  @PreAuthorize("hasRole(\"ROLE_Administrator\")")
+  @MutationMapping
+  public Mono<Integer> regenerateProducts(
+      @Argument L2RasterProductFilter filter,
+      @Argument String reason
+  ) {
+    return blockingFetcherExecutor.fromCallable(
+        () -> l2RasterProductService.regenerateProducts(filter, reason)
+    );
   }
 
   @QueryMapping
-  public L2RasterProduct l2RasterProduct(@Argument UUID id) {
-    var result = l2RasterProductRepository.findById(id);
-    if (result.isPresent()) {
-      return result.get();
-    }
-
-    return null;
+  public Mono<L2RasterProduct> l2RasterProduct(@Argument UUID id) {
+    return l2RasterProductReader.findById(id);
   }
 
   @SchemaMapping(typeName = "Status", field = "product")
@@ -112,7 +145,7 @@ public class L2RasterProductController {
   }
 
   @SchemaMapping(typeName = "User", field = "products")
-  public List<L2RasterProduct> getProductsForUser(
+  public Mono<List<L2RasterProduct>> getProductsForUser(
       @ContextValue UserReference userRef,
       @Argument Integer cycle,
       @Argument Integer pass,
@@ -127,27 +160,11 @@ public class L2RasterProductController {
       @Argument UUID after,
       @Argument int limit
   ) {
-    LocalDateTime beforeDate = null;
-    LocalDateTime afterDate = null;
-
-    if (beforeTimestamp != null) {
-      try {
-        beforeDate = LocalDateTime.parse(beforeTimestamp);
-      } catch (DateTimeParseException ex) {
-        throw new SwodlrException("Invalid \'beforeTimestamp\' - should be ISO8601");
-      }
-    }
+    LocalDateTime beforeDate = parseTimestamp(beforeTimestamp, "beforeTimestamp");
+    LocalDateTime afterDate = parseTimestamp(afterTimestamp, "afterTimestamp");
 
-    if (afterTimestamp != null) {
-      try {
-        afterDate = LocalDateTime.parse(afterTimestamp);
-      } catch (DateTimeException ex) {
-        throw new SwodlrException("Invalid \'afterTimestamp\' - should be ISO8601");
-      }
-    }
-
-    return l2RasterProductRepository.findByUser(
-        userRef.fetch(),
+    return flushHistory(userRef).then(l2RasterProductReader.findByUser(
+        userRef.getId(),
         cycle,
         pass,
         scene,
@@ -160,6 +177,62 @@ public class L2RasterProductController {
         afterDate,
         after,
         limit
-    );
+    ));
+  }
+
+  @SchemaMapping(typeName = "User", field = "productsConnection")
+  public Mono<Connection<L2RasterProduct>> getProductsConnectionForUser(
+      @ContextValue UserReference userRef,
+      @Argument Integer cycle,
+      @Argument Integer pass,
+      @Argument Integer scene,
+      @Argument Boolean outputGranuleExtentFlag,
+      @Argument GridType outputSamplingGridType,
+      @Argument Integer rasterResolution,
+      @Argument Integer utmZoneAdjust,
+      @Argument Integer mgrsBandAdjust,
+      @Argument String beforeTimestamp,
+      @Argument String afterTimestamp,
+      @Argument String after,
+      @Argument int limit
+  ) {
+    LocalDateTime beforeDate = parseTimestamp(beforeTimestamp, "beforeTimestamp");
+    LocalDateTime afterDate = parseTimestamp(afterTimestamp, "afterTimestamp");
+
+    return flushHistory(userRef).then(l2RasterProductReader.findPageByUser(
+        userRef.getId(),
+        cycle,
+        pass,
+        scene,
+        outputGranuleExtentFlag,
+        outputSamplingGridType,
+        rasterResolution,
+        utmZoneAdjust,
+        mgrsBandAdjust,
+        beforeDate,
+        afterDate,
+        Cursor.decode(after),
+        Connection.validateLimit(limit)
+    ));
+  }
+
+  /* Writes the user's buffered requests so that their history is current */
+  private Mono<Void> flushHistory(UserReference userRef) {
+    return blockingFetcherExecutor.fromCallable(() -> {
+      productHistoryBuffer.flush(userRef.getId());
+      return null;
+    });
+  }
+
+  private static LocalDateTime parseTimestamp(String timestamp, String argument) {
+    if (timestamp == null) {
+      return null;
+    }
+
+    try {
+      return LocalDateTime.parse(timestamp);
+    } catch (DateTimeException ex) {
+      throw new SwodlrException("Invalid \'%s\' - should be ISO8601".formatted(argument));
+    }
   }
 }
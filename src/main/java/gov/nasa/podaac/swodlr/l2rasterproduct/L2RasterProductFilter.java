@@ -0,0 +1,80 @@
+package gov.nasa.podaac.swodlr.l2rasterproduct;
+
+import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.sql.ShapedStatement;
+import gov.nasa.podaac.swodlr.status.State;
+import java.util.List;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.StringType;
+
+/*
+ * Selects the products a bulk admin operation applies to. Products must
+ * match every filter which is set; cycle bounds are inclusive
+ */
+public record L2RasterProductFilter(
+    Integer cycleMin,
+    Integer cycleMax,
+    List<Integer> passes,
+    List<Integer> scenes,
+    GridType outputSamplingGridType,
+    Integer rasterResolution,
+    List<State> currentStates
+) {
+  /*
+   * Rejects filters which would select every product, as well as empty
+   * lists, which are more likely a mistake than a request to select nothing
+   */
+  public void validate() {
+    if (cycleMin == null && cycleMax == null && passes == null && scenes == null
+        && outputSamplingGridType == null && rasterResolution == null && currentStates == null) {
+      throw new SwodlrException("At least one filter must be given");
+    }
+
+    validateLists();
+  }
+
+  /*
+   * Rejects empty lists alone, for selections where no filter at all is
+   * a valid request
+   */
+  public void validateLists() {
+    requireNotEmpty(passes, "passes");
+    requireNotEmpty(scenes, "scenes");
+    requireNotEmpty(currentStates, "currentStates");
+  }
+
+  /*
+   * Adds a predicate for each filter to a statement selecting from
+   * "L2RasterProducts", rendered when the filter is set
+   */
+  public static ShapedStatement.Builder predicates(ShapedStatement.Builder builder) {
+    return builder
+        .optional("\"cycle\" >= :cycleMin")
+        .optional("\"cycle\" <= :cycleMax")
+        .optional("\"pass\" IN (:passes)")
+        .optional("\"scene\" IN (:scenes)")
+        .optional("\"outputSamplingGridType\" = :outputSamplingGridType")
+        .optional("\"rasterResolution\" = :rasterResolution")
+        .optional("\"currentState\" IN (:currentStates)");
+  }
+
+  public ShapedStatement.Parameters applyTo(ShapedStatement.Parameters parameters) {
+    return parameters
+        .set("cycleMin", cycleMin, IntegerType.INSTANCE)
+        .set("cycleMax", cycleMax, IntegerType.INSTANCE)
+        .set("passes", passes, IntegerType.INSTANCE)
+        .set("scenes", scenes, IntegerType.INSTANCE)
+        .set("outputSamplingGridType", outputSamplingGridType != null
+            ? outputSamplingGridType.toString() : null, StringType.INSTANCE)
+        .set("rasterResolution", rasterResolution, IntegerType.INSTANCE)
+        .set("currentStates", currentStates != null
+            ? currentStates.stream().map(State::toString).toList() : null, StringType.INSTANCE);
+  }
+
+  private static void requireNotEmpty(List<?> values, String name) {
+    if (values != null && values.isEmpty()) {
+      throw new SwodlrException("`%s` must not be empty".formatted(name));
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package gov.nasa.podaac.swodlr.l2rasterproduct;
+
+import javax.persistence.PostRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/*
+ * Drops products deleted through JPA from the ProductLookupCache, as cached
+ * requests no longer touch the database and so can't notice the deletion
+ * themselves. Products deleted by other means are dropped once their entry
+ * expires
+ */
+public class L2RasterProductListener {
+  @Autowired
+  private ProductLookupCache productLookupCache;
+
+  @PostRemove
+  public void postRemove(L2RasterProduct product) {
+    productLookupCache.invalidate(product);
+  }
+}
@@ -0,0 +1,80 @@
+package gov.nasa.podaac.swodlr.l2rasterproduct;
+
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+
+/*
+ * The set of generation parameters which identify an L2RasterProduct.
+ * Two requests with equal parameters always resolve to the same product
+ */
+public record L2RasterProductParameters(
+    int cycle,
+    int pass,
+    int scene,
+    boolean outputGranuleExtentFlag,
+    GridType outputSamplingGridType,
+    int rasterResolution,
+    Integer utmZoneAdjust,
+    Integer mgrsBandAdjust
+) {
+  public static L2RasterProductParameters of(L2RasterProduct product) {
+    return new L2RasterProductParameters(
+        product.getCycle(),
+        product.getPass(),
+        product.getScene(),
+        product.getOutputGranuleExtentFlag(),
+        product.getOutputSamplingGridType(),
+        product.getRasterResolution(),
+        product.getUtmZoneAdjust(),
+        product.getMgrsBandAdjust()
+    );
+  }
+
+  /*
+   * Returns a copy of these parameters with options that have no effect on
+   * the generated product removed. The UTM zone and MGRS band adjusts do not
+   * apply to GEO rasters, so they are dropped for GEO products
+   */
+  public L2RasterProductParameters normalize() {
+    if (outputSamplingGridType != GridType.GEO
+        || (utmZoneAdjust == null && mgrsBandAdjust == null)) {
+      return this;
+    }
+
+    return new L2RasterProductParameters(
+        cycle,
+        pass,
+        scene,
+        outputGranuleExtentFlag,
+        outputSamplingGridType,
+        rasterResolution,
+        null,
+        null
+    );
+  }
+
+  /*
+   * Returns the canonical key of the product these parameters identify. The
+   * key is stored in the unique "productKey" column of L2RasterProducts and
+   * is formatted as:
+   *
+   *    cycle:pass:scene:outputGranuleExtentFlag:gridType:resolution:utmZoneAdjust:mgrsBandAdjust
+   *
+   * with parameters normalized beforehand and absent adjusts left empty, eg:
+   * "1:2:3:true:UTM:1000:0:-1" or "1:2:3:false:GEO:8::". The backfill in
+   * database/migrations builds the same format in SQL; keep the two in sync
+   */
+  public String productKey() {
+    L2RasterProductParameters normalized = normalize();
+
+    return "%d:%d:%d:%b:%s:%d:%s:%s".formatted(
+        normalized.cycle,
+        normalized.pass,
+        normalized.scene,
+        normalized.outputGranuleExtentFlag,
+        normalized.outputSamplingGridType,
+        normalized.rasterResolution,
+        normalized.utmZoneAdjust != null ? normalized.utmZoneAdjust : "",
+        normalized.mgrsBandAdjust != null ? normalized.mgrsBandAdjust : ""
+    );
+  }
+}
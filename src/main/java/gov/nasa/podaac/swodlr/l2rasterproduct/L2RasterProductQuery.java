@@ -1,5 +1,7 @@
 package gov.nasa.podaac.swodlr.l2rasterproduct;
 
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import gov.nasa.podaac.swodlr.pagination.Edge;
 import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
 import gov.nasa.podaac.swodlr.user.User;
 import java.time.LocalDateTime;
@@ -22,4 +24,20 @@ public interface L2RasterProductQuery {
       UUID after,
       int limit
   );
+
+  List<Edge<L2RasterProduct>> findPageByUser(
+      User user,
+      Integer cycle,
+      Integer pass,
+      Integer scene,
+      Boolean outputGranuleExtentFlag,
+      GridType outputSamplingGridType,
+      Integer rasterResolution,
+      Integer utmZoneAdjust,
+      Integer mgrsBandAdjust,
+      LocalDateTime beforeTimestamp,
+      LocalDateTime afterTimestamp,
+      Cursor after,
+      int limit
+  );
 }
@@ -1,13 +1,18 @@
 package gov.nasa.podaac.swodlr.l2rasterproduct;
 
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import gov.nasa.podaac.swodlr.pagination.Edge;
 import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.sql.ShapedStatement;
 import gov.nasa.podaac.swodlr.user.User;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 import org.hibernate.type.BooleanType;
 import org.hibernate.type.IntegerType;
@@ -16,6 +21,49 @@ import org.hibernate.type.StringType;
 import org.hibernate.type.UUIDCharType;
 
 public class L2RasterProductQueryImpl implements L2RasterProductQuery {
+  /*
+   * Products requested by a user, newest request first. Pages either by
+   * the id of the last product seen (`after`) or by a cursor holding the
+   * (timestamp, rasterProductId) of its history row. The history timestamp
+   * is returned as "requestedAt" so that cursors can be built from results
+   */
+  @SuppressWarnings("LineLength")
+  public static final ShapedStatement FIND_BY_USER = ShapedStatement
+      .builder(
+          """
+          SELECT \"L2RasterProducts\".*, \"ProductHistory\".timestamp AS \"requestedAt\"
+          FROM \"L2RasterProducts\"
+          JOIN \"ProductHistory\" ON \"ProductHistory\".\"rasterProductId\" = \"L2RasterProducts\".id
+          """
+      )
+      .where("\"ProductHistory\".\"requestedById\" = CAST(:userId as UUID)")
+      .optional("\"cycle\" = :cycle")
+      .optional("\"pass\" = :pass")
+      .optional("\"scene\" = :scene")
+      .optional("\"outputGranuleExtentFlag\" = :outputGranuleExtentFlag")
+      .optional("\"outputSamplingGridType\" = :outputSamplingGridType")
+      .optional("\"rasterResolution\" = :rasterResolution")
+      .optional("\"utmZoneAdjust\" = :utmZoneAdjust")
+      .optional("\"mgrsBandAdjust\" = :mgrsBandAdjust")
+      .optional("\"L2RasterProducts\".timestamp <= :beforeTimestamp")
+      .optional("\"L2RasterProducts\".timestamp >= :afterTimestamp")
+      .optional(
+          """
+          (\"ProductHistory\".timestamp, \"ProductHistory\".\"rasterProductId\") < (SELECT timestamp, \"rasterProductId\" FROM \"ProductHistory\" WHERE \"requestedById\" = CAST(:userId as UUID) AND \"rasterProductId\" = CAST(:after as UUID))
+          """
+      )
+      .optional(
+          """
+          (\"ProductHistory\".timestamp, \"ProductHistory\".\"rasterProductId\") < (CAST(:cursorTimestamp as TIMESTAMP), CAST(:cursorId as UUID))
+          """
+      )
+      .suffix(
+          """
+          ORDER BY \"ProductHistory\".timestamp DESC, \"ProductHistory\".\"rasterProductId\" DESC LIMIT :limit
+          """
+      )
+      .build();
+
   @PersistenceContext
   private EntityManager entityManager;
 
@@ -40,6 +88,10 @@ public class L2RasterProductQueryImpl implements L2RasterProductQuery {
    * queries, pending the PostgreSQL/Hibernate teams' cooperation with
    * one another
    * 
+   * Statements are built with ShapedStatement, which renders only the
+   * filters supplied, so nulls are now only bound for parameters which
+   * are always present
+   * 
    * Relevant discussions:
    *    - https://stackoverflow.com/a/64223435
    *    - https://stackoverflow.com/a/62680643
@@ -61,48 +113,111 @@ public class L2RasterProductQueryImpl implements L2RasterProductQuery {
       UUID after,
       int limit
   ) {
-    @SuppressWarnings("LineLength")
-    String statement =
-        """
-        SELECT \"L2RasterProducts\".* FROM \"L2RasterProducts\"
-        JOIN \"ProductHistory\" ON \"ProductHistory\".\"rasterProductId\" = \"L2RasterProducts\".id
-        WHERE
-          (:cycle is NULL OR \"cycle\" = :cycle) AND
-          (:pass is NULL OR \"pass\" = :pass) AND
-          (:scene is NULL OR \"scene\" = :scene) AND
-          (:outputGranuleExtentFlag is NULL OR \"outputGranuleExtentFlag\" = :outputGranuleExtentFlag) AND
-          (:outputSamplingGridType is NULL OR \"outputSamplingGridType\" = :outputSamplingGridType) AND
-          (:rasterResolution is NULL OR \"rasterResolution\" = :rasterResolution) AND
-          (:utmZoneAdjust is NULL OR \"utmZoneAdjust\" = :utmZoneAdjust) AND
-          (:mgrsBandAdjust is NULL OR \"mgrsBandAdjust\" = :mgrsBandAdjust) AND
-          (CAST(:beforeTimestamp as TIMESTAMP) is NULL OR \"L2RasterProducts\".timestamp <= :beforeTimestamp) AND
-          (CAST(:afterTimestamp as TIMESTAMP) is NULL OR \"L2RasterProducts\".timestamp >= :afterTimestamp) AND
-          (\"ProductHistory\".\"requestedById\" = CAST(:userId as UUID)) AND
-          (
-            (:after is NULL)
-            OR
-            (\"ProductHistory\".timestamp, \"ProductHistory\".\"rasterProductId\") < (SELECT timestamp, \"rasterProductId\" FROM \"ProductHistory\" WHERE \"requestedById\" = CAST(:userId as UUID) AND \"rasterProductId\" = CAST(:after as UUID))
-          )
-          ORDER BY \"ProductHistory\".timestamp DESC, \"ProductHistory\".\"rasterProductId\" DESC LIMIT :limit
-        """;
+    ShapedStatement.Bound statement = FIND_BY_USER.bind(findByUserParameters(
+        user.getId(),
+        cycle,
+        pass,
+        scene,
+        outputGranuleExtentFlag,
+        outputSamplingGridType,
+        rasterResolution,
+        utmZoneAdjust,
+        mgrsBandAdjust,
+        beforeTimestamp,
+        afterTimestamp,
+        after,
+        null,
+        limit
+    ));
 
     Session session = entityManager.unwrap(Session.class);
-    Query<L2RasterProduct> query = session.createNativeQuery(statement, L2RasterProduct.class);
-    query.setParameter("userId", user.getId(), UUIDCharType.INSTANCE);
-    query.setParameter("cycle", cycle, IntegerType.INSTANCE);
-    query.setParameter("pass", pass, IntegerType.INSTANCE);
-    query.setParameter("scene", scene, IntegerType.INSTANCE);
-    query.setParameter("outputGranuleExtentFlag", outputGranuleExtentFlag, BooleanType.INSTANCE);
-    query.setParameter("outputSamplingGridType", outputSamplingGridType != null
-        ? outputSamplingGridType.toString() : null, StringType.INSTANCE);
-    query.setParameter("rasterResolution", rasterResolution, IntegerType.INSTANCE);
-    query.setParameter("utmZoneAdjust", utmZoneAdjust, IntegerType.INSTANCE);
-    query.setParameter("mgrsBandAdjust", mgrsBandAdjust, IntegerType.INSTANCE);
-    query.setParameter("beforeTimestamp", beforeTimestamp, LocalDateTimeType.INSTANCE);
-    query.setParameter("afterTimestamp", afterTimestamp, LocalDateTimeType.INSTANCE);
-    query.setParameter("after", after, UUIDCharType.INSTANCE);
-    query.setParameter("limit", limit, IntegerType.INSTANCE);
+    Query<L2RasterProduct> query = session.createNativeQuery(
+        statement.sql(), L2RasterProduct.class);
 
-    return query.getResultList();
+    return statement.applyTo(query).getResultList();
+  }
+
+  @Override
+  public List<Edge<L2RasterProduct>> findPageByUser(
+      User user,
+      Integer cycle,
+      Integer pass,
+      Integer scene,
+      Boolean outputGranuleExtentFlag,
+      GridType outputSamplingGridType,
+      Integer rasterResolution,
+      Integer utmZoneAdjust,
+      Integer mgrsBandAdjust,
+      LocalDateTime beforeTimestamp,
+      LocalDateTime afterTimestamp,
+      Cursor after,
+      int limit
+  ) {
+    ShapedStatement.Bound statement = FIND_BY_USER.bind(findByUserParameters(
+        user.getId(),
+        cycle,
+        pass,
+        scene,
+        outputGranuleExtentFlag,
+        outputSamplingGridType,
+        rasterResolution,
+        utmZoneAdjust,
+        mgrsBandAdjust,
+        beforeTimestamp,
+        afterTimestamp,
+        null,
+        after,
+        limit
+    ));
+
+    Session session = entityManager.unwrap(Session.class);
+    NativeQuery<?> query = session.createNativeQuery(statement.sql())
+        .addEntity(L2RasterProduct.class)
+        .addScalar("requestedAt", LocalDateTimeType.INSTANCE);
+
+    List<Edge<L2RasterProduct>> edges = new ArrayList<>();
+    for (Object result : statement.applyTo(query).getResultList()) {
+      Object[] row = (Object[]) result;
+      L2RasterProduct product = (L2RasterProduct) row[0];
+      edges.add(new Edge<>(new Cursor((LocalDateTime) row[1], product.getId()), product));
+    }
+
+    return edges;
+  }
+
+  public static ShapedStatement.Parameters findByUserParameters(
+      UUID userId,
+      Integer cycle,
+      Integer pass,
+      Integer scene,
+      Boolean outputGranuleExtentFlag,
+      GridType outputSamplingGridType,
+      Integer rasterResolution,
+      Integer utmZoneAdjust,
+      Integer mgrsBandAdjust,
+      LocalDateTime beforeTimestamp,
+      LocalDateTime afterTimestamp,
+      UUID after,
+      Cursor cursor,
+      int limit
+  ) {
+    return new ShapedStatement.Parameters()
+        .set("userId", userId, UUIDCharType.INSTANCE)
+        .set("cycle", cycle, IntegerType.INSTANCE)
+        .set("pass", pass, IntegerType.INSTANCE)
+        .set("scene", scene, IntegerType.INSTANCE)
+        .set("outputGranuleExtentFlag", outputGranuleExtentFlag, BooleanType.INSTANCE)
+        .set("outputSamplingGridType", outputSamplingGridType != null
+            ? outputSamplingGridType.toString() : null, StringType.INSTANCE)
+        .set("rasterResolution", rasterResolution, IntegerType.INSTANCE)
+        .set("utmZoneAdjust", utmZoneAdjust, IntegerType.INSTANCE)
+        .set("mgrsBandAdjust", mgrsBandAdjust, IntegerType.INSTANCE)
+        .set("beforeTimestamp", beforeTimestamp, LocalDateTimeType.INSTANCE)
+        .set("afterTimestamp", afterTimestamp, LocalDateTimeType.INSTANCE)
+        .set("after", after, UUIDCharType.INSTANCE)
+        .set("cursorTimestamp", cursor != null
+            ? cursor.timestamp() : null, LocalDateTimeType.INSTANCE)
+        .set("cursorId", cursor != null ? cursor.id() : null, UUIDCharType.INSTANCE)
+        .set("limit", limit, IntegerType.INSTANCE);
   }
 }
@@ -0,0 +1,49 @@
+package gov.nasa.podaac.swodlr.l2rasterproduct;
+
+import gov.nasa.podaac.swodlr.pagination.Connection;
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import reactor.core.publisher.Mono;
+
+/*
+ * Read path for products used by data fetchers. Implemented with JPA or
+ * R2DBC depending on the swodlr.read-path property
+ */
+public interface L2RasterProductReader {
+  Mono<L2RasterProduct> findById(UUID id);
+
+  Mono<List<L2RasterProduct>> findByUser(
+      UUID userId,
+      Integer cycle,
+      Integer pass,
+      Integer scene,
+      Boolean outputGranuleExtentFlag,
+      GridType outputSamplingGridType,
+      Integer rasterResolution,
+      Integer utmZoneAdjust,
+      Integer mgrsBandAdjust,
+      LocalDateTime beforeTimestamp,
+      LocalDateTime afterTimestamp,
+      UUID after,
+      int limit
+  );
+
+  Mono<Connection<L2RasterProduct>> findPageByUser(
+      UUID userId,
+      Integer cycle,
+      Integer pass,
+      Integer scene,
+      Boolean outputGranuleExtentFlag,
+      GridType outputSamplingGridType,
+      Integer rasterResolution,
+      Integer utmZoneAdjust,
+      Integer mgrsBandAdjust,
+      LocalDateTime beforeTimestamp,
+      LocalDateTime afterTimestamp,
+      Cursor after,
+      int limit
+  );
+}
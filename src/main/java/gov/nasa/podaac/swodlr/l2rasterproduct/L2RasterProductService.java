@@ -1,13 +1,21 @@
 package gov.nasa.podaac.swodlr.l2rasterproduct;
 
-import gov.nasa.podaac.swodlr.producthistory.ProductHistory;
-import gov.nasa.podaac.swodlr.producthistory.ProductHistoryRepository;
-import gov.nasa.podaac.swodlr.queue.ProductCreateQueue;
-import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import gov.nasa.podaac.swodlr.producthistory.ProductHistoryBuffer;
+import gov.nasa.podaac.swodlr.queue.ProductCreateOutbox;
 import gov.nasa.podaac.swodlr.status.State;
 import gov.nasa.podaac.swodlr.status.Status;
-import gov.nasa.podaac.swodlr.status.StatusRepository;
 import gov.nasa.podaac.swodlr.user.User;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Valid;
+import javax.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,93 +23,277 @@ import reactor.core.publisher.Mono;
 
 @Service
 public class L2RasterProductService {
+  public static final int MAX_BATCH_SIZE = 500;
+
   @Autowired
   private L2RasterProductRepository l2RasterProductRepository;
 
   @Autowired
-  private StatusRepository statusRepository;
+  private ProductLookupCache productLookupCache;
+
+  @Autowired
+  private ProductCreateOutbox productCreateOutbox;
+
+  @Autowired
+  private L2RasterProductBatchRepository l2RasterProductBatchRepository;
 
   @Autowired
-  private ProductHistoryRepository productHistoryRepository;
+  private L2RasterProductBulkRepository l2RasterProductBulkRepository;
 
   @Autowired
-  private ProductCreateQueue productCreateQueue;
+  private ProductHistoryBuffer productHistoryBuffer;
+
+  @Autowired
+  private Validator validator;
+
+  /*
+   * Validates the parameters of a product request. Requests must be
+   * validated before they are looked up, as product keys ignore parameters
+   * which do not apply to a product (eg: adjusts on GEO rasters)
+   */
+  public void validate(L2RasterProductParameters parameters) {
+    Set<ConstraintViolation<L2RasterProduct>> violations
+        = validator.validate(newProduct(parameters));
+    if (!violations.isEmpty()) {
+      throw new ConstraintViolationException(violations);
+    }
+  }
 
   @Transactional
-  public Mono<L2RasterProduct> createL2RasterProduct(
-      User user,
-      int cycle,
-      int pass,
-      int scene,
-      boolean outputGranuleExtentFlag,
-      GridType outputSamplingGridType,
-      int rasterResolution,
-      Integer utmZoneAdjust,
-      Integer mgrsBandAdjust
-  ) {
-    L2RasterProduct product = new L2RasterProduct(
-        cycle,
-        pass,
-        scene,
-        outputGranuleExtentFlag,
-        outputSamplingGridType,
-        rasterResolution,
-        utmZoneAdjust,
-        mgrsBandAdjust
-    );
-    ProductHistory history = new ProductHistory(user, product);
-    product = l2RasterProductRepository.save(product);
-    productHistoryRepository.save(history);
+  public Mono<L2RasterProduct> createL2RasterProduct(L2RasterProductParameters parameters) {
+    L2RasterProduct product = newProduct(parameters.normalize());
+
+    if (l2RasterProductBatchRepository.insertProducts(List.of(product)).isEmpty()) {
+      // Another request created the product first, resolve to that product
+      return Mono.justOrEmpty(
+          l2RasterProductRepository.findOneByProductKey(product.getProductKey())
+      );
+    }
 
     return startProductGeneration(product);
   }
 
   @Transactional
-  public Mono<L2RasterProduct> getL2RasterProduct(
-      User requestor,
-      int cycle,
-      int pass,
-      int scene,
-      boolean outputGranuleExtentFlag,
-      GridType outputSamplingGridType,
-      int rasterResolution,
-      Integer utmZoneAdjust,
-      Integer mgrsBandAdjust
-  ) {
-    var productResult = l2RasterProductRepository.findOneByParameters(
-        cycle,
-        pass,
-        scene,
-        outputGranuleExtentFlag,
-        outputSamplingGridType,
-        rasterResolution,
-        utmZoneAdjust,
-        mgrsBandAdjust
-    );
+  public Mono<L2RasterProduct> getL2RasterProduct(L2RasterProductParameters parameters) {
+    long stamp = productLookupCache.stamp();
+    var productResult = l2RasterProductRepository.findOneByProductKey(parameters.productKey());
 
     if (productResult.isEmpty()) {
       return Mono.empty();
     }
 
     L2RasterProduct product = productResult.get();
-    ProductHistory history = new ProductHistory(requestor, product);
-    productHistoryRepository.save(history);
-
-    State currentState = product.getStatuses().get(0).getState();
+    State currentState = product.getCurrentState();
 
     if (currentState == State.UNAVAILABLE || currentState == State.ERROR) {
       return startProductGeneration(product);
     }
 
+    productLookupCache.put(product, stamp);
     return Mono.just(product);
   }
 
+  /*
+   * Records that a user has requested a product. Kept separate from product
+   * lookup/creation so that requests coalesced onto another user's in-flight
+   * request are still added to the requesting user's history. History is
+   * written behind by the ProductHistoryBuffer
+   */
+  public L2RasterProduct recordRequest(User requestor, L2RasterProduct product) {
+    productHistoryBuffer.record(requestor, List.of(product));
+    return product;
+  }
+
+  /*
+   * Records a request for a product found in the ProductLookupCache, which
+   * then needs no database access. Returns null if the parameters aren't
+   * cached
+   */
+  public L2RasterProduct recordCachedRequest(
+      User requestor,
+      L2RasterProductParameters parameters
+  ) {
+    L2RasterProduct product = productLookupCache.get(parameters);
+    if (product == null) {
+      return null;
+    }
+
+    return recordRequest(requestor, product);
+  }
+
+  /*
+   * Marks a product as UNAVAILABLE so that the next request for it triggers
+   * regeneration. Returns null if no product exists with the id
+   */
+  @Transactional
+  public L2RasterProduct invalidateProduct(UUID id) {
+    var result = l2RasterProductRepository.findById(id);
+    if (result.isEmpty()) {
+      return null;
+    }
+
+    L2RasterProduct product = result.get();
+    Status invalidatedStatus = new Status(product, State.UNAVAILABLE);
+    l2RasterProductBatchRepository.insertStatuses(List.of(invalidatedStatus));
+
+    return product;
+  }
+
+  /*
+   * Marks every product matching the filter as UNAVAILABLE, so that each is
+   * regenerated when next requested. Returns the number of products marked
+   */
+  @Transactional
+  public int invalidateProducts(L2RasterProductFilter filter, String reason) {
+    filter.validate();
+    productLookupCache.invalidateAll();
+    return l2RasterProductBulkRepository.insertStatuses(filter, State.UNAVAILABLE, reason, false);
+  }
+
+  /*
+   * Marks every product matching the filter as NEW and adds each to the
+   * product create outbox as a bulk entry. Bulk entries are relayed at a
+   * limited rate behind products requested by users (see
+   * ProductCreateOutboxRelay). Returns the number of products queued
+   */
+  @Transactional
+  public int regenerateProducts(L2RasterProductFilter filter, String reason) {
+    filter.validate();
+    productLookupCache.invalidateAll();
+    return l2RasterProductBulkRepository.insertStatuses(filter, State.NEW, reason, true);
+  }
+
+  /*
+   * Resolves or creates the products for a batch of requests by the same
+   * user. Existing products are found with a single lookup and any new
+   * products and statuses are written with JDBC batching.
+   * Products which need (re)generation are added to the product create
+   * outbox in the same transaction. The returned list is in the same order as the requests;
+   * duplicate requests resolve to the same product
+   */
+  @Transactional
+  public Mono<List<L2RasterProduct>> generateL2RasterProducts(
+      User requestor,
+      List<L2RasterProductParameters> requests
+  ) {
+    if (requests.size() > MAX_BATCH_SIZE) {
+      throw new SwodlrException(
+          "No more than %d products may be requested at once".formatted(MAX_BATCH_SIZE));
+    }
+
+    if (requests.isEmpty()) {
+      return Mono.just(List.of());
+    }
+
+    List<L2RasterProduct> candidates = new ArrayList<>(requests.size());
+    for (L2RasterProductParameters request : requests) {
+      candidates.add(newProduct(request));
+    }
+
+    Set<ConstraintViolation<BatchRequest>> violations
+        = validator.validate(new BatchRequest(candidates));
+    if (!violations.isEmpty()) {
+      throw new ConstraintViolationException(violations);
+    }
+
+    /* -- Lookup -- */
+    List<String> productKeys = new ArrayList<>(requests.size());
+    for (L2RasterProduct candidate : candidates) {
+      productKeys.add(candidate.getProductKey());
+    }
+
+    Map<String, L2RasterProduct> resolved = new LinkedHashMap<>();
+    for (L2RasterProduct product
+        : l2RasterProductRepository.findAllByProductKeyIn(productKeys)) {
+      resolved.put(product.getProductKey(), product);
+    }
+
+    List<L2RasterProduct> toGenerate = new ArrayList<>();
+    for (L2RasterProduct product : resolved.values()) {
+      State currentState = product.getCurrentState();
+      if (currentState == State.UNAVAILABLE || currentState == State.ERROR) {
+        toGenerate.add(product);
+      }
+    }
+
+    /* -- Create -- */
+    Map<String, L2RasterProduct> missing = new LinkedHashMap<>();
+    for (int i = 0; i < candidates.size(); i++) {
+      String productKey = productKeys.get(i);
+      if (!resolved.containsKey(productKey)) {
+        missing.putIfAbsent(productKey, newProduct(requests.get(i).normalize()));
+      }
+    }
+
+    if (!missing.isEmpty()) {
+      List<L2RasterProduct> created = l2RasterProductBatchRepository.insertProducts(
+          new ArrayList<>(missing.values())
+      );
+      for (L2RasterProduct product : created) {
+        resolved.put(product.getProductKey(), product);
+        missing.remove(product.getProductKey());
+      }
+      toGenerate.addAll(created);
+
+      // Products created concurrently by other requests are resolved as-is
+      if (!missing.isEmpty()) {
+        for (L2RasterProduct product
+            : l2RasterProductRepository.findAllByProductKeyIn(missing.keySet())) {
+          resolved.put(product.getProductKey(), product);
+        }
+      }
+    }
+
+    /* -- Persist -- */
+    List<Status> statuses = new ArrayList<>(toGenerate.size());
+    for (L2RasterProduct product : toGenerate) {
+      statuses.add(new Status(product, State.NEW));
+    }
+
+    if (!statuses.isEmpty()) {
+      l2RasterProductBatchRepository.insertStatuses(statuses);
+      productCreateOutbox.add(toGenerate.stream().map(L2RasterProduct::getId).toList());
+    }
+    productHistoryBuffer.record(requestor, resolved.values());
+
+    List<L2RasterProduct> results = new ArrayList<>(productKeys.size());
+    for (String productKey : productKeys) {
+      results.add(resolved.get(productKey));
+    }
+
+    return Mono.just(results);
+  }
+
+  /*
+   * Marks a product as NEW and adds it to the product create outbox. Both
+   * are written in the caller's transaction; the product is sent to the
+   * queue by the ProductCreateOutboxRelay once the transaction commits
+   */
   @Transactional
   public Mono<L2RasterProduct> startProductGeneration(L2RasterProduct product) {
-    return Mono.defer(() -> {
-      Status status = new Status(product, State.NEW);
-      statusRepository.save(status);
-      return productCreateQueue.queueProduct(product).thenReturn(product);
-    });
+    Status status = new Status(product, State.NEW);
+    l2RasterProductBatchRepository.insertStatuses(List.of(status));
+    productCreateOutbox.add(List.of(product.getId()));
+
+    return Mono.just(product);
   }
+
+  private L2RasterProduct newProduct(L2RasterProductParameters parameters) {
+    return new L2RasterProduct(
+        parameters.cycle(),
+        parameters.pass(),
+        parameters.scene(),
+        parameters.outputGranuleExtentFlag(),
+        parameters.outputSamplingGridType(),
+        parameters.rasterResolution(),
+        parameters.utmZoneAdjust(),
+        parameters.mgrsBandAdjust()
+    );
+  }
+
+  /*
+   * Wrapper used to validate a batch of products at once, so that violations
+   * are reported with the index of the offending request (eg: requests[2].scene)
+   */
+  private record BatchRequest(@Valid List<L2RasterProduct> requests) { }
 }
@@ -0,0 +1,343 @@
+package gov.nasa.podaac.swodlr.l2rasterproduct;
+
+import gov.nasa.podaac.swodlr.SwodlrProperties;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.status.State;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * Bounded, in-process index from product parameters to the id and current
+ * state of the matching product, so that repeat requests for a generated
+ * product skip the product lookup. Parameters are packed into a single long
+ * (see pack) and entries are evicted least recently used first, or once
+ * they are older than the configured TTL
+ *
+ * Only products which do not need (re)generation are held. Entries are
+ * dropped whenever a status is written for their product through
+ * L2RasterProductBatchRepository, or the product is deleted through JPA;
+ * changes made by other instances are only picked up once the entry
+ * expires, so the TTL bounds how stale a hit may be
+ */
+@Component
+public class ProductLookupCache {
+  /* Returned by pack for parameters outside of the ranges it can encode */
+  public static final long UNPACKABLE = -1;
+
+  private static final String LOOKUPS_METRIC = "swodlr.product.cache.lookups";
+  private static final String LOOKUPS_DESCRIPTION = "Product cache lookups, by result";
+
+  private final Map<Long, Entry> entries;
+  private final int maxSize;
+  private final long ttlNanos;
+
+  /*
+   * When each key was last invalidated, oldest first. Lookups which missed
+   * take a stamp (the time) before reading the database and their result is
+   * only cached if its key hasn't been invalidated since, so a read can't
+   * re-cache a state invalidated while it ran. Results are only cached
+   * within the TTL of their stamp, so invalidations are dropped once they
+   * are older than it. Guarded by entries
+   */
+  private final LinkedHashMap<Long, Long> invalidatedAt = new LinkedHashMap<>();
+  private long allInvalidatedAt = System.nanoTime();
+
+  private final Counter hitCounter;
+  private final Counter missCounter;
+  private final Counter evictionCounter;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  public ProductLookupCache(
+      MeterRegistry meterRegistry,
+      SwodlrProperties swodlrProperties
+  ) {
+    maxSize = swodlrProperties.productCache().maxSize();
+    ttlNanos = swodlrProperties.productCache().ttl().toNanos();
+    entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+        if (size() > ProductLookupCache.this.maxSize) {
+          evictionCounter.increment();
+          return true;
+        }
+
+        return false;
+      }
+    };
+
+    hitCounter = Counter.builder(LOOKUPS_METRIC)
+        .description(LOOKUPS_DESCRIPTION)
+        .tag("result", "hit")
+        .register(meterRegistry);
+    missCounter = Counter.builder(LOOKUPS_METRIC)
+        .description(LOOKUPS_DESCRIPTION)
+        .tag("result", "miss")
+        .register(meterRegistry);
+    evictionCounter = Counter.builder("swodlr.product.cache.evictions")
+        .description("Product cache entries evicted to stay within the maximum size")
+        .register(meterRegistry);
+
+    meterRegistry.gauge("swodlr.product.cache.size", Tags.empty(), this, ProductLookupCache::size);
+  }
+
+  /*
+   * Returns the cached product for the parameters, rebuilt from the entry
+   * without loading its associations, or null if there is none
+   */
+  public L2RasterProduct get(L2RasterProductParameters parameters) {
+    L2RasterProductParameters normalized = parameters.normalize();
+    long key = pack(normalized);
+    Entry entry = null;
+
+    if (key != UNPACKABLE) {
+      synchronized (entries) {
+        entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.cachedAt() > ttlNanos) {
+          entries.remove(key);
+          entry = null;
+        }
+      }
+    }
+
+    if (entry == null) {
+      missCounter.increment();
+      return null;
+    }
+
+    hitCounter.increment();
+    return new L2RasterProduct(
+        entry.id(),
+        entry.timestamp(),
+        normalized.cycle(),
+        normalized.pass(),
+        normalized.scene(),
+        normalized.outputGranuleExtentFlag(),
+        normalized.outputSamplingGridType(),
+        normalized.rasterResolution(),
+        normalized.utmZoneAdjust(),
+        normalized.mgrsBandAdjust(),
+        normalized.productKey(),
+        entry.currentStatusId(),
+        entry.currentState()
+    );
+  }
+
+  /*
+   * Returns a stamp to pass to put for a product about to be read from the
+   * database
+   */
+  public long stamp() {
+    return System.nanoTime();
+  }
+
+  /*
+   * Caches the product if it doesn't need (re)generation and it hasn't
+   * been invalidated since the stamp was taken. The entry's age is counted
+   * from the stamp, so one read longer ago than the TTL isn't cached
+   */
+  public void put(L2RasterProduct product, long stamp) {
+    State state = product.getCurrentState();
+    if (state == null || state == State.UNAVAILABLE || state == State.ERROR) {
+      return;
+    }
+
+    long key = pack(L2RasterProductParameters.of(product));
+    if (key == UNPACKABLE) {
+      return;
+    }
+
+    if (System.nanoTime() - stamp > ttlNanos) {
+      return;
+    }
+
+    Entry entry = new Entry(
+        product.getId(),
+        product.getTimestamp(),
+        product.getCurrentStatusId(),
+        state,
+        stamp
+    );
+
+    synchronized (entries) {
+      Long invalidated = invalidatedAt.get(key);
+      if (stamp - allInvalidatedAt > 0 && (invalidated == null || stamp - invalidated > 0)) {
+        entries.put(key, entry);
+      }
+    }
+  }
+
+  /*
+   * Drops the entry for the product. When called within a transaction the
+   * entry is dropped again once it completes, as lookups running
+   * concurrently may have re-cached the state it is replacing
+   */
+  public void invalidate(L2RasterProduct product) {
+    long key = pack(L2RasterProductParameters.of(product));
+    if (key == UNPACKABLE) {
+      return;
+    }
+
+    remove(key);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          remove(key);
+        }
+      });
+    }
+  }
+
+  /*
+   * Drops every entry, for bulk operations which may have written a status
+   * for any number of products
+   */
+  public void invalidateAll() {
+    clear();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          clear();
+        }
+      });
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /*
+   * Warms the cache with the most recently requested products, up to its
+   * maximum size
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warm() {
+    String statement =
+        """
+        SELECT * FROM \"L2RasterProducts\" WHERE \"id\" IN (
+          SELECT \"rasterProductId\" FROM \"ProductHistory\"
+          GROUP BY \"rasterProductId\"
+          ORDER BY max(\"timestamp\") DESC
+          LIMIT ?
+        )
+        """;
+
+    long stamp = stamp();
+    jdbcTemplate.query(statement, (rs) -> {
+      String state = rs.getString("currentState");
+      put(new L2RasterProduct(
+          rs.getObject("id", UUID.class),
+          rs.getTimestamp("timestamp").toLocalDateTime(),
+          rs.getInt("cycle"),
+          rs.getInt("pass"),
+          rs.getInt("scene"),
+          rs.getBoolean("outputGranuleExtentFlag"),
+          GridType.valueOf(rs.getString("outputSamplingGridType")),
+          rs.getInt("rasterResolution"),
+          rs.getObject("utmZoneAdjust", Integer.class),
+          rs.getObject("mgrsBandAdjust", Integer.class),
+          rs.getString("productKey"),
+          rs.getObject("currentStatusId", UUID.class),
+          state != null ? State.valueOf(state) : null
+      ), stamp);
+    }, maxSize);
+  }
+
+  /*
+   * Packs normalized parameters into a long, from the low bits up:
+   *
+   *    cycle (10) | pass (10) | scene (10) | outputGranuleExtentFlag (1)
+   *      | gridType (1) | rasterResolution (14) | utmZoneAdjust (2)
+   *      | mgrsBandAdjust (2)
+   *
+   * Adjusts are stored as their value + 2, leaving 0 for absent adjusts.
+   * Returns UNPACKABLE for values outside of these ranges, which validation
+   * should have rejected
+   */
+  public static long pack(L2RasterProductParameters parameters) {
+    L2RasterProductParameters normalized = parameters.normalize();
+    int utmZoneAdjust = packAdjust(normalized.utmZoneAdjust());
+    int mgrsBandAdjust = packAdjust(normalized.mgrsBandAdjust());
+
+    if (!fits(normalized.cycle(), 10)
+        || !fits(normalized.pass(), 10)
+        || !fits(normalized.scene(), 10)
+        || !fits(normalized.rasterResolution(), 14)
+        || utmZoneAdjust < 0
+        || mgrsBandAdjust < 0) {
+      return UNPACKABLE;
+    }
+
+    long key = normalized.cycle();
+    key |= (long) normalized.pass() << 10;
+    key |= (long) normalized.scene() << 20;
+    key |= (normalized.outputGranuleExtentFlag() ? 1L : 0L) << 30;
+    key |= (long) normalized.outputSamplingGridType().ordinal() << 31;
+    key |= (long) normalized.rasterResolution() << 32;
+    key |= (long) utmZoneAdjust << 46;
+    key |= (long) mgrsBandAdjust << 48;
+
+    return key;
+  }
+
+  private static boolean fits(int value, int bits) {
+    return value >= 0 && value < (1 << bits);
+  }
+
+  private static int packAdjust(Integer adjust) {
+    if (adjust == null) {
+      return 0;
+    }
+
+    return adjust >= -1 && adjust <= 1 ? adjust + 2 : -1;
+  }
+
+  private void remove(long key) {
+    synchronized (entries) {
+      long now = System.nanoTime();
+      entries.remove(key);
+      invalidatedAt.remove(key);
+      invalidatedAt.put(key, now);
+
+      Iterator<Long> invalidations = invalidatedAt.values().iterator();
+      while (invalidations.hasNext() && now - invalidations.next() > ttlNanos) {
+        invalidations.remove();
+      }
+    }
+  }
+
+  private void clear() {
+    synchronized (entries) {
+      allInvalidatedAt = System.nanoTime();
+      entries.clear();
+      invalidatedAt.clear();
+    }
+  }
+
+  private record Entry(
+      UUID id,
+      LocalDateTime timestamp,
+      UUID currentStatusId,
+      State currentState,
+      long cachedAt
+  ) { }
+}
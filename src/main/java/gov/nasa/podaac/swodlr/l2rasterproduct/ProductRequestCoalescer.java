@@ -0,0 +1,74 @@
+package gov.nasa.podaac.swodlr.l2rasterproduct;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/*
+ * Single-flight layer for product generation requests. While a lookup or
+ * creation for a set of parameters is in progress, every other request
+ * with the same parameters subscribes to the in-flight Mono instead of
+ * starting its own. This prevents concurrent identical requests from racing
+ * each other into duplicate products and duplicate queue messages
+ *
+ * Coalescing is per-process; requests are only shared while in flight and
+ * nothing is cached once the flight completes
+ */
+@Component
+public class ProductRequestCoalescer {
+  private static final String REQUESTS_METRIC = "swodlr.product.requests";
+  private static final String REQUESTS_DESCRIPTION
+      = "Product generation requests, by whether they joined an in-flight request";
+
+  private final Map<L2RasterProductParameters, Mono<L2RasterProduct>> inFlight
+      = new ConcurrentHashMap<>();
+
+  private final Counter leaderCounter;
+  private final Counter coalescedCounter;
+
+  public ProductRequestCoalescer(MeterRegistry meterRegistry) {
+    leaderCounter = Counter.builder(REQUESTS_METRIC)
+        .description(REQUESTS_DESCRIPTION)
+        .tag("coalesced", "false")
+        .register(meterRegistry);
+    coalescedCounter = Counter.builder(REQUESTS_METRIC)
+        .description(REQUESTS_DESCRIPTION)
+        .tag("coalesced", "true")
+        .register(meterRegistry);
+
+    meterRegistry.gaugeMapSize("swodlr.product.requests.in-flight", Tags.empty(), inFlight);
+  }
+
+  public Mono<L2RasterProduct> coalesce(
+      L2RasterProductParameters parameters,
+      Supplier<Mono<L2RasterProduct>> request
+  ) {
+    return Mono.defer(() -> {
+      L2RasterProductParameters key = parameters.normalize();
+      AtomicReference<Mono<L2RasterProduct>> created = new AtomicReference<>();
+
+      Mono<L2RasterProduct> flight = inFlight.computeIfAbsent(key, (k) -> {
+        Mono<L2RasterProduct> newFlight = Mono.defer(request)
+            .doFinally((signal) -> inFlight.remove(k, created.get()))
+            .cache();
+
+        created.set(newFlight);
+        return newFlight;
+      });
+
+      if (flight == created.get()) {
+        leaderCounter.increment();
+      } else {
+        coalescedCounter.increment();
+      }
+
+      return flight;
+    });
+  }
+}
@@ -0,0 +1,146 @@
+package gov.nasa.podaac.swodlr.l2rasterproduct;
+
+import gov.nasa.podaac.swodlr.pagination.Connection;
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import gov.nasa.podaac.swodlr.pagination.Edge;
+import gov.nasa.podaac.swodlr.r2dbc.R2dbcUtils;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.sql.ShapedStatement;
+import gov.nasa.podaac.swodlr.status.State;
+import io.r2dbc.spi.Row;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/*
+ * Non-blocking read path for products. Runs the same statements as the JPA
+ * path, bound through ShapedStatement
+ */
+@Component
+@ConditionalOnProperty(name = "swodlr.read-path", havingValue = "r2dbc")
+public class R2dbcL2RasterProductReader implements L2RasterProductReader {
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  @Override
+  public Mono<L2RasterProduct> findById(UUID id) {
+    return databaseClient
+        .sql("SELECT * FROM \"L2RasterProducts\" WHERE \"id\" = :id")
+        .bind("id", id)
+        .map((row, metadata) -> mapRow(row))
+        .one();
+  }
+
+  @Override
+  public Mono<List<L2RasterProduct>> findByUser(
+      UUID userId,
+      Integer cycle,
+      Integer pass,
+      Integer scene,
+      Boolean outputGranuleExtentFlag,
+      GridType outputSamplingGridType,
+      Integer rasterResolution,
+      Integer utmZoneAdjust,
+      Integer mgrsBandAdjust,
+      LocalDateTime beforeTimestamp,
+      LocalDateTime afterTimestamp,
+      UUID after,
+      int limit
+  ) {
+    ShapedStatement.Bound statement = L2RasterProductQueryImpl.FIND_BY_USER.bind(
+        L2RasterProductQueryImpl.findByUserParameters(
+            userId,
+            cycle,
+            pass,
+            scene,
+            outputGranuleExtentFlag,
+            outputSamplingGridType,
+            rasterResolution,
+            utmZoneAdjust,
+            mgrsBandAdjust,
+            beforeTimestamp,
+            afterTimestamp,
+            after,
+            null,
+            limit
+        )
+    );
+
+    return statement.applyTo(databaseClient.sql(statement.sql()))
+        .map((row, metadata) -> mapRow(row))
+        .all()
+        .collectList();
+  }
+
+  @Override
+  public Mono<Connection<L2RasterProduct>> findPageByUser(
+      UUID userId,
+      Integer cycle,
+      Integer pass,
+      Integer scene,
+      Boolean outputGranuleExtentFlag,
+      GridType outputSamplingGridType,
+      Integer rasterResolution,
+      Integer utmZoneAdjust,
+      Integer mgrsBandAdjust,
+      LocalDateTime beforeTimestamp,
+      LocalDateTime afterTimestamp,
+      Cursor after,
+      int limit
+  ) {
+    ShapedStatement.Bound statement = L2RasterProductQueryImpl.FIND_BY_USER.bind(
+        L2RasterProductQueryImpl.findByUserParameters(
+            userId,
+            cycle,
+            pass,
+            scene,
+            outputGranuleExtentFlag,
+            outputSamplingGridType,
+            rasterResolution,
+            utmZoneAdjust,
+            mgrsBandAdjust,
+            beforeTimestamp,
+            afterTimestamp,
+            null,
+            after,
+            limit + 1
+        )
+    );
+
+    return statement.applyTo(databaseClient.sql(statement.sql()))
+        .map((row, metadata) -> {
+          L2RasterProduct product = mapRow(row);
+          Cursor cursor = new Cursor(
+              R2dbcUtils.getLocalDateTime(row, "requestedAt"), product.getId());
+          return new Edge<>(cursor, product);
+        })
+        .all()
+        .collectList()
+        .map((edges) -> Connection.of(edges, limit));
+  }
+
+  private static L2RasterProduct mapRow(Row row) {
+    String currentState = row.get("currentState", String.class);
+
+    return new L2RasterProduct(
+        row.get("id", UUID.class),
+        R2dbcUtils.getLocalDateTime(row, "timestamp"),
+        row.get("cycle", Integer.class),
+        row.get("pass", Integer.class),
+        row.get("scene", Integer.class),
+        row.get("outputGranuleExtentFlag", Boolean.class),
+        GridType.valueOf(row.get("outputSamplingGridType", String.class)),
+        row.get("rasterResolution", Integer.class),
+        row.get("utmZoneAdjust", Integer.class),
+        row.get("mgrsBandAdjust", Integer.class),
+        row.get("productKey", String.class),
+        row.get("currentStatusId", UUID.class),
+        currentState != null ? State.valueOf(currentState) : null
+    );
+  }
+}
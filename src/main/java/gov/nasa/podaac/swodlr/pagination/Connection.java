@@ -0,0 +1,31 @@
+package gov.nasa.podaac.swodlr.pagination;
+
+import gov.nasa.podaac.swodlr.exception.SwodlrValidationException;
+import java.util.List;
+
+public record Connection<T>(List<Edge<T>> edges, PageInfo pageInfo) {
+  /*
+   * Builds a page from edges read with a limit of one more than the page
+   * size. The extra edge, if present, only signals that a next page exists
+   * and is dropped
+   */
+  public static <T> Connection<T> of(List<Edge<T>> edges, int limit) {
+    boolean hasNextPage = edges.size() > limit;
+    List<Edge<T>> page = hasNextPage ? edges.subList(0, limit) : edges;
+    String endCursor = page.isEmpty() ? null : page.get(page.size() - 1).cursor();
+
+    return new Connection<>(List.copyOf(page), new PageInfo(endCursor, hasNextPage));
+  }
+
+  /*
+   * Rejects a negative page size before it reaches a query's LIMIT or
+   * of(...)
+   */
+  public static int validateLimit(int limit) {
+    if (limit < 0) {
+      throw new SwodlrValidationException("limit", "must be >= 0");
+    }
+
+    return limit;
+  }
+}
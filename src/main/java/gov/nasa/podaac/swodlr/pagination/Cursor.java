@@ -0,0 +1,45 @@
+package gov.nasa.podaac.swodlr.pagination;
+
+import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/*
+ * Position of a row in a list ordered by (timestamp DESC, id DESC). The
+ * sort key is carried in the cursor itself so that the next page can be
+ * read with a single range scan, without first looking up the previous row.
+ * Cursors are opaque to clients
+ */
+public record Cursor(LocalDateTime timestamp, UUID id) {
+  private static final String SEPARATOR = "/";
+
+  public String encode() {
+    String value = timestamp.toString() + SEPARATOR + id.toString();
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /*
+   * Decodes a cursor received from a client. A null value decodes to null,
+   * ie: the first page
+   */
+  public static Cursor decode(String cursor) {
+    if (cursor == null) {
+      return null;
+    }
+
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = value.indexOf(SEPARATOR);
+      return new Cursor(
+          LocalDateTime.parse(value.substring(0, separator)),
+          UUID.fromString(value.substring(separator + 1))
+      );
+    } catch (RuntimeException ex) {
+      throw new SwodlrException("Invalid `after` parameter");
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package gov.nasa.podaac.swodlr.pagination;
+
+public record Edge<T>(String cursor, T node) {
+  public Edge(Cursor cursor, T node) {
+    this(cursor.encode(), node);
+  }
+}
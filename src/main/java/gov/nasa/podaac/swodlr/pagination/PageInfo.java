@@ -0,0 +1,3 @@
+package gov.nasa.podaac.swodlr.pagination;
+
+public record PageInfo(String endCursor, boolean hasNextPage) { }
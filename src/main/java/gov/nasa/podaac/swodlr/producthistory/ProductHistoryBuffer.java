@@ -0,0 +1,213 @@
+package gov.nasa.podaac.swodlr.producthistory;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.user.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * Write-behind buffer for ProductHistory, so that product requests don't
+ * wait on a history write. Requests are held per user and product until
+ * the next flush, keeping only the latest timestamp of repeated requests,
+ * and are then written with one batched upsert. Pending requests are also
+ * flushed on shutdown, and for a single user before their history is read
+ *
+ * Requests for products deleted before the flush are dropped. A failed
+ * flush returns its requests to the buffer to be retried on the next one
+ */
+@Component
+public class ProductHistoryBuffer {
+  public static final String UPDATE_HISTORY =
+      """
+      UPDATE \"ProductHistory\" SET \"timestamp\" = ?
+      WHERE \"requestedById\" = ? AND \"rasterProductId\" = ? AND \"timestamp\" < ?
+      """;
+
+  /* Unless the product has since been deleted */
+  public static final String INSERT_HISTORY =
+      """
+      INSERT INTO \"ProductHistory\" (\"requestedById\", \"rasterProductId\", \"timestamp\")
+      SELECT CAST(? AS UUID), CAST(? AS UUID), CAST(? AS TIMESTAMP)
+      WHERE EXISTS (SELECT 1 FROM \"L2RasterProducts\" WHERE \"id\" = ?)
+      ON CONFLICT DO NOTHING
+      """;
+
+  private static final Comparator<Request> LOCK_ORDER = Comparator
+      .comparing(Request::requestedById)
+      .thenComparing(Request::rasterProductId);
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  /* Latest request timestamps, by user and then by product */
+  private final Map<UUID, Map<UUID, LocalDateTime>> pending = new ConcurrentHashMap<>();
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  public ProductHistoryBuffer(MeterRegistry meterRegistry) {
+    meterRegistry.gaugeMapSize("swodlr.product.history.pending-users", Tags.empty(), pending);
+  }
+
+  /*
+   * Records a request for each product by the user, to be written on the
+   * next flush. Within a transaction, the requests are only buffered once
+   * it commits, so a flush can't write history for products whose creation
+   * is later rolled back
+   */
+  public void record(User requestor, Collection<L2RasterProduct> products) {
+    UUID requestedById = requestor.getId();
+    LocalDateTime timestamp = LocalDateTime.now();
+    List<UUID> productIds = products.stream().map(L2RasterProduct::getId).toList();
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          buffer(requestedById, productIds, timestamp);
+        }
+      });
+    } else {
+      buffer(requestedById, productIds, timestamp);
+    }
+  }
+
+  @PreDestroy
+  @Scheduled(fixedDelayString = "${swodlr.product-history.flush-interval:PT1S}")
+  public void flush() {
+    List<Request> requests = new ArrayList<>();
+    for (UUID requestedById : pending.keySet()) {
+      drain(requestedById, requests);
+    }
+
+    write(requests);
+  }
+
+  /*
+   * Writes the pending requests of a single user, so that reads of their
+   * history include every request made before the read
+   */
+  public void flush(UUID requestedById) {
+    List<Request> requests = new ArrayList<>();
+    drain(requestedById, requests);
+    write(requests);
+  }
+
+  private void buffer(UUID requestedById, List<UUID> productIds, LocalDateTime timestamp) {
+    // Pending maps are only modified while their user's entry is locked
+    pending.compute(requestedById, (id, requests) -> {
+      Map<UUID, LocalDateTime> merged = requests != null ? requests : new HashMap<>();
+      for (UUID productId : productIds) {
+        merged.merge(productId, timestamp, ProductHistoryBuffer::latest);
+      }
+      return merged;
+    });
+  }
+
+  private void drain(UUID requestedById, List<Request> requests) {
+    Map<UUID, LocalDateTime> drained = pending.remove(requestedById);
+    if (drained == null) {
+      return;
+    }
+
+    for (Map.Entry<UUID, LocalDateTime> entry : drained.entrySet()) {
+      requests.add(new Request(requestedById, entry.getKey(), entry.getValue()));
+    }
+  }
+
+  /*
+   * Bumps the timestamp of existing history rows and inserts the rest.
+   * Requests are written in key order so that concurrent flushes lock rows
+   * in the same order
+   */
+  private void write(List<Request> requests) {
+    if (requests.isEmpty()) {
+      return;
+    }
+
+    requests.sort(LOCK_ORDER);
+
+    List<Object[]> updateRows = new ArrayList<>(requests.size());
+    for (Request request : requests) {
+      updateRows.add(new Object[] {
+          request.timestamp(),
+          request.requestedById(),
+          request.rasterProductId(),
+          request.timestamp()
+      });
+    }
+
+    try {
+      transactionTemplate.executeWithoutResult((status) -> {
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_HISTORY, updateRows, new int[] {
+            Types.TIMESTAMP,
+            Types.OTHER,
+            Types.OTHER,
+            Types.TIMESTAMP
+        });
+
+        // Rows which weren't updated are either new or already more recent
+        List<Object[]> insertRows = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+          if (updated[i] == 0) {
+            Request request = requests.get(i);
+            insertRows.add(new Object[] {
+                request.requestedById(),
+                request.rasterProductId(),
+                request.timestamp(),
+                request.rasterProductId()
+            });
+          }
+        }
+
+        if (!insertRows.isEmpty()) {
+          jdbcTemplate.batchUpdate(INSERT_HISTORY, insertRows, new int[] {
+              Types.OTHER,
+              Types.OTHER,
+              Types.TIMESTAMP,
+              Types.OTHER
+          });
+        }
+      });
+    } catch (RuntimeException ex) {
+      for (Request request : requests) {
+        pending.compute(request.requestedById(), (id, requeued) -> {
+          Map<UUID, LocalDateTime> merged = requeued != null ? requeued : new HashMap<>();
+          merged.merge(
+              request.rasterProductId(), request.timestamp(), ProductHistoryBuffer::latest);
+          return merged;
+        });
+      }
+
+      logger.warn("Failed to write {} product history row(s), retrying", requests.size(), ex);
+    }
+  }
+
+  private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+    return a.isAfter(b) ? a : b;
+  }
+
+  private record Request(UUID requestedById, UUID rasterProductId, LocalDateTime timestamp) { }
+}
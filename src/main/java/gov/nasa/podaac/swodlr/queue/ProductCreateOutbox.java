@@ -0,0 +1,174 @@
+package gov.nasa.podaac.swodlr.queue;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/*
+ * Outbox of products waiting to be sent to the product create queue.
+ * Entries are added in the same transaction as the product's NEW status so
+ * that a product is only queued if its status was committed, and is always
+ * eventually queued once it was. Entries are drained in insertion order by
+ * the ProductCreateOutboxRelay
+ *
+ * Relays claim entries with a lease rather than holding their row locks
+ * while sending them, so the send happens outside of any transaction. An
+ * entry whose lease expires before it is removed, e.g. because its relay
+ * died mid-send, is claimed again. Entries which have failed maxAttempts
+ * times are dead letters: they're left in the outbox for an operator to
+ * inspect, but never claimed again
+ *
+ * Claims lock rows with SKIP LOCKED, so relays on other instances claim the
+ * next entries rather than waiting. H2, which tests run against, has no
+ * SKIP LOCKED and waits on locks instead
+ */
+@Repository
+public class ProductCreateOutbox {
+  /* Followed by the locking clause, which depends on the database */
+  public static final String CLAIM_NEXT =
+      """
+      SELECT \"id\", \"productId\", \"attempts\" FROM \"ProductCreateOutbox\"
+      WHERE \"bulk\" = ? AND \"attempts\" < ?
+        AND (\"leasedUntil\" IS NULL OR \"leasedUntil\" < ?)
+      ORDER BY \"bulk\", \"id\" LIMIT ?
+      """;
+
+  public static final String LEASE =
+      "UPDATE \"ProductCreateOutbox\" SET \"leasedUntil\" = ? WHERE \"id\" = ?";
+
+  public static final String REMOVE = "DELETE FROM \"ProductCreateOutbox\" WHERE \"id\" = ?";
+
+  public static final String RECORD_FAILED_ATTEMPT =
+      """
+      UPDATE \"ProductCreateOutbox\"
+      SET \"attempts\" = \"attempts\" + 1, \"leasedUntil\" = ?
+      WHERE \"id\" = ?
+      """;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private DataSource dataSource;
+
+  public record Entry(long id, UUID productId, int attempts) { }
+
+  public void add(Collection<UUID> productIds) {
+    List<Object[]> rows = new ArrayList<>(productIds.size());
+    for (UUID productId : productIds) {
+      rows.add(new Object[] {productId});
+    }
+
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO \"ProductCreateOutbox\" (\"productId\") VALUES (?)",
+        rows,
+        new int[] {Types.OTHER}
+    );
+  }
+
+  /*
+   * Claims and returns the oldest unleased entries in the outbox, either
+   * those added for user requests or those added by bulk admin operations,
+   * leasing them until leasedUntil. Must be called in a transaction, which
+   * should be committed before the entries are sent
+   */
+  public List<Entry> claimNext(int limit, boolean bulk, int maxAttempts, Instant leasedUntil) {
+    String statement = CLAIM_NEXT + (skipLocked() ? "FOR UPDATE SKIP LOCKED" : "FOR UPDATE");
+
+    List<Entry> entries = jdbcTemplate.query(
+        statement,
+        (rs, rowNum) -> new Entry(
+            rs.getLong("id"),
+            rs.getObject("productId", UUID.class),
+            rs.getInt("attempts")
+        ),
+        bulk,
+        maxAttempts,
+        Timestamp.from(Instant.now()),
+        limit
+    );
+
+    lease(entries, leasedUntil);
+    return entries;
+  }
+
+  public void remove(Collection<Entry> entries) {
+    jdbcTemplate.batchUpdate(
+        REMOVE,
+        ids(entries),
+        new int[] {Types.BIGINT}
+    );
+  }
+
+  /*
+   * Counts a failed attempt against the entries and leases them until
+   * retryAfter, so that they're only claimed again once it has passed
+   */
+  public void recordFailedAttempt(Collection<Entry> entries, Instant retryAfter) {
+    jdbcTemplate.batchUpdate(
+        RECORD_FAILED_ATTEMPT,
+        leases(entries, retryAfter),
+        new int[] {Types.TIMESTAMP, Types.BIGINT}
+    );
+  }
+
+  /*
+   * The number of entries which have failed maxAttempts times
+   */
+  public long deadLetters(int maxAttempts) {
+    return jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM \"ProductCreateOutbox\" WHERE \"attempts\" >= ?",
+        Long.class,
+        maxAttempts
+    );
+  }
+
+  public long size() {
+    return jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM \"ProductCreateOutbox\"",
+        Long.class
+    );
+  }
+
+  private void lease(Collection<Entry> entries, Instant leasedUntil) {
+    jdbcTemplate.batchUpdate(
+        LEASE,
+        leases(entries, leasedUntil),
+        new int[] {Types.TIMESTAMP, Types.BIGINT}
+    );
+  }
+
+  private List<Object[]> leases(Collection<Entry> entries, Instant leasedUntil) {
+    Timestamp timestamp = Timestamp.from(leasedUntil);
+    List<Object[]> rows = new ArrayList<>(entries.size());
+    for (Entry entry : entries) {
+      rows.add(new Object[] {timestamp, entry.id()});
+    }
+
+    return rows;
+  }
+
+  private List<Object[]> ids(Collection<Entry> entries) {
+    List<Object[]> rows = new ArrayList<>(entries.size());
+    for (Entry entry : entries) {
+      rows.add(new Object[] {entry.id()});
+    }
+
+    return rows;
+  }
+
+  private boolean skipLocked() {
+    return dataSource instanceof HikariDataSource hikariDataSource
+        && hikariDataSource.getJdbcUrl() != null
+        && hikariDataSource.getJdbcUrl().startsWith("jdbc:postgresql:");
+  }
+}
@@ -0,0 +1,186 @@
+package gov.nasa.podaac.swodlr.queue;
+
+import gov.nasa.podaac.swodlr.SwodlrProperties;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * Drains the ProductCreateOutbox into the product create queue. Entries
+ * are claimed in batches of up to 10 (the SendMessageBatch limit) in the
+ * order they were added, and sent once the claim has been committed, so no
+ * connection or row lock is held while waiting on the queue. Only the
+ * entries the queue accepted are removed. Rejected entries are retried with
+ * an exponential backoff of their own, and are left as dead letters after
+ * swodlr.product-create-relay.max-attempts, so one poison entry can't hold
+ * up those behind it; delivery order is kept except around retries. When
+ * the request itself fails, the relay backs off as a whole
+ *
+ * Entries for user requests are sent first, and in full, on each run. Bulk
+ * entries are sent after them, at most swodlr.product-create-relay.bulk-limit
+ * per run, so that bulk regeneration is spread out rather than flooding the
+ * queue and delaying user requests behind it
+ */
+@Component
+public class ProductCreateOutboxRelay {
+  private static final int BATCH_SIZE = 10;
+  private static final Duration SEND_TIMEOUT = Duration.ofSeconds(30);
+  private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+  private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+  /* Long enough that a claim can't expire while its entries are being sent */
+  private static final Duration LEASE = SEND_TIMEOUT.multipliedBy(2);
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @Autowired
+  private ProductCreateOutbox outbox;
+
+  @Autowired
+  private ProductCreateQueue productCreateQueue;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private SwodlrProperties swodlrProperties;
+
+  private int consecutiveFailures = 0;
+  private Instant retryAfter = Instant.MIN;
+
+  @Scheduled(fixedDelayString = "${swodlr.product-create-relay.interval:PT1S}")
+  public synchronized void relay() {
+    if (Instant.now().isBefore(retryAfter)) {
+      return;
+    }
+
+    int claimed;
+    do {
+      claimed = relayBatch(false, BATCH_SIZE);
+    } while (claimed == BATCH_SIZE);
+
+    if (claimed < 0) {
+      return;
+    }
+
+    int bulkLimit = swodlrProperties.productCreateRelay().bulkLimit();
+    for (int remaining = bulkLimit; remaining > 0; remaining -= claimed) {
+      int limit = Math.min(BATCH_SIZE, remaining);
+      claimed = relayBatch(true, limit);
+      if (claimed < limit) {
+        break;
+      }
+    }
+  }
+
+  /*
+   * Claims the next batch of up to limit entries of the kind and sends
+   * them. Returns the number of entries claimed, or -1 if sending failed
+   */
+  private int relayBatch(boolean bulk, int limit) {
+    int maxAttempts = swodlrProperties.productCreateRelay().maxAttempts();
+    List<ProductCreateOutbox.Entry> entries = transactionTemplate.execute(
+        (status) -> outbox.claimNext(limit, bulk, maxAttempts, Instant.now().plus(LEASE))
+    );
+    if (entries == null || entries.isEmpty()) {
+      return 0;
+    }
+
+    List<UUID> productIds = new ArrayList<>(entries.size());
+    for (ProductCreateOutbox.Entry entry : entries) {
+      productIds.add(entry.productId());
+    }
+
+    Map<UUID, L2RasterProduct> productsById = new HashMap<>();
+    for (L2RasterProduct product : l2RasterProductRepository.findAllById(productIds)) {
+      productsById.put(product.getId(), product);
+    }
+
+    List<L2RasterProduct> products = new ArrayList<>(entries.size());
+    for (UUID productId : productIds) {
+      products.add(productsById.get(productId));
+    }
+
+    Set<UUID> queued;
+    try {
+      queued = productCreateQueue.queueProducts(products).block(SEND_TIMEOUT);
+    } catch (RuntimeException ex) {
+      recordFailedAttempt(entries);
+      consecutiveFailures++;
+
+      Duration backoff = backoff(consecutiveFailures);
+      retryAfter = Instant.now().plus(backoff);
+
+      logger.warn(
+          "Failed to relay {} product(s) to the product create queue, retrying in {}",
+          entries.size(), backoff, ex
+      );
+      return -1;
+    }
+
+    List<ProductCreateOutbox.Entry> sent = new ArrayList<>(entries.size());
+    List<ProductCreateOutbox.Entry> rejected = new ArrayList<>();
+    for (ProductCreateOutbox.Entry entry : entries) {
+      if (queued != null && queued.contains(entry.productId())) {
+        sent.add(entry);
+      } else {
+        rejected.add(entry);
+      }
+    }
+
+    outbox.remove(sent);
+    if (!rejected.isEmpty()) {
+      recordFailedAttempt(rejected);
+    }
+    consecutiveFailures = 0;
+    retryAfter = Instant.MIN;
+
+    return entries.size();
+  }
+
+  /*
+   * Leases each entry until its next retry, by the number of attempts it
+   * has failed, and logs those which have become dead letters
+   */
+  private void recordFailedAttempt(List<ProductCreateOutbox.Entry> entries) {
+    Map<Instant, List<ProductCreateOutbox.Entry>> entriesByRetry = new HashMap<>();
+    Instant now = Instant.now();
+    for (ProductCreateOutbox.Entry entry : entries) {
+      int attempts = entry.attempts() + 1;
+      if (attempts >= swodlrProperties.productCreateRelay().maxAttempts()) {
+        logger.error(
+            "Product {} failed to be relayed {} times, leaving it in the outbox as a dead letter",
+            entry.productId(), attempts
+        );
+      }
+
+      entriesByRetry
+          .computeIfAbsent(now.plus(backoff(attempts)), (retry) -> new ArrayList<>())
+          .add(entry);
+    }
+
+    for (var retryEntries : entriesByRetry.entrySet()) {
+      outbox.recordFailedAttempt(retryEntries.getValue(), retryEntries.getKey());
+    }
+  }
+
+  private static Duration backoff(int failures) {
+    Duration backoff = MIN_BACKOFF.multipliedBy(1L << Math.min(failures - 1, 16));
+    return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+  }
+}
@@ -1,8 +1,16 @@
 package gov.nasa.podaac.swodlr.queue;
 
 import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import reactor.core.publisher.Mono;
 
 public interface ProductCreateQueue {
-  public Mono<Void> queueProduct(L2RasterProduct product);
+  /*
+   * Returns the ids of the products which were queued. The queue may reject
+   * some products of a batch while accepting the rest; errors only when the
+   * request itself failed
+   */
+  public Mono<Set<UUID>> queueProducts(List<L2RasterProduct> products);
 }
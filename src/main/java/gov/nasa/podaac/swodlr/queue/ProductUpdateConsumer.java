@@ -0,0 +1,331 @@
+package gov.nasa.podaac.swodlr.queue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import gov.nasa.podaac.swodlr.SwodlrProperties;
+import gov.nasa.podaac.swodlr.granule.Granule;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductBatchRepository;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.status.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+/*
+ * Applies the product updates (status transitions and granules) which the
+ * SDS publishes to the product update topic, through the API's own queue
+ * subscribed to it. Messages are long-polled up to 10 at a time (the
+ * ReceiveMessage limit); the statuses and granules of a batch are written
+ * in one transaction with JDBC batching and the batch is then deleted with
+ * DeleteMessageBatch. A batch which fails to be applied is made visible
+ * again straight away, rather than after the queue's visibility timeout
+ *
+ * Delivery is at-least-once and unordered, so updates are applied as of
+ * when they were made: each status is stamped with its update's timestamp,
+ * and only becomes a product's current status if it's newer. Statuses get
+ * an id derived from their product, state and timestamp, and granules are
+ * unique per product and URI, so a redelivered update is only recorded once
+ *
+ * Batches are applied one at a time, and polling pauses while every
+ * database connection is in use, so that a backlog of updates can't starve
+ * requests of connections. Messages which can't be read, or which are for
+ * unknown products, are logged and dropped rather than redelivered
+ */
+@Component
+public class ProductUpdateConsumer implements SmartLifecycle {
+  private static final int MAX_MESSAGES = 10;
+  private static final int WAIT_TIME_SECONDS = 20;
+  private static final Duration SATURATED_BACKOFF = Duration.ofMillis(500);
+  private static final Duration ERROR_BACKOFF = Duration.ofSeconds(5);
+
+  private static final String UPDATES_METRIC = "swodlr.product.updates";
+  private static final String UPDATES_DESCRIPTION = "Product updates received, by result";
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final Counter appliedCounter;
+  private final Counter droppedCounter;
+
+  @Autowired
+  private SqsAsyncClient sqsAsyncClient;
+
+  @Autowired
+  private SwodlrProperties swodlrProperties;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private L2RasterProductBatchRepository l2RasterProductBatchRepository;
+
+  private volatile Disposable subscription;
+
+  public ProductUpdateConsumer(MeterRegistry meterRegistry) {
+    appliedCounter = Counter.builder(UPDATES_METRIC)
+        .description(UPDATES_DESCRIPTION)
+        .tag("result", "applied")
+        .register(meterRegistry);
+    droppedCounter = Counter.builder(UPDATES_METRIC)
+        .description(UPDATES_DESCRIPTION)
+        .tag("result", "dropped")
+        .register(meterRegistry);
+  }
+
+  /*
+   * Receives and applies the next batch of updates. Returns the number of
+   * messages handled, or completes empty without receiving anything if the
+   * database pool is saturated
+   */
+  public Mono<Integer> poll() {
+    return Mono.defer(() -> {
+      if (poolSaturated()) {
+        return Mono.empty();
+      }
+
+      return Mono.fromFuture(() -> sqsAsyncClient.receiveMessage((request) -> request
+              .queueUrl(swodlrProperties.productUpdateQueueUrl())
+              .maxNumberOfMessages(MAX_MESSAGES)
+              .waitTimeSeconds(WAIT_TIME_SECONDS)
+              .attributeNamesWithStrings(MessageSystemAttributeName.SENT_TIMESTAMP.toString())))
+          .flatMap((response) -> {
+            List<Message> messages = response.messages();
+            if (messages.isEmpty()) {
+              return Mono.just(0);
+            }
+
+            return Mono.fromRunnable(() -> apply(messages))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume((ex) -> release(messages).then(Mono.error(ex)))
+                .then(delete(messages))
+                .thenReturn(messages.size());
+          });
+    });
+  }
+
+  @Override
+  public void start() {
+    subscription = Mono.defer(this::poll)
+        .switchIfEmpty(Mono.delay(SATURATED_BACKOFF).then(Mono.empty()))
+        .onErrorResume((ex) -> {
+          logger.warn("Failed to consume product updates, retrying in {}", ERROR_BACKOFF, ex);
+          return Mono.delay(ERROR_BACKOFF).then(Mono.empty());
+        })
+        .repeat()
+        .subscribe();
+  }
+
+  @Override
+  public void stop() {
+    Disposable running = subscription;
+    if (running != null) {
+      running.dispose();
+      subscription = null;
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return subscription != null;
+  }
+
+  @Override
+  public boolean isAutoStartup() {
+    String queueUrl = swodlrProperties.productUpdateQueueUrl();
+    return swodlrProperties.productUpdateConsumer().autoStartup()
+        && queueUrl != null && !queueUrl.isBlank();
+  }
+
+  private void apply(List<Message> messages) {
+    List<ProductUpdateMessage> updates = new ArrayList<>(messages.size());
+    Set<UUID> productIds = new HashSet<>();
+
+    for (Message message : messages) {
+      ProductUpdateMessage update;
+      try {
+        update = objectMapper.readValue(message.body(), ProductUpdateMessage.class);
+      } catch (JsonProcessingException ex) {
+        logger.warn("Dropping unreadable product update: {}", message.messageId(), ex);
+        droppedCounter.increment();
+        continue;
+      }
+
+      if (update.productId() == null) {
+        logger.warn("Dropping product update without a product: {}", message.messageId());
+        droppedCounter.increment();
+        continue;
+      }
+
+      if (update.timestamp() == null) {
+        update = new ProductUpdateMessage(
+            update.productId(), update.status(), update.reason(), update.granules(), sent(message)
+        );
+      }
+
+      updates.add(update);
+      productIds.add(update.productId());
+    }
+
+    if (updates.isEmpty()) {
+      return;
+    }
+
+    Integer applied = transactionTemplate.execute((status) -> {
+      Map<UUID, L2RasterProduct> products = new HashMap<>();
+      for (L2RasterProduct product : l2RasterProductRepository.findAllById(productIds)) {
+        products.put(product.getId(), product);
+      }
+
+      List<Status> statuses = new ArrayList<>();
+      List<Granule> granules = new ArrayList<>();
+      int count = 0;
+
+      for (ProductUpdateMessage update : updates) {
+        L2RasterProduct product = products.get(update.productId());
+        if (product == null) {
+          logger.warn("Dropping update for unknown product: {}", update.productId());
+          continue;
+        }
+
+        if (update.status() != null) {
+          LocalDateTime timestamp = LocalDateTime.ofInstant(
+              update.timestamp(), ZoneId.systemDefault()
+          );
+          statuses.add(new Status(
+              statusId(update), product, timestamp, update.status(), update.reason()
+          ));
+        }
+        if (update.granules() != null) {
+          for (String uri : update.granules()) {
+            granules.add(new Granule(product, uri));
+          }
+        }
+        count++;
+      }
+
+      if (!statuses.isEmpty()) {
+        l2RasterProductBatchRepository.insertStatuses(statuses);
+      }
+      if (!granules.isEmpty()) {
+        l2RasterProductBatchRepository.insertGranules(granules);
+      }
+
+      return count;
+    });
+
+    appliedCounter.increment(applied);
+    droppedCounter.increment(updates.size() - applied);
+  }
+
+  /*
+   * When the message was sent to the queue, which is the same for each
+   * delivery of it
+   */
+  private Instant sent(Message message) {
+    String sentTimestamp = message.attributes().get(MessageSystemAttributeName.SENT_TIMESTAMP);
+    return sentTimestamp != null
+        ? Instant.ofEpochMilli(Long.parseLong(sentTimestamp))
+        : Instant.now();
+  }
+
+  private UUID statusId(ProductUpdateMessage update) {
+    String source = "%s:%s:%s".formatted(update.productId(), update.status(), update.timestamp());
+    return UUID.nameUUIDFromBytes(source.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /*
+   * Makes the messages visible again so that they're retried straight away
+   */
+  private Mono<Void> release(List<Message> messages) {
+    List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(messages.size());
+    for (int i = 0; i < messages.size(); i++) {
+      entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+          .id(Integer.toString(i))
+          .receiptHandle(messages.get(i).receiptHandle())
+          .visibilityTimeout(0)
+          .build());
+    }
+
+    return Mono.fromFuture(() -> sqsAsyncClient.changeMessageVisibilityBatch((request) -> request
+            .queueUrl(swodlrProperties.productUpdateQueueUrl())
+            .entries(entries)))
+        .onErrorResume((ex) -> {
+          logger.warn(
+              "Failed to release {} product update(s), they will be redelivered later",
+              messages.size(), ex
+          );
+          return Mono.empty();
+        })
+        .then();
+  }
+
+  private Mono<Void> delete(List<Message> messages) {
+    List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+    for (int i = 0; i < messages.size(); i++) {
+      entries.add(DeleteMessageBatchRequestEntry.builder()
+          .id(Integer.toString(i))
+          .receiptHandle(messages.get(i).receiptHandle())
+          .build());
+    }
+
+    return Mono.fromFuture(() -> sqsAsyncClient.deleteMessageBatch((request) -> request
+            .queueUrl(swodlrProperties.productUpdateQueueUrl())
+            .entries(entries)))
+        .doOnNext((response) -> {
+          if (!response.failed().isEmpty()) {
+            logger.warn(
+                "Failed to delete {} of {} product update(s), they will be redelivered: {}",
+                response.failed().size(), messages.size(), response.failed().get(0).message()
+            );
+          }
+        })
+        .then();
+  }
+
+  private boolean poolSaturated() {
+    if (!(dataSource instanceof HikariDataSource hikariDataSource)) {
+      return false;
+    }
+
+    HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+    return pool != null && (pool.getThreadsAwaitingConnection() > 0
+        || pool.getActiveConnections() >= hikariDataSource.getMaximumPoolSize());
+  }
+}
@@ -0,0 +1,21 @@
+package gov.nasa.podaac.swodlr.queue;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import gov.nasa.podaac.swodlr.status.State;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Update to a product published by the SDS to the product update topic.
+ * Either a status transition, the product's granules, or both. timestamp is
+ * when the SDS made the update; updates without one are taken to have been
+ * made when they were sent to the queue
+ */
+public record ProductUpdateMessage(
+    @JsonProperty("product_id") UUID productId,
+    State status,
+    String reason,
+    List<String> granules,
+    Instant timestamp
+) { }
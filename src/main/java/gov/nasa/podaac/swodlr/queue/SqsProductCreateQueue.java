@@ -2,33 +2,74 @@ package gov.nasa.podaac.swodlr.queue;
 
 import gov.nasa.podaac.swodlr.SwodlrProperties;
 import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import io.awspring.cloud.sqs.operations.SendBatchFailureHandlingStrategy;
+import io.awspring.cloud.sqs.operations.SendResult;
 import io.awspring.cloud.sqs.operations.SqsTemplate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 
 @Component
 public class SqsProductCreateQueue implements ProductCreateQueue {
+  /* SQS accepts at most 10 entries per SendMessageBatch request */
+  private static final int MAX_BATCH_SIZE = 10;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
   private final SqsTemplate productCreateQueue;
+  private final String queueUrl;
 
   public SqsProductCreateQueue(
       @Autowired SqsAsyncClient sqsAsyncClient,
       @Autowired SwodlrProperties swodlrProperties
   ) {
+    queueUrl = swodlrProperties.productCreateQueueUrl();
     productCreateQueue = SqsTemplate.builder()
         .sqsAsyncClient(sqsAsyncClient)
         .configure((options) -> {
-          options.defaultQueue(swodlrProperties.productCreateQueueUrl());
+          options.defaultQueue(queueUrl);
+          // Entries rejected by SQS are reported per product instead
+          options.sendBatchFailureHandlingStrategy(SendBatchFailureHandlingStrategy.DO_NOT_THROW);
         })
         .build();
   }
   
   @Override
-  public Mono<Void> queueProduct(L2RasterProduct product) {
-    return Mono.defer(() -> {
-      ProductCreateMessage message = new ProductCreateMessage(product);
-      return Mono.fromFuture(productCreateQueue.sendAsync(message)).then();
-    });
+  public Mono<Set<UUID>> queueProducts(List<L2RasterProduct> products) {
+    return Flux.fromIterable(products)
+        .map((product) -> MessageBuilder.withPayload(new ProductCreateMessage(product)).build())
+        .buffer(MAX_BATCH_SIZE)
+        .concatMap(this::sendBatch)
+        .collect(HashSet::new, Set::addAll);
+  }
+
+  private Mono<Set<UUID>> sendBatch(List<Message<ProductCreateMessage>> messages) {
+    return Mono.fromFuture(() -> productCreateQueue.sendManyAsync(queueUrl, messages))
+        .map((SendResult.Batch<ProductCreateMessage> result) -> {
+          if (!result.failed().isEmpty()) {
+            logger.warn(
+                "Failed to queue {} of {} products: {}",
+                result.failed().size(),
+                messages.size(),
+                result.failed().iterator().next().errorMessage()
+            );
+          }
+
+          Set<UUID> queued = new HashSet<>();
+          for (SendResult<ProductCreateMessage> sent : result.successful()) {
+            queued.add(sent.message().getPayload().productId());
+          }
+
+          return queued;
+        });
   }
 }
@@ -0,0 +1,61 @@
+package gov.nasa.podaac.swodlr.r2dbc;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import javax.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/*
+ * Connection pool for the R2DBC read path, configured with the standard
+ * spring.r2dbc.* properties. All writes still go through JPA/JDBC
+ *
+ * The pool is deliberately not registered as a ConnectionFactory bean, as
+ * Spring Boot backs off its DataSource (and so JPA) configuration when one
+ * is present. For the same reason Boot's R2DBC auto-configuration is
+ * excluded in SwodlrApp
+ */
+@Configuration
+@ConditionalOnProperty(name = "swodlr.read-path", havingValue = "r2dbc")
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class R2dbcConfiguration {
+  private ConnectionPool connectionPool;
+
+  @Bean
+  public DatabaseClient databaseClient(R2dbcProperties properties) {
+    ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions
+        .parse(properties.getUrl())
+        .mutate();
+
+    if (properties.getUsername() != null) {
+      options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+    }
+    if (properties.getPassword() != null) {
+      options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+    }
+
+    R2dbcProperties.Pool pool = properties.getPool();
+    ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration
+        .builder(ConnectionFactories.get(options.build()))
+        .initialSize(pool.getInitialSize())
+        .maxSize(pool.getMaxSize())
+        .maxIdleTime(pool.getMaxIdleTime())
+        .build();
+
+    connectionPool = new ConnectionPool(configuration);
+    return DatabaseClient.create(connectionPool);
+  }
+
+  @PreDestroy
+  public void closeConnectionPool() {
+    if (connectionPool != null) {
+      connectionPool.dispose();
+    }
+  }
+}
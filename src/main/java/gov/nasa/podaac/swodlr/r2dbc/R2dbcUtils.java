@@ -0,0 +1,23 @@
+package gov.nasa.podaac.swodlr.r2dbc;
+
+import io.r2dbc.spi.Row;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+public final class R2dbcUtils {
+  private R2dbcUtils() { }
+
+  /*
+   * Reads a "timestamp with time zone" column as a LocalDateTime in the
+   * system time zone, matching how JPA maps these columns
+   */
+  public static LocalDateTime getLocalDateTime(Row row, String column) {
+    OffsetDateTime value = row.get(column, OffsetDateTime.class);
+    if (value == null) {
+      return null;
+    }
+
+    return value.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+  }
+}
@@ -1,6 +1,7 @@
 package gov.nasa.podaac.swodlr.rasterdefinition;
 
 import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import gov.nasa.podaac.swodlr.fetcher.BlockingFetcherExecutor;
 import gov.nasa.podaac.swodlr.user.User;
 import gov.nasa.podaac.swodlr.user.UserReference;
 import java.util.List;
@@ -15,6 +16,9 @@ import reactor.core.publisher.Mono;
 
 @Controller
 public class RasterDefinitionController {
+  @Autowired
+  BlockingFetcherExecutor blockingFetcherExecutor;
+
   @Autowired
   RasterDefinitionRepository rasterDefinitionRepository;
 
@@ -28,7 +32,7 @@ public class RasterDefinitionController {
       @Argument Integer utmZoneAdjust,
       @Argument Integer mgrsBandAdjust
   ) {
-    return Mono.fromCallable(() -> {
+    return blockingFetcherExecutor.fromCallable(() -> {
       User user = userRef.fetch();
       return rasterDefinitionRepository.findByParameter(
         user, id, outputGranuleExtentFlag, outputSamplingGridType,
@@ -39,7 +43,7 @@ public class RasterDefinitionController {
 
   @MutationMapping
   Mono<Boolean> deleteRasterDefinition(@ContextValue UserReference userRef, @Argument UUID id) {
-    return Mono.fromCallable(() -> {
+    return blockingFetcherExecutor.fromCallable(() -> {
       User user = userRef.fetch();
       var result = rasterDefinitionRepository.findOneByUserAndId(user, id);
       if (result.isEmpty()) {
@@ -61,7 +65,7 @@ public class RasterDefinitionController {
       @Argument Integer utmZoneAdjust,
       @Argument Integer mgrsBandAdjust
   ) {
-    return Mono.fromCallable(() -> {
+    return blockingFetcherExecutor.fromCallable(() -> {
       User user = userRef.fetch();
       RasterDefinition definition = new RasterDefinition(
           user,
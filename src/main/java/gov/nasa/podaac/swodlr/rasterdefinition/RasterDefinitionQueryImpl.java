@@ -1,5 +1,6 @@
 package gov.nasa.podaac.swodlr.rasterdefinition;
 
+import gov.nasa.podaac.swodlr.sql.ShapedStatement;
 import gov.nasa.podaac.swodlr.user.User;
 import java.util.List;
 import java.util.UUID;
@@ -13,10 +14,21 @@ import org.hibernate.type.StringType;
 import org.hibernate.type.UUIDCharType;
 
 public class RasterDefinitionQueryImpl implements RasterDefinitionQuery {
+  public static final ShapedStatement FIND_BY_PARAMETER = ShapedStatement
+      .builder("SELECT * FROM \"RasterDefinitions\"")
+      .where("\"userId\" = CAST(:userId as UUID)")
+      .optional("\"id\" = CAST(:id as UUID)")
+      .optional("\"outputGranuleExtentFlag\" = :outputGranuleExtentFlag")
+      .optional("\"outputSamplingGridType\" = :outputSamplingGridType")
+      .optional("\"rasterResolution\" = :rasterResolution")
+      .optional("\"utmZoneAdjust\" = :utmZoneAdjust")
+      .optional("\"mgrsBandAdjust\" = :mgrsBandAdjust")
+      .suffix("ORDER BY id")
+      .build();
+
   @PersistenceContext
   private EntityManager entityManager;
 
-
   /*
    * This implementation is utilized to workaround an JPA issue with the
    * PostgreSQL dialect in Hibernate where Hibernate does not parameterize
@@ -53,31 +65,21 @@ public class RasterDefinitionQueryImpl implements RasterDefinitionQuery {
       Integer utmZoneAdjust,
       Integer mgrsBandAdjust
   ) {
-    @SuppressWarnings("LineLength")
-    String statement =
-        """
-        SELECT * FROM \"RasterDefinitions\" WHERE
-        (\"userId\" = CAST(:userId as UUID)) AND
-        (:id is NULL OR \"id\" = CAST(:id as UUID)) AND
-        (:outputGranuleExtentFlag is NULL OR \"outputGranuleExtentFlag\" = :outputGranuleExtentFlag) AND
-        (:outputSamplingGridType is NULL OR \"outputSamplingGridType\" = :outputSamplingGridType) AND
-        (:rasterResolution is NULL OR \"rasterResolution\" = :rasterResolution) AND
-        (:utmZoneAdjust is NULL OR \"utmZoneAdjust\" = :utmZoneAdjust) AND
-        (:mgrsBandAdjust is NULL OR \"mgrsBandAdjust\" = :mgrsBandAdjust)
-        ORDER BY id
-        """;
-    
+    ShapedStatement.Bound statement = FIND_BY_PARAMETER.bind(new ShapedStatement.Parameters()
+        .set("userId", user.getId(), UUIDCharType.INSTANCE)
+        .set("id", id, UUIDCharType.INSTANCE)
+        .set("outputGranuleExtentFlag", outputGranuleExtentFlag, BooleanType.INSTANCE)
+        .set("outputSamplingGridType", outputSamplingGridType != null
+            ? outputSamplingGridType.toString() : null, StringType.INSTANCE)
+        .set("rasterResolution", rasterResolution, IntegerType.INSTANCE)
+        .set("utmZoneAdjust", utmZoneAdjust, IntegerType.INSTANCE)
+        .set("mgrsBandAdjust", mgrsBandAdjust, IntegerType.INSTANCE)
+    );
+
     Session session = entityManager.unwrap(Session.class);
-    Query<RasterDefinition> query = session.createNativeQuery(statement, RasterDefinition.class);
-    query.setParameter("userId", user.getId(), UUIDCharType.INSTANCE);
-    query.setParameter("id", id, UUIDCharType.INSTANCE);
-    query.setParameter("outputGranuleExtentFlag", outputGranuleExtentFlag, BooleanType.INSTANCE);
-    query.setParameter("outputSamplingGridType", outputSamplingGridType != null
-        ? outputSamplingGridType.toString() : null, StringType.INSTANCE);
-    query.setParameter("rasterResolution", rasterResolution, IntegerType.INSTANCE);
-    query.setParameter("utmZoneAdjust", utmZoneAdjust, IntegerType.INSTANCE);
-    query.setParameter("mgrsBandAdjust", mgrsBandAdjust, IntegerType.INSTANCE);
+    Query<RasterDefinition> query = session.createNativeQuery(
+        statement.sql(), RasterDefinition.class);
 
-    return query.getResultList();
+    return statement.applyTo(query).getResultList();
   }
 }
@@ -0,0 +1,9 @@
+package gov.nasa.podaac.swodlr.scene;
+
+import java.util.List;
+
+/*
+ * Whether every input tile of a scene is available, along with the ids of
+ * those which aren't
+ */
+public record SceneAvailability(int scene, boolean available, List<String> missingTiles) { }
@@ -0,0 +1,150 @@
+package gov.nasa.podaac.swodlr.scene;
+
+import gov.nasa.podaac.swodlr.SwodlrProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/*
+ * Caches scene availability lookups. Tiles are never removed from the
+ * available tiles table, so available scenes are cached without expiry;
+ * unavailable scenes are cached for swodlr.scene-cache.unavailable-ttl, as
+ * their tiles may still be ingested. Each map is cleared once it reaches
+ * swodlr.scene-cache.max-size entries, which only bounds memory
+ *
+ * Concurrent lookups of a scene which isn't cached share a single lookup,
+ * as in ProductRequestCoalescer. Lookups which fail aren't cached
+ */
+@Component
+public class SceneAvailabilityCache {
+  private static final String LOOKUPS_METRIC = "swodlr.scene.cache.lookups";
+  private static final String LOOKUPS_DESCRIPTION
+      = "Scene availability lookups, by whether they were cached, joined an in-flight lookup or "
+      + "missed";
+
+  private final Set<Key> available = ConcurrentHashMap.newKeySet();
+  private final Map<Key, Long> unavailableUntil = new ConcurrentHashMap<>();
+  private final Map<Key, Mono<Boolean>> inFlight = new ConcurrentHashMap<>();
+  private final int maxSize;
+  private final long unavailableTtlNanos;
+
+  private final Counter hitCounter;
+  private final Counter coalescedCounter;
+  private final Counter missCounter;
+
+  public SceneAvailabilityCache(
+      MeterRegistry meterRegistry,
+      SwodlrProperties swodlrProperties
+  ) {
+    maxSize = swodlrProperties.sceneCache().maxSize();
+    unavailableTtlNanos = swodlrProperties.sceneCache().unavailableTtl().toNanos();
+
+    hitCounter = lookupCounter(meterRegistry, "hit");
+    coalescedCounter = lookupCounter(meterRegistry, "coalesced");
+    missCounter = lookupCounter(meterRegistry, "miss");
+
+    meterRegistry.gauge(
+        "swodlr.scene.cache.size", Tags.of("available", "true"), available, Set::size
+    );
+    meterRegistry.gauge(
+        "swodlr.scene.cache.size", Tags.of("available", "false"), unavailableUntil, Map::size
+    );
+  }
+
+  /*
+   * Returns the cached availability of the scene, or the result of the
+   * lookup, which is run at most once at a time per scene
+   */
+  public Mono<Boolean> get(int cycle, int pass, int scene, Supplier<Mono<Boolean>> lookup) {
+    return Mono.defer(() -> {
+      Key key = new Key(cycle, pass, scene);
+      Boolean cached = cached(key);
+      if (cached != null) {
+        hitCounter.increment();
+        return Mono.just(cached);
+      }
+
+      AtomicReference<Mono<Boolean>> created = new AtomicReference<>();
+      Mono<Boolean> flight = inFlight.computeIfAbsent(key, (k) -> {
+        Mono<Boolean> newFlight = Mono.defer(lookup)
+            .doOnNext((exists) -> put(k, exists))
+            .doFinally((signal) -> inFlight.remove(k, created.get()))
+            .cache();
+
+        created.set(newFlight);
+        return newFlight;
+      });
+
+      if (flight == created.get()) {
+        missCounter.increment();
+      } else {
+        coalescedCounter.increment();
+      }
+
+      return flight;
+    });
+  }
+
+  /*
+   * Whether the scene is cached as available, without counting a lookup
+   */
+  public boolean isAvailable(int cycle, int pass, int scene) {
+    return available.contains(new Key(cycle, pass, scene));
+  }
+
+  /*
+   * Records the availability of a scene looked up outside of get
+   */
+  public void put(int cycle, int pass, int scene, boolean exists) {
+    put(new Key(cycle, pass, scene), exists);
+  }
+
+  private void put(Key key, boolean exists) {
+    if (exists) {
+      if (available.size() >= maxSize) {
+        available.clear();
+      }
+      available.add(key);
+      unavailableUntil.remove(key);
+    } else {
+      if (unavailableUntil.size() >= maxSize) {
+        unavailableUntil.clear();
+      }
+      unavailableUntil.put(key, System.nanoTime() + unavailableTtlNanos);
+    }
+  }
+
+  private Boolean cached(Key key) {
+    if (available.contains(key)) {
+      return true;
+    }
+
+    Long until = unavailableUntil.get(key);
+    if (until == null) {
+      return null;
+    }
+
+    if (System.nanoTime() - until > 0) {
+      unavailableUntil.remove(key, until);
+      return null;
+    }
+
+    return false;
+  }
+
+  private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder(LOOKUPS_METRIC)
+        .description(LOOKUPS_DESCRIPTION)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private record Key(int cycle, int pass, int scene) { }
+}
@@ -0,0 +1,109 @@
+package gov.nasa.podaac.swodlr.scene;
+
+import gov.nasa.podaac.swodlr.SwodlrProperties;
+import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import gov.nasa.podaac.swodlr.exception.SwodlrUnavailableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/*
+ * Serves the availability of every scene of a pass, or of every pass of a
+ * cycle, as base64 bitsets for map rendering, e.g.
+ *
+ *    GET /scenes/availability?cycle=10&pass=20
+ *    GET /scenes/availability?cycle=10
+ *
+ * Each bitset covers scenes 1 to swodlr.scene-availability.scenes-per-pass
+ * in (scenes-per-pass + 7) / 8 bytes, bit i of byte j (least significant
+ * first) being scene 8j + i + 1. Cycle responses leave out passes without
+ * an available scene. Responses are the same for every user, so they're
+ * publicly cacheable for swodlr.scene-availability.max-age with a strong
+ * ETag of their content; requests with a matching If-None-Match get a 304
+ *
+ * Invalid requests get a 400. When DynamoDB throttles lookups beyond their
+ * retries the response is a 503 with a Retry-After
+ */
+@RestController
+public class SceneAvailabilityController {
+  @Autowired
+  private SceneLookupService sceneLookupService;
+
+  @Autowired
+  private SwodlrProperties swodlrProperties;
+
+  public record PassAvailability(int pass, String scenes) { }
+
+  public record CycleAvailability(int cycle, int scenesPerPass, List<PassAvailability> passes) { }
+
+  @GetMapping("/scenes/availability")
+  public Mono<ResponseEntity<CycleAvailability>> getAvailability(
+      @RequestParam int cycle,
+      @RequestParam(required = false) Integer pass
+  ) {
+    final SwodlrProperties.SceneAvailability sceneAvailability =
+        swodlrProperties.sceneAvailability();
+    final int scenesPerPass = sceneAvailability.scenesPerPass();
+    if (cycle < 0) {
+      throw new SwodlrException("Invalid `cycle` parameter");
+    }
+    if (pass != null && (pass < 1 || pass > sceneAvailability.passesPerCycle())) {
+      throw new SwodlrException("Invalid `pass` parameter");
+    }
+
+    Mono<SortedMap<Integer, BitSet>> bitsets = pass != null
+        ? sceneLookupService
+            .passAvailability(cycle, pass, scenesPerPass)
+            .map((scenes) -> new TreeMap<>(Map.of(pass, scenes)))
+        : sceneLookupService.cycleAvailability(cycle, scenesPerPass);
+
+    return bitsets.map((passes) -> {
+      List<PassAvailability> passAvailability = new ArrayList<>(passes.size());
+      StringBuilder content = new StringBuilder("%d:%d".formatted(cycle, scenesPerPass));
+      for (var passScenes : passes.entrySet()) {
+        String scenes = Base64.getEncoder().encodeToString(
+            Arrays.copyOf(passScenes.getValue().toByteArray(), (scenesPerPass + 7) / 8)
+        );
+        passAvailability.add(new PassAvailability(passScenes.getKey(), scenes));
+        content.append(';').append(passScenes.getKey()).append(':').append(scenes);
+      }
+
+      return ResponseEntity.ok()
+          .cacheControl(CacheControl.maxAge(sceneAvailability.maxAge()).cachePublic())
+          .eTag(DigestUtils.sha256Hex(content.toString()))
+          .body(new CycleAvailability(cycle, scenesPerPass, passAvailability));
+    });
+  }
+
+  @ExceptionHandler(SwodlrException.class)
+  public ResponseEntity<Map<String, String>> handleSwodlrException(SwodlrException ex) {
+    return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+  }
+
+  /* Lookups throttled beyond their retries are worth retrying later */
+  @ExceptionHandler(SwodlrUnavailableException.class)
+  public ResponseEntity<Map<String, String>> handleSwodlrUnavailableException(
+      SwodlrUnavailableException ex
+  ) {
+    long retryAfter = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+        .body(Map.of("error", ex.getMessage()));
+  }
+}
@@ -0,0 +1,27 @@
+package gov.nasa.podaac.swodlr.scene;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.regions.providers.AwsRegionProvider;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
+@Configuration
+public class SceneLookupConfiguration {
+  /*
+   * Client for the available tiles table. Tests provide an in-memory
+   * stand-in instead
+   */
+  @Bean
+  @Profile("!test")
+  public DynamoDbAsyncClient dynamoDbAsyncClient(
+      AwsCredentialsProvider credentialsProvider,
+      AwsRegionProvider awsRegionProvider
+  ) {
+    return DynamoDbAsyncClient.builder()
+        .credentialsProvider(credentialsProvider)
+        .region(awsRegionProvider.getRegion())
+        .build();
+  }
+}
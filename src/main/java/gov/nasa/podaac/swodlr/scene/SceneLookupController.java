@@ -1,5 +1,6 @@
 package gov.nasa.podaac.swodlr.scene;
 
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
@@ -19,4 +20,13 @@ public class SceneLookupController {
   ) {
     return sceneLookupService.sceneExists(cycle, pass, scene);
   }
+
+  @QueryMapping
+  public Mono<List<SceneAvailability>> availableScenes(
+      @Argument int cycle,
+      @Argument int pass,
+      @Argument List<Integer> scenes
+  ) {
+    return sceneLookupService.scenesAvailability(cycle, pass, scenes);
+  }
 }
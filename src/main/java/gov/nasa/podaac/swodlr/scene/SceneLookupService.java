@@ -1,89 +1,300 @@
 package gov.nasa.podaac.swodlr.scene;
 
 import gov.nasa.podaac.swodlr.SwodlrProperties;
+import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import gov.nasa.podaac.swodlr.exception.SwodlrUnavailableException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
-import software.amazon.awssdk.regions.providers.AwsRegionProvider;
 import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
 
+/*
+ * Looks up whether the input tiles of scenes are in the available tiles
+ * table. Tile keys are requested at most 100 (DynamoDB's limit) to a
+ * BatchGetItem, swodlr.scene-lookup.concurrency at a time, reading only
+ * tile_id. Keys DynamoDB leaves unprocessed, as it does when throttled,
+ * are retried with full-jitter exponential backoff; once
+ * swodlr.scene-lookup.max-attempts is reached the lookup fails with a
+ * SwodlrUnavailableException rather than reporting the scene as unavailable
+ *
+ * When swodlr.scene-lookup.mode is "bitmap", scenes are instead looked up
+ * in the TileIndex kept by TileIndexLoader once it has been loaded
+ */
 @Service
 public class SceneLookupService {
+  private static final int MAX_KEYS_PER_BATCH = 100;
+  private static final String TILE_ID = "tile_id";
+
   private final Logger logger = LoggerFactory.getLogger(getClass());
-  private final DynamoDbAsyncClient dynamoDbClient;
-  private final SwodlrProperties swodlrProperties;
 
-  public SceneLookupService(
-      AwsCredentialsProvider credentialsProvider,
-      AwsRegionProvider awsRegionProvider,
-      SwodlrProperties swodlrProperties
+  @Autowired
+  private DynamoDbAsyncClient dynamoDbClient;
+
+  @Autowired
+  private SwodlrProperties swodlrProperties;
+
+  @Autowired
+  private SceneAvailabilityCache sceneAvailabilityCache;
+
+  @Autowired(required = false)
+  private TileIndexLoader tileIndexLoader;
+
+  public Mono<Boolean> sceneExists(int cycle, int pass, int scene) {
+    TileIndex index = tileIndex();
+    if (index != null) {
+      return Mono.just(index.containsScene(cycle, pass, scene));
+    }
+
+    return sceneAvailabilityCache.get(cycle, pass, scene, () -> {
+      List<String> tiles = generateTileList(cycle, pass, scene);
+      return findTiles(tiles).map((found) -> found.size() == tiles.size());
+    });
+  }
+
+  /*
+   * Returns the availability of each of the scenes, in the order given.
+   * Neighbouring scenes share tiles, so each tile is only requested once.
+   * Scenes cached as available aren't looked up again
+   */
+  public Mono<List<SceneAvailability>> scenesAvailability(
+      int cycle,
+      int pass,
+      List<Integer> scenes
   ) {
-    dynamoDbClient = DynamoDbAsyncClient.builder()
-      .credentialsProvider(credentialsProvider)
-      .region(awsRegionProvider.getRegion())
-      .build();
+    int maxScenes = swodlrProperties.sceneLookup().maxScenes();
+    if (scenes.size() > maxScenes) {
+      return Mono.error(new SwodlrException(
+          "At most %d scenes can be looked up at once".formatted(maxScenes)
+      ));
+    }
+
+    TileIndex index = tileIndex();
+    if (index != null) {
+      return Mono.just(scenesAvailabilityFromIndex(index, cycle, pass, scenes));
+    }
 
-    this.swodlrProperties = swodlrProperties;
+    return lookupScenes(cycle, pass, scenes);
   }
 
-  public Mono<Boolean> sceneExists(int cycle, int pass, int scene) {
-    return Mono
-      .fromFuture(() -> {
-        List<String> tiles = generateTileList(cycle, pass, scene);
-        List<Map<String, AttributeValue>> keys = new ArrayList<>(8);
+  /*
+   * Returns the availability of scenes 1 to lastScene of a pass, bit i
+   * being scene i + 1
+   */
+  public Mono<BitSet> passAvailability(int cycle, int pass, int lastScene) {
+    TileIndex index = tileIndex();
+    if (index != null) {
+      return Mono.just(index.scenes(cycle, pass, lastScene));
+    }
+
+    List<Integer> scenes = new ArrayList<>(lastScene);
+    for (int scene = 1; scene <= lastScene; scene++) {
+      scenes.add(scene);
+    }
 
-        for (String tile : tiles) {
-          keys.add(Map.of("tile_id", AttributeValue.fromS(tile)));
+    return lookupScenes(cycle, pass, scenes).map((availability) -> {
+      BitSet available = new BitSet(lastScene);
+      for (SceneAvailability sceneAvailability : availability) {
+        if (sceneAvailability.available()) {
+          available.set(sceneAvailability.scene() - 1);
         }
+      }
 
-        KeysAndAttributes keyAndAttrs = KeysAndAttributes.builder()
-            .keys(keys)
-            .build();
+      return available;
+    });
+  }
 
-        return dynamoDbClient.batchGetItem((request) -> {
-          request.requestItems(Map.of(
-              swodlrProperties.availableTilesTableName(),
-              keyAndAttrs
-          ));
-        });
-      })
-      .flatMap((batchResponse) -> {
-        if (batchResponse.hasUnprocessedKeys() && !batchResponse.unprocessedKeys().isEmpty()) {
-          logger.debug("Unprocessed keys found");
-          return Mono.just(false);
-        }
+  /*
+   * Returns passAvailability for every pass of the cycle with any
+   * available scene, by pass. Only the tile index can answer this without
+   * thousands of DynamoDB requests, so other modes fail
+   */
+  public Mono<SortedMap<Integer, BitSet>> cycleAvailability(int cycle, int lastScene) {
+    TileIndex index = tileIndex();
+    if (index == null) {
+      return Mono.error(new SwodlrException(
+          "Availability of a whole cycle isn't available, please specify a pass"
+      ));
+    }
 
-        List<Map<String, AttributeValue>> responses = batchResponse
-            .responses()
-            .get(swodlrProperties.availableTilesTableName());
+    SortedMap<Integer, BitSet> passes = new TreeMap<>();
+    for (int pass : index.passes(cycle)) {
+      BitSet scenes = index.scenes(cycle, pass, lastScene);
+      if (!scenes.isEmpty()) {
+        passes.put(pass, scenes);
+      }
+    }
 
-        logger.debug("Responses size: {}", responses.size());
-        return Mono.just(responses.size() == 16);
-      });
+    return Mono.just(passes);
   }
 
-  private List<String> generateTileList(int cycle, int pass, int scene) {
-    final char[] directions = {'L', 'R'};
-    final String[] products = {"PIXC", "PIXCVec"};
+  private Mono<List<SceneAvailability>> lookupScenes(
+      int cycle,
+      int pass,
+      List<Integer> scenes
+  ) {
+    Map<Integer, List<String>> tilesByScene = new LinkedHashMap<>();
+    Set<String> lookup = new LinkedHashSet<>();
+    for (int scene : scenes) {
+      if (!tilesByScene.containsKey(scene)
+          && !sceneAvailabilityCache.isAvailable(cycle, pass, scene)) {
+        List<String> tiles = generateTileList(cycle, pass, scene);
+        tilesByScene.put(scene, tiles);
+        lookup.addAll(tiles);
+      }
+    }
 
-    List<String> tiles = new ArrayList<>(8);
+    return findTiles(lookup).map((found) -> {
+      Map<Integer, SceneAvailability> availability = new LinkedHashMap<>();
+      for (var sceneTiles : tilesByScene.entrySet()) {
+        List<String> missing = new ArrayList<>();
+        for (String tile : sceneTiles.getValue()) {
+          if (!found.contains(tile)) {
+            missing.add(tile);
+          }
+        }
+
+        int scene = sceneTiles.getKey();
+        sceneAvailabilityCache.put(cycle, pass, scene, missing.isEmpty());
+        availability.put(scene, new SceneAvailability(scene, missing.isEmpty(), missing));
+      }
+
+      List<SceneAvailability> results = new ArrayList<>(scenes.size());
+      for (int scene : scenes) {
+        results.add(availability.getOrDefault(
+            scene, new SceneAvailability(scene, true, List.of())
+        ));
+      }
+
+      return results;
+    });
+  }
+
+  private List<SceneAvailability> scenesAvailabilityFromIndex(
+      TileIndex index,
+      int cycle,
+      int pass,
+      List<Integer> scenes
+  ) {
+    List<SceneAvailability> results = new ArrayList<>(scenes.size());
+    for (int scene : scenes) {
+      if (index.containsScene(cycle, pass, scene)) {
+        results.add(new SceneAvailability(scene, true, List.of()));
+        continue;
+      }
 
-    for (String product : products) {
-      for (int tile = (scene * 2) - 2; tile <= (scene * 2) + 1; tile++) {
-        for (char direction : directions) {
-          String cpsString = "%s,%d,%d,%d%c".formatted(product, cycle, pass, tile, direction);
-          tiles.add(cpsString);
+      List<String> missing = new ArrayList<>();
+      for (String tile : TileIndex.sceneTiles(cycle, pass, scene)) {
+        if (!index.containsTile(tile)) {
+          missing.add(tile);
         }
       }
+      results.add(new SceneAvailability(scene, false, missing));
     }
 
+    return results;
+  }
+
+  private TileIndex tileIndex() {
+    return tileIndexLoader != null ? tileIndexLoader.current() : null;
+  }
+
+  /*
+   * Returns which of the tiles are in the available tiles table
+   */
+  private Mono<Set<String>> findTiles(Collection<String> tiles) {
+    List<List<Map<String, AttributeValue>>> batches = new ArrayList<>();
+    List<Map<String, AttributeValue>> batch = new ArrayList<>(MAX_KEYS_PER_BATCH);
+    for (String tile : tiles) {
+      if (batch.size() == MAX_KEYS_PER_BATCH) {
+        batches.add(batch);
+        batch = new ArrayList<>(MAX_KEYS_PER_BATCH);
+      }
+      batch.add(Map.of(TILE_ID, AttributeValue.fromS(tile)));
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch);
+    }
+
+    return Flux.fromIterable(batches)
+        .flatMap((keys) -> getTiles(keys, 1), swodlrProperties.sceneLookup().concurrency())
+        .collect(HashSet::new, Set::addAll);
+  }
+
+  private Mono<List<String>> getTiles(List<Map<String, AttributeValue>> keys, int attempt) {
+    String tableName = swodlrProperties.availableTilesTableName();
+    SwodlrProperties.SceneLookup sceneLookup = swodlrProperties.sceneLookup();
+    KeysAndAttributes keysAndAttributes = KeysAndAttributes.builder()
+        .keys(keys)
+        .projectionExpression(TILE_ID)
+        .build();
+
+    return Mono
+        .fromFuture(() -> dynamoDbClient.batchGetItem((request) -> {
+          request.requestItems(Map.of(tableName, keysAndAttributes));
+        }))
+        .flatMap((batchResponse) -> {
+          List<String> found = new ArrayList<>();
+          for (var item : batchResponse.responses().getOrDefault(tableName, List.of())) {
+            found.add(item.get(TILE_ID).s());
+          }
+
+          KeysAndAttributes unprocessed = batchResponse.unprocessedKeys().get(tableName);
+          if (unprocessed == null || unprocessed.keys().isEmpty()) {
+            return Mono.just(found);
+          }
+
+          if (attempt >= sceneLookup.maxAttempts()) {
+            logger.warn("{} tile key(s) still unprocessed after {} attempts",
+                unprocessed.keys().size(), attempt);
+            return Mono.error(new SwodlrUnavailableException(
+                "Scene availability is temporarily unavailable, please try again later",
+                sceneLookup.maxBackoff()
+            ));
+          }
+
+          logger.debug("Retrying {} unprocessed tile key(s)", unprocessed.keys().size());
+          return Mono.delay(backoff(attempt))
+              .then(getTiles(unprocessed.keys(), attempt + 1))
+              .map((retried) -> {
+                found.addAll(retried);
+                return found;
+              });
+        });
+  }
+
+  /*
+   * A random delay of up to the base backoff * 2^(attempt - 1), capped at
+   * the max backoff
+   */
+  private Duration backoff(int attempt) {
+    SwodlrProperties.SceneLookup sceneLookup = swodlrProperties.sceneLookup();
+    long ceiling = Math.min(
+        sceneLookup.maxBackoff().toNanos(),
+        sceneLookup.baseBackoff().toNanos() << Math.min(attempt - 1, 20)
+    );
+    return Duration.ofNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+  }
+
+  private List<String> generateTileList(int cycle, int pass, int scene) {
+    List<String> tiles = List.of(TileIndex.sceneTiles(cycle, pass, scene));
     logger.debug("Generated tile list: {}", tiles.toString());
     return tiles;
   }
@@ -0,0 +1,245 @@
+package gov.nasa.podaac.swodlr.scene;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * An immutable bitmap of available tiles. Each pass of a cycle with any
+ * available tile has its own array of bits, only as long as its highest
+ * tile needs, with four bits per tile: PIXC and PIXCVec, on the left and
+ * right sides. A scene's input tiles are consecutive, so its 16 bits are
+ * too, and checking a scene takes a single mask over at most two words
+ *
+ * Tile ids are those of the available tiles table, e.g. "PIXC,1,2,3L";
+ * cycles must be below 32768 and passes below 65536
+ */
+public final class TileIndex {
+  private static final String[] PRODUCTS = {"PIXC", "PIXCVec"};
+  private static final char[] SIDES = {'L', 'R'};
+  private static final int BITS_PER_TILE = PRODUCTS.length * SIDES.length;
+  private static final int BITS_PER_SCENE = BITS_PER_TILE * 4;
+  private static final long SCENE_MASK = (1L << BITS_PER_SCENE) - 1;
+  private static final int MAX_CYCLE = 0x7FFF;
+  private static final int MAX_PASS = 0xFFFF;
+
+  private final Map<Integer, long[]> passes;
+  private final long tiles;
+
+  private TileIndex(Map<Integer, long[]> passes, long tiles) {
+    this.passes = passes;
+    this.tiles = tiles;
+  }
+
+  public boolean containsScene(int cycle, int pass, int scene) {
+    long[] bits = passes.get(passKey(cycle, pass));
+    if (bits == null || scene < 1) {
+      return false;
+    }
+
+    int first = (scene - 1) * BITS_PER_SCENE / 2;
+    int word = first >>> 6;
+    int offset = first & 63;
+    if (word >= bits.length) {
+      return false;
+    }
+
+    long sceneBits = bits[word] >>> offset;
+    if (offset > 64 - BITS_PER_SCENE) {
+      sceneBits |= word + 1 < bits.length ? bits[word + 1] << (64 - offset) : 0;
+    }
+
+    return (sceneBits & SCENE_MASK) == SCENE_MASK;
+  }
+
+  /*
+   * The availability of scenes 1 to the given scene of a pass, bit i being
+   * scene i + 1
+   */
+  public BitSet scenes(int cycle, int pass, int lastScene) {
+    BitSet scenes = new BitSet(lastScene);
+    for (int scene = 1; scene <= lastScene; scene++) {
+      if (containsScene(cycle, pass, scene)) {
+        scenes.set(scene - 1);
+      }
+    }
+
+    return scenes;
+  }
+
+  /*
+   * The passes of the cycle with any available tile, in order
+   */
+  public int[] passes(int cycle) {
+    return passes.keySet().stream()
+        .filter((key) -> key >>> 16 == cycle)
+        .mapToInt((key) -> key & 0xFFFF)
+        .sorted()
+        .toArray();
+  }
+
+  public boolean containsTile(String tileId) {
+    int bit = bit(tileId);
+    if (bit < 0) {
+      return false;
+    }
+
+    long[] bits = passes.get(passKey(tileId));
+    int word = bit >>> 6;
+    return bits != null && word < bits.length && (bits[word] & (1L << bit)) != 0;
+  }
+
+  /*
+   * The number of tiles in the index
+   */
+  public long tiles() {
+    return tiles;
+  }
+
+  /*
+   * An estimate of the heap used by the index, in bytes
+   */
+  public long sizeInBytes() {
+    // HashMap node, boxed key and array header per pass, along with a table slot
+    long bytes = 16 + (passes.size() * 2L * 4);
+    for (long[] bits : passes.values()) {
+      bytes += 32 + 16 + 16 + (bits.length * 8L);
+    }
+
+    return bytes;
+  }
+
+  /*
+   * Returns the ids of the scene's input tiles, in the order DynamoDB
+   * lookups request them
+   */
+  public static String[] sceneTiles(int cycle, int pass, int scene) {
+    String[] tileIds = new String[BITS_PER_SCENE];
+    int i = 0;
+    for (String product : PRODUCTS) {
+      for (int tile = (scene * 2) - 2; tile <= (scene * 2) + 1; tile++) {
+        for (char side : SIDES) {
+          tileIds[i++] = "%s,%d,%d,%d%c".formatted(product, cycle, pass, tile, side);
+        }
+      }
+    }
+
+    return tileIds;
+  }
+
+  /*
+   * Collects tile ids into an index. Not thread-safe
+   */
+  public static class Builder {
+    private final Map<Integer, long[]> passes = new HashMap<>();
+    private long tiles;
+    private long rejected;
+
+    /*
+     * Adds the tile, returning false if its id couldn't be parsed
+     */
+    public boolean add(String tileId) {
+      int bit = bit(tileId);
+      int key = bit >= 0 ? passKey(tileId) : -1;
+      if (key < 0) {
+        rejected++;
+        return false;
+      }
+
+      long[] bits = passes.get(key);
+      int word = bit >>> 6;
+      if (bits == null || word >= bits.length) {
+        bits = bits == null ? new long[word + 1] : Arrays.copyOf(bits, word + 1);
+        passes.put(key, bits);
+      }
+
+      if ((bits[word] & (1L << bit)) == 0) {
+        bits[word] |= 1L << bit;
+        tiles++;
+      }
+
+      return true;
+    }
+
+    public long rejected() {
+      return rejected;
+    }
+
+    public TileIndex build() {
+      return new TileIndex(Map.copyOf(passes), tiles);
+    }
+  }
+
+  private static int passKey(int cycle, int pass) {
+    if (cycle < 0 || cycle > MAX_CYCLE || pass < 0 || pass > MAX_PASS) {
+      return -1;
+    }
+
+    return (cycle << 16) | pass;
+  }
+
+  /*
+   * The pass key of a tile id, or -1 if it can't be parsed
+   */
+  private static int passKey(String tileId) {
+    int cycleStart = tileId.indexOf(',') + 1;
+    int passStart = tileId.indexOf(',', cycleStart) + 1;
+    int tileStart = tileId.indexOf(',', passStart) + 1;
+    if (cycleStart == 0 || passStart == 0 || tileStart == 0) {
+      return -1;
+    }
+
+    int cycle = parse(tileId, cycleStart, passStart - 1);
+    int pass = parse(tileId, passStart, tileStart - 1);
+    return passKey(cycle, pass);
+  }
+
+  /*
+   * The bit of a tile id within its pass, or -1 if it can't be parsed
+   */
+  private static int bit(String tileId) {
+    int productEnd = tileId.indexOf(',');
+    int tileStart = tileId.lastIndexOf(',') + 1;
+    if (productEnd < 0 || tileStart >= tileId.length() - 1) {
+      return -1;
+    }
+
+    int product = -1;
+    for (int i = 0; i < PRODUCTS.length; i++) {
+      if (tileId.regionMatches(0, PRODUCTS[i], 0, productEnd)
+          && PRODUCTS[i].length() == productEnd) {
+        product = i;
+      }
+    }
+
+    char sideChar = tileId.charAt(tileId.length() - 1);
+    int side = sideChar == SIDES[0] ? 0 : sideChar == SIDES[1] ? 1 : -1;
+    int tile = parse(tileId, tileStart, tileId.length() - 1);
+    if (product < 0 || side < 0 || tile < 0 || tile > Integer.MAX_VALUE / BITS_PER_TILE - 1) {
+      return -1;
+    }
+
+    return (tile * BITS_PER_TILE) + (product * SIDES.length) + side;
+  }
+
+  /*
+   * Parses a non-negative decimal, or returns -1
+   */
+  private static int parse(String value, int start, int end) {
+    if (start >= end || end - start > 9) {
+      return -1;
+    }
+
+    int parsed = 0;
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      parsed = (parsed * 10) + (c - '0');
+    }
+
+    return parsed;
+  }
+}
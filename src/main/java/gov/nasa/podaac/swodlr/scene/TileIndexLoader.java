@@ -0,0 +1,138 @@
+package gov.nasa.podaac.swodlr.scene;
+
+import gov.nasa.podaac.swodlr.SwodlrProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+/*
+ * Loads the available tiles table into a TileIndex when
+ * swodlr.scene-lookup.mode is "bitmap", with a parallel Scan of
+ * swodlr.tile-index.scan-segments segments reading only tile_id. The table
+ * is rescanned every swodlr.tile-index.refresh-interval and the new index
+ * swapped in once complete, so lookups never wait on a refresh. An index
+ * is only swapped in if no later refresh has been swapped in already.
+ * Until the first load completes, scenes are looked up in DynamoDB
+ */
+@Component
+@ConditionalOnProperty(name = "swodlr.scene-lookup.mode", havingValue = "bitmap")
+public class TileIndexLoader {
+  private static final String TILE_ID = "tile_id";
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final AtomicLong refreshes = new AtomicLong();
+
+  private volatile TileIndex index;
+  private long indexRefresh;
+
+  @Autowired
+  private DynamoDbAsyncClient dynamoDbClient;
+
+  @Autowired
+  private SwodlrProperties swodlrProperties;
+
+  public TileIndexLoader(MeterRegistry meterRegistry) {
+    meterRegistry.gauge(
+        "swodlr.tile-index.tiles", this, (loader) -> loader.index != null ? loader.index.tiles() : 0
+    );
+    meterRegistry.gauge(
+        "swodlr.tile-index.bytes", this,
+        (loader) -> loader.index != null ? loader.index.sizeInBytes() : 0
+    );
+  }
+
+  /*
+   * The latest index, or null if it hasn't been loaded yet
+   */
+  public TileIndex current() {
+    return index;
+  }
+
+  @Scheduled(fixedDelayString = "${swodlr.tile-index.refresh-interval:PT5M}")
+  public void scheduledRefresh() {
+    try {
+      refresh().block();
+    } catch (RuntimeException ex) {
+      logger.warn("Failed to refresh the tile index", ex);
+    }
+  }
+
+  /*
+   * Scans the table into a new index and swaps it in
+   */
+  public Mono<TileIndex> refresh() {
+    return Mono.defer(() -> {
+      long refresh = refreshes.incrementAndGet();
+      long began = System.nanoTime();
+      int scanSegments = swodlrProperties.tileIndex().scanSegments();
+
+      return Flux.range(0, scanSegments)
+          .flatMap(this::scanSegment, scanSegments)
+          .reduce(new TileIndex.Builder(), (builder, response) -> {
+            for (Map<String, AttributeValue> item : response.items()) {
+              AttributeValue tileId = item.get(TILE_ID);
+              if (tileId == null || tileId.s() == null || !builder.add(tileId.s())) {
+                logger.debug("Skipping unrecognized tile: {}", item);
+              }
+            }
+            return builder;
+          })
+          .map((builder) -> {
+            TileIndex built = builder.build();
+            synchronized (this) {
+              if (refresh < indexRefresh) {
+                logger.debug("Discarding the tile index of an overtaken refresh");
+                return built;
+              }
+              index = built;
+              indexRefresh = refresh;
+            }
+
+            logger.info(
+                "Loaded {} tile(s) ({} bytes, {} skipped) into the tile index in {}",
+                built.tiles(), built.sizeInBytes(), builder.rejected(),
+                Duration.ofNanos(System.nanoTime() - began)
+            );
+            return built;
+          });
+    });
+  }
+
+  private Flux<ScanResponse> scanSegment(int segment) {
+    return scanPage(segment, null).expand((response) -> {
+      if (!response.hasLastEvaluatedKey() || response.lastEvaluatedKey().isEmpty()) {
+        return Mono.empty();
+      }
+
+      return scanPage(segment, response.lastEvaluatedKey());
+    });
+  }
+
+  private Mono<ScanResponse> scanPage(int segment, Map<String, AttributeValue> startKey) {
+    ScanRequest.Builder request = ScanRequest.builder()
+        .tableName(swodlrProperties.availableTilesTableName())
+        .projectionExpression(TILE_ID)
+        .segment(segment)
+        .totalSegments(swodlrProperties.tileIndex().scanSegments())
+        .limit(swodlrProperties.tileIndex().pageSize());
+    if (startKey != null) {
+      request.exclusiveStartKey(startKey);
+    }
+
+    return Mono.fromFuture(() -> dynamoDbClient.scan(request.build()));
+  }
+}
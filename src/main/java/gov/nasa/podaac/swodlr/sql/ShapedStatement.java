@@ -0,0 +1,235 @@
+package gov.nasa.podaac.swodlr.sql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.hibernate.query.Query;
+import org.hibernate.type.Type;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+
+/*
+ * A native statement built from optional predicates. A predicate is only
+ * rendered when all of its parameters are set, so the database plans the
+ * filters which were actually supplied rather than one generic plan full of
+ * "(:x is NULL OR col = :x)" checks, which cannot use an index for any of
+ * them
+ *
+ * The SQL for each shape (the set of predicates present) is rendered once
+ * and cached, so every query of the same shape sends identical text and can
+ * reuse the driver's server-side prepared statement for it
+ *
+ * Parameters are always bound with their Hibernate type, keeping the typed
+ * null-parameter workaround described in L2RasterProductQueryImpl
+ */
+public final class ShapedStatement {
+  private static final Pattern PARAMETER = Pattern.compile("(?<![:\\w]):([A-Za-z]\\w*)");
+
+  private final Clause select;
+  private final List<Clause> required;
+  private final List<Clause> optional;
+  private final Clause suffix;
+  private final Map<Long, String> statements = new ConcurrentHashMap<>();
+
+  private ShapedStatement(
+      Clause select, List<Clause> required, List<Clause> optional, Clause suffix
+  ) {
+    this.select = select;
+    this.required = required;
+    this.optional = optional;
+    this.suffix = suffix;
+  }
+
+  public static Builder builder(String select) {
+    return new Builder(select);
+  }
+
+  /*
+   * Renders the statement for the shape of the parameters and selects the
+   * parameters it uses. Parameters of the statement itself, of required
+   * predicates and of the suffix must be set, but may be null
+   */
+  public Bound bind(Parameters parameters) {
+    long shape = 0;
+    for (int i = 0; i < optional.size(); i++) {
+      if (parameters.allPresent(optional.get(i).parameters())) {
+        shape |= 1L << i;
+      }
+    }
+
+    Map<String, Parameter> bound = new LinkedHashMap<>();
+    parameters.select(select.parameters(), bound);
+    for (Clause clause : required) {
+      parameters.select(clause.parameters(), bound);
+    }
+    for (int i = 0; i < optional.size(); i++) {
+      if ((shape & (1L << i)) != 0) {
+        parameters.select(optional.get(i).parameters(), bound);
+      }
+    }
+    parameters.select(suffix.parameters(), bound);
+
+    String sql = statements.computeIfAbsent(shape, this::render);
+    return new Bound(sql, List.copyOf(bound.values()));
+  }
+
+  /*
+   * Number of shapes rendered so far
+   */
+  public int shapeCount() {
+    return statements.size();
+  }
+
+  private String render(long shape) {
+    List<String> predicates = new ArrayList<>();
+    for (Clause clause : required) {
+      predicates.add(clause.sql());
+    }
+    for (int i = 0; i < optional.size(); i++) {
+      if ((shape & (1L << i)) != 0) {
+        predicates.add(optional.get(i).sql());
+      }
+    }
+
+    StringBuilder sql = new StringBuilder(select.sql());
+    if (!predicates.isEmpty()) {
+      sql.append("\nWHERE\n  (");
+      sql.append(String.join(") AND\n  (", predicates));
+      sql.append(')');
+    }
+    if (!suffix.sql().isEmpty()) {
+      sql.append('\n').append(suffix.sql());
+    }
+
+    return sql.toString();
+  }
+
+  private static Set<String> parametersOf(String sql) {
+    Set<String> names = new LinkedHashSet<>();
+    Matcher matcher = PARAMETER.matcher(sql);
+    while (matcher.find()) {
+      names.add(matcher.group(1));
+    }
+
+    return names;
+  }
+
+  private record Clause(String sql, Set<String> parameters) {
+    Clause(String sql) {
+      this(sql.strip(), parametersOf(sql));
+    }
+  }
+
+  public static final class Builder {
+    private final Clause select;
+    private final List<Clause> required = new ArrayList<>();
+    private final List<Clause> optional = new ArrayList<>();
+    private Clause suffix = new Clause("");
+
+    private Builder(String select) {
+      this.select = new Clause(select);
+    }
+
+    /*
+     * Adds a predicate which is always rendered
+     */
+    public Builder where(String predicate) {
+      required.add(new Clause(predicate));
+      return this;
+    }
+
+    /*
+     * Adds a predicate which is rendered only when all of its parameters
+     * are set and non-null
+     */
+    public Builder optional(String predicate) {
+      if (optional.size() == Long.SIZE) {
+        throw new IllegalStateException("Too many optional predicates");
+      }
+
+      optional.add(new Clause(predicate));
+      return this;
+    }
+
+    /*
+     * Sets what follows the WHERE clause, eg: ORDER BY and LIMIT
+     */
+    public Builder suffix(String suffix) {
+      this.suffix = new Clause(suffix);
+      return this;
+    }
+
+    public ShapedStatement build() {
+      return new ShapedStatement(select, List.copyOf(required), List.copyOf(optional), suffix);
+    }
+  }
+
+  public static final class Parameters {
+    private final Map<String, Parameter> values = new LinkedHashMap<>();
+
+    public Parameters set(String name, Object value, Type type) {
+      values.put(name, new Parameter(name, value, type));
+      return this;
+    }
+
+    private boolean allPresent(Set<String> names) {
+      for (String name : names) {
+        Parameter parameter = values.get(name);
+        if (parameter == null || parameter.value() == null) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    private void select(Set<String> names, Map<String, Parameter> selected) {
+      for (String name : names) {
+        Parameter parameter = values.get(name);
+        if (parameter == null) {
+          throw new IllegalArgumentException("Parameter not set: " + name);
+        }
+        selected.put(name, parameter);
+      }
+    }
+  }
+
+  public record Parameter(String name, Object value, Type type) { }
+
+  /*
+   * The SQL for one shape along with the parameters it uses
+   */
+  public record Bound(String sql, List<Parameter> parameters) {
+    public <T extends Query<?>> T applyTo(T query) {
+      for (Parameter parameter : parameters) {
+        query.setParameter(parameter.name(), parameter.value(), parameter.type());
+      }
+
+      return query;
+    }
+
+    public GenericExecuteSpec applyTo(GenericExecuteSpec spec) {
+      for (Parameter parameter : parameters) {
+        spec = spec.bind(parameter.name(), org.springframework.r2dbc.core.Parameter.fromOrEmpty(
+            parameter.value(), parameter.type().getReturnedClass()
+        ));
+      }
+
+      return spec;
+    }
+
+    public MapSqlParameterSource applyTo(MapSqlParameterSource source) {
+      for (Parameter parameter : parameters) {
+        source.addValue(parameter.name(), parameter.value());
+      }
+
+      return source;
+    }
+  }
+}
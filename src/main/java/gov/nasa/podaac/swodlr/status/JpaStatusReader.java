@@ -0,0 +1,92 @@
+package gov.nasa.podaac.swodlr.status;
+
+import gov.nasa.podaac.swodlr.fetcher.BlockingFetcherExecutor;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.pagination.Connection;
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import gov.nasa.podaac.swodlr.pagination.Edge;
+import gov.nasa.podaac.swodlr.sql.ShapedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@ConditionalOnProperty(name = "swodlr.read-path", havingValue = "jpa", matchIfMissing = true)
+public class JpaStatusReader implements StatusReader {
+  @Autowired
+  private BlockingFetcherExecutor blockingFetcherExecutor;
+
+  @Autowired
+  private StatusRepository statusRepository;
+
+  @Autowired
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  @Override
+  public Mono<List<Status>> findByProductId(L2RasterProduct product, UUID after, int limit) {
+    return blockingFetcherExecutor.fromCallable(
+      () -> statusRepository.findByProductId(product, after, limit)
+    );
+  }
+
+  @Override
+  public Mono<Connection<Status>> findPageByProductId(
+      L2RasterProduct product, Cursor after, int limit
+  ) {
+    return blockingFetcherExecutor.fromCallable(() -> {
+      List<Edge<Status>> edges = new ArrayList<>();
+      for (Status status : statusRepository.findPageByProductId(product, after, limit + 1)) {
+        edges.add(new Edge<>(new Cursor(status.getTimestamp(), status.getId()), status));
+      }
+
+      return Connection.of(edges, limit);
+    });
+  }
+
+  /*
+   * Maps rows without the entity manager, which would otherwise reload each
+   * status' product by id
+   */
+  @Override
+  public Mono<Map<UUID, List<Status>>> findByProducts(
+      Collection<L2RasterProduct> products, UUID after, int limit
+  ) {
+    Map<UUID, L2RasterProduct> productsById = new HashMap<>();
+    for (L2RasterProduct product : products) {
+      productsById.put(product.getId(), product);
+    }
+
+    ShapedStatement.Bound statement = StatusQueryImpl.FIND_BY_PRODUCT_IDS.bind(
+        StatusQueryImpl.findByProductIdsParameters(productsById.keySet(), after, limit)
+    );
+
+    return blockingFetcherExecutor.fromCallable(() -> {
+      Map<UUID, List<Status>> statuses = new HashMap<>();
+      namedParameterJdbcTemplate.query(
+          statement.sql(),
+          statement.applyTo(new MapSqlParameterSource()),
+          (rs) -> {
+            L2RasterProduct product = productsById.get(rs.getObject("productId", UUID.class));
+            statuses.computeIfAbsent(product.getId(), (id) -> new ArrayList<>()).add(new Status(
+                rs.getObject("id", UUID.class),
+                product,
+                rs.getTimestamp("timestamp").toLocalDateTime(),
+                State.valueOf(rs.getString("state")),
+                rs.getString("reason")
+            ));
+          }
+      );
+
+      return statuses;
+    });
+  }
+}
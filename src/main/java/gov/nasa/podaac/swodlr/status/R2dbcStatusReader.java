@@ -0,0 +1,86 @@
+package gov.nasa.podaac.swodlr.status;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.pagination.Connection;
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import gov.nasa.podaac.swodlr.pagination.Edge;
+import gov.nasa.podaac.swodlr.r2dbc.R2dbcUtils;
+import gov.nasa.podaac.swodlr.sql.ShapedStatement;
+import io.r2dbc.spi.Row;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@ConditionalOnProperty(name = "swodlr.read-path", havingValue = "r2dbc")
+public class R2dbcStatusReader implements StatusReader {
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  @Override
+  public Mono<List<Status>> findByProductId(L2RasterProduct product, UUID after, int limit) {
+    ShapedStatement.Bound statement = StatusQueryImpl.FIND_BY_PRODUCT_ID.bind(
+        StatusQueryImpl.findByProductIdParameters(product.getId(), after, null, limit)
+    );
+
+    return statement.applyTo(databaseClient.sql(statement.sql()))
+        .map((row, metadata) -> mapRow(row, product))
+        .all()
+        .collectList();
+  }
+
+  @Override
+  public Mono<Connection<Status>> findPageByProductId(
+      L2RasterProduct product, Cursor after, int limit
+  ) {
+    ShapedStatement.Bound statement = StatusQueryImpl.FIND_BY_PRODUCT_ID.bind(
+        StatusQueryImpl.findByProductIdParameters(product.getId(), null, after, limit + 1)
+    );
+
+    return statement.applyTo(databaseClient.sql(statement.sql()))
+        .map((row, metadata) -> {
+          Status status = mapRow(row, product);
+          return new Edge<>(new Cursor(status.getTimestamp(), status.getId()), status);
+        })
+        .all()
+        .collectList()
+        .map((edges) -> Connection.of(edges, limit));
+  }
+
+  @Override
+  public Mono<Map<UUID, List<Status>>> findByProducts(
+      Collection<L2RasterProduct> products, UUID after, int limit
+  ) {
+    Map<UUID, L2RasterProduct> productsById = new HashMap<>();
+    for (L2RasterProduct product : products) {
+      productsById.put(product.getId(), product);
+    }
+
+    ShapedStatement.Bound statement = StatusQueryImpl.FIND_BY_PRODUCT_IDS.bind(
+        StatusQueryImpl.findByProductIdsParameters(productsById.keySet(), after, limit)
+    );
+
+    return statement.applyTo(databaseClient.sql(statement.sql()))
+        .map((row, metadata) -> mapRow(row, productsById.get(row.get("productId", UUID.class))))
+        .all()
+        .collect(Collectors.groupingBy((status) -> status.getProduct().getId()));
+  }
+
+  private static Status mapRow(Row row, L2RasterProduct product) {
+    return new Status(
+        row.get("id", UUID.class),
+        product,
+        R2dbcUtils.getLocalDateTime(row, "timestamp"),
+        State.valueOf(row.get("state", String.class)),
+        row.get("reason", String.class)
+    );
+  }
+}
@@ -0,0 +1,245 @@
+package gov.nasa.podaac.swodlr.status;
+
+import gov.nasa.podaac.swodlr.SwodlrProperties;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.scheduler.Schedulers;
+
+/*
+ * Records how long products spend in each state as histograms, tagged by
+ * the transition (from, to) and the product's parameter class (grid type,
+ * resolution, extent flag). Each combination is a Micrometer timer with
+ * fixed histogram buckets, so memory is bounded by the number of parameter
+ * classes rather than by the number of statuses
+ *
+ * Transitions are recorded as statuses are written (see
+ * L2RasterProductBatchRepository) once their transaction commits. On
+ * startup, transitions into statuses written within
+ * swodlr.transition-metrics.backfill before the instance started are
+ * recorded into separate swodlr.status.transition.backfill histograms,
+ * so that restarts don't show up as a burst in the live histograms' rates.
+ * Each instance backfills the same history, so backfilled histograms
+ * should be aggregated across instances with max rather than sum. Bulk
+ * admin transitions aren't recorded
+ */
+@Component
+public class StateTransitionMetrics {
+  private static final String TRANSITION_METRIC = "swodlr.status.transition";
+  private static final String BACKFILL_METRIC = TRANSITION_METRIC + ".backfill";
+  private static final int BACKFILL_FETCH_SIZE = 1000;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final LocalDateTime startedAt = LocalDateTime.now();
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private SwodlrProperties swodlrProperties;
+
+  /*
+   * Records the transitions made by statuses about to be written, in the
+   * order given, from each product's current status. Called before the
+   * products' current statuses are updated so that they can still be read.
+   * Statuses older than the one they would follow aren't transitions, as
+   * they won't become current, and are skipped
+   */
+  public void statusesWritten(Collection<Status> statuses) {
+    List<UUID> currentIds = new ArrayList<>();
+    for (Status status : statuses) {
+      UUID currentId = status.getProduct().getCurrentStatusId();
+      if (currentId != null) {
+        currentIds.add(currentId);
+      }
+    }
+
+    Map<UUID, Previous> previousByProduct = new HashMap<>();
+    if (!currentIds.isEmpty()) {
+      namedParameterJdbcTemplate.query(
+          "SELECT \"productId\", \"timestamp\", \"state\" FROM \"Status\" WHERE \"id\" IN (:ids)",
+          new MapSqlParameterSource("ids", currentIds),
+          (rs) -> {
+            previousByProduct.put(rs.getObject("productId", UUID.class), new Previous(
+                State.valueOf(rs.getString("state")),
+                rs.getTimestamp("timestamp").toLocalDateTime()
+            ));
+          }
+      );
+    }
+
+    List<Runnable> records = new ArrayList<>(statuses.size());
+    for (Status status : statuses) {
+      L2RasterProduct product = status.getProduct();
+      Previous previous = previousByProduct.get(product.getId());
+      if (previous != null && status.getTimestamp().isBefore(previous.timestamp())) {
+        continue;
+      }
+
+      previousByProduct.put(
+          product.getId(), new Previous(status.getState(), status.getTimestamp())
+      );
+      if (previous != null) {
+        records.add(() -> record(
+            TRANSITION_METRIC,
+            product.getOutputSamplingGridType(),
+            product.getRasterResolution(),
+            product.getOutputGranuleExtentFlag(),
+            previous.state(),
+            status.getState(),
+            Duration.between(previous.timestamp(), status.getTimestamp())
+        ));
+      }
+    }
+
+    if (records.isEmpty()) {
+      return;
+    }
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          records.forEach(Runnable::run);
+        }
+      });
+    } else {
+      records.forEach(Runnable::run);
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfillOnStartup() {
+    Schedulers.boundedElastic().schedule(() -> {
+      try {
+        backfill(startedAt.minus(swodlrProperties.transitionMetrics().backfill()), startedAt);
+      } catch (RuntimeException ex) {
+        logger.warn("Failed to backfill state transition metrics", ex);
+      }
+    });
+  }
+
+  /*
+   * Records the transitions into statuses written in [since, until) into
+   * the backfill histograms. Rows
+   * are streamed, so this runs in constant memory however many there are.
+   * Returns the number of transitions recorded
+   */
+  public long backfill(LocalDateTime since, LocalDateTime until) {
+    String statement =
+        """
+        SELECT
+          p.\"outputSamplingGridType\", p.\"rasterResolution\", p.\"outputGranuleExtentFlag\",
+          t.\"previousState\", t.\"previousTimestamp\", t.\"state\", t.\"timestamp\"
+        FROM (
+          SELECT
+            \"productId\", \"state\", \"timestamp\",
+            lag(\"state\") OVER w AS \"previousState\",
+            lag(\"timestamp\") OVER w AS \"previousTimestamp\"
+          FROM \"Status\"
+          WHERE \"productId\" IN (
+            SELECT \"productId\" FROM \"Status\" WHERE \"timestamp\" >= ? AND \"timestamp\" < ?
+          )
+          WINDOW w AS (PARTITION BY \"productId\" ORDER BY \"timestamp\", \"id\")
+        ) AS t
+        JOIN \"L2RasterProducts\" AS p ON p.\"id\" = t.\"productId\"
+        WHERE t.\"previousState\" IS NOT NULL AND t.\"timestamp\" >= ? AND t.\"timestamp\" < ?
+        """;
+
+    Object[] window = {
+        Timestamp.valueOf(since), Timestamp.valueOf(until),
+        Timestamp.valueOf(since), Timestamp.valueOf(until)
+    };
+
+    JdbcTemplate streaming = new JdbcTemplate(dataSource);
+    streaming.setFetchSize(BACKFILL_FETCH_SIZE);
+
+    long[] recorded = {0};
+    long began = System.nanoTime();
+    // PostgreSQL only streams results with a cursor inside a transaction
+    transactionTemplate.executeWithoutResult((status) -> {
+      streaming.query(statement, (rs) -> {
+        record(
+            BACKFILL_METRIC,
+            GridType.valueOf(rs.getString("outputSamplingGridType")),
+            rs.getInt("rasterResolution"),
+            rs.getBoolean("outputGranuleExtentFlag"),
+            State.valueOf(rs.getString("previousState")),
+            State.valueOf(rs.getString("state")),
+            Duration.between(
+                rs.getTimestamp("previousTimestamp").toLocalDateTime(),
+                rs.getTimestamp("timestamp").toLocalDateTime()
+            )
+        );
+        recorded[0]++;
+      }, window);
+    });
+
+    logger.info(
+        "Backfilled {} state transition(s) in {}",
+        recorded[0], Duration.ofNanos(System.nanoTime() - began)
+    );
+    return recorded[0];
+  }
+
+  private void record(
+      String metric,
+      GridType gridType,
+      int resolution,
+      boolean extent,
+      State from,
+      State to,
+      Duration latency
+  ) {
+    if (latency.isNegative()) {
+      return;
+    }
+
+    Timer.builder(metric)
+        .description("Time products spent in a state before transitioning to the next")
+        .tag("from", from.toString())
+        .tag("to", to.toString())
+        .tag("grid_type", gridType.toString())
+        .tag("resolution", Integer.toString(resolution))
+        .tag("extent", Boolean.toString(extent))
+        .publishPercentileHistogram()
+        .minimumExpectedValue(Duration.ofSeconds(1))
+        .maximumExpectedValue(Duration.ofDays(2))
+        .register(meterRegistry)
+        .record(latency);
+  }
+
+  private record Previous(State state, LocalDateTime timestamp) { }
+}
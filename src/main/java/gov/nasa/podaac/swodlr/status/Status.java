@@ -39,9 +39,31 @@ public class Status {
   }
 
   public Status(L2RasterProduct product, State state, String reason) {
-    this.id = UUID.randomUUID();
+    this(product, state, reason, LocalDateTime.now());
+  }
+
+  /*
+   * A status as of when it happened, rather than when it was recorded
+   */
+  public Status(L2RasterProduct product, State state, String reason, LocalDateTime timestamp) {
+    this(UUID.randomUUID(), product, timestamp, state, reason);
+  }
+
+  /*
+   * Rebuilds a status from a row read outside of JPA (see R2dbcStatusReader),
+   * or builds one whose id is derived from its source (see
+   * ProductUpdateConsumer)
+   */
+  public Status(
+      UUID id,
+      L2RasterProduct product,
+      LocalDateTime timestamp,
+      State state,
+      String reason
+  ) {
+    this.id = id;
     this.product = product;
-    this.timestamp = LocalDateTime.now();
+    this.timestamp = timestamp;
     this.state = state;
     this.reason = reason;
   }
@@ -0,0 +1,169 @@
+package gov.nasa.podaac.swodlr.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/*
+ * Moves statuses out of "Status" into "StatusArchive", where each archived
+ * batch of a product's statuses is stored as one gzipped JSON array. A
+ * product keeps its latest statuses along with the first and last status of
+ * each state it has been in; the current status is always among these
+ *
+ * Rows are locked with SKIP LOCKED, so archiving never waits on, or blocks,
+ * status inserts or a compaction running on another instance. Statuses only
+ * ever become archivable as newer ones are inserted, so rows ranked from a
+ * slightly stale view are at worst left for the next run. Status pages
+ * requested `after` an archived status are empty
+ *
+ * H2, which tests run against, has no SKIP LOCKED and waits on locks instead
+ */
+@Repository
+public class StatusArchive {
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private DataSource dataSource;
+
+  public record Entry(UUID id, LocalDateTime timestamp, State state, String reason) { }
+
+  /*
+   * Returns up to limit products, in descending order after the given
+   * product (or from the first when null), with more than keepLatest
+   * statuses and so possibly something to archive
+   */
+  public List<UUID> findCompactable(UUID after, int keepLatest, int limit) {
+    List<Object> parameters = new ArrayList<>(3);
+    if (after != null) {
+      parameters.add(after);
+    }
+    parameters.add(keepLatest);
+    parameters.add(limit);
+
+    String statement =
+        """
+        SELECT \"productId\" FROM \"Status\"
+        %s
+        GROUP BY \"productId\" HAVING count(*) > ?
+        ORDER BY \"productId\" DESC LIMIT ?
+        """.formatted(after != null ? "WHERE \"productId\" < ?" : "");
+
+    return jdbcTemplate.queryForList(statement, UUID.class, parameters.toArray());
+  }
+
+  /*
+   * Archives up to limit of the products' archivable statuses, oldest first,
+   * in the caller's transaction. Returns the number of statuses archived
+   */
+  public int archive(Collection<UUID> productIds, int keepLatest, int limit) {
+    String statement =
+        """
+        SELECT \"id\", \"productId\", \"timestamp\", \"state\", \"reason\" FROM \"Status\"
+        WHERE \"id\" IN (
+          SELECT \"id\" FROM (
+            SELECT
+              \"id\",
+              row_number() OVER (
+                PARTITION BY \"productId\" ORDER BY \"timestamp\" DESC, \"id\" DESC
+              ) AS \"latest\",
+              row_number() OVER (
+                PARTITION BY \"productId\", \"state\" ORDER BY \"timestamp\", \"id\"
+              ) AS \"firstOfState\",
+              row_number() OVER (
+                PARTITION BY \"productId\", \"state\" ORDER BY \"timestamp\" DESC, \"id\" DESC
+              ) AS \"lastOfState\"
+            FROM \"Status\" WHERE \"productId\" IN (:productIds)
+          ) AS \"ranked\"
+          WHERE \"latest\" > :keepLatest AND \"firstOfState\" > 1 AND \"lastOfState\" > 1
+        )
+        ORDER BY \"productId\", \"timestamp\", \"id\" LIMIT :limit
+        FOR UPDATE %s
+        """.formatted(skipLocked() ? "SKIP LOCKED" : "");
+
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+        .addValue("productIds", productIds)
+        .addValue("keepLatest", keepLatest)
+        .addValue("limit", limit);
+
+    Map<UUID, List<Entry>> entriesByProduct = new LinkedHashMap<>();
+    namedParameterJdbcTemplate.query(statement, parameters, (rs) -> {
+      entriesByProduct
+          .computeIfAbsent(rs.getObject("productId", UUID.class), (id) -> new ArrayList<>())
+          .add(new Entry(
+              rs.getObject("id", UUID.class),
+              rs.getTimestamp("timestamp").toLocalDateTime(),
+              State.valueOf(rs.getString("state")),
+              rs.getString("reason")
+          ));
+    });
+
+    if (entriesByProduct.isEmpty()) {
+      return 0;
+    }
+
+    List<Object[]> archiveRows = new ArrayList<>(entriesByProduct.size());
+    List<Object[]> deleteRows = new ArrayList<>();
+    for (var productEntries : entriesByProduct.entrySet()) {
+      List<Entry> entries = productEntries.getValue();
+      archiveRows.add(new Object[] {productEntries.getKey(), entries.size(), compress(entries)});
+      for (Entry entry : entries) {
+        deleteRows.add(new Object[] {entry.id()});
+      }
+    }
+
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO \"StatusArchive\" (\"productId\", \"count\", \"statuses\") VALUES (?, ?, ?)",
+        archiveRows,
+        new int[] {Types.OTHER, Types.INTEGER, Types.BINARY}
+    );
+    jdbcTemplate.batchUpdate(
+        "DELETE FROM \"Status\" WHERE \"id\" = ?",
+        deleteRows,
+        new int[] {Types.OTHER}
+    );
+
+    return deleteRows.size();
+  }
+
+  private boolean skipLocked() {
+    return dataSource instanceof HikariDataSource hikariDataSource
+        && hikariDataSource.getJdbcUrl() != null
+        && hikariDataSource.getJdbcUrl().startsWith("jdbc:postgresql:");
+  }
+
+  private byte[] compress(List<Entry> entries) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (OutputStream gzip = new GZIPOutputStream(buffer)) {
+      objectMapper.writeValue(gzip, entries);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+
+    return buffer.toByteArray();
+  }
+}
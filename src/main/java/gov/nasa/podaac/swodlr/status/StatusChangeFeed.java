@@ -0,0 +1,166 @@
+package gov.nasa.podaac.swodlr.status;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+/*
+ * Fans status changes out to productStatus subscribers. Each watched
+ * product has a single multicast sink; when the product changes its current
+ * status is read once and emitted to every subscriber, however many there
+ * are. Changes arriving while a read is in progress are coalesced into one
+ * further read, and a status is never emitted twice in a row
+ *
+ * Each subscriber is first sent the product's current status, so that a
+ * change made between a client reading the status and subscribing isn't
+ * missed. Changes are buffered from subscription until it has been read
+ *
+ * Changes are reported by StatusChangeListener, which listens for the
+ * notifications PostgreSQL sends as statuses are inserted
+ */
+@Component
+public class StatusChangeFeed {
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final Map<UUID, Watch> watches = new ConcurrentHashMap<>();
+  private final AtomicInteger subscribers = new AtomicInteger();
+  private final Counter readCounter;
+
+  @Autowired
+  private L2RasterProductReader l2RasterProductReader;
+
+  @Autowired
+  private StatusReader statusReader;
+
+  public StatusChangeFeed(MeterRegistry meterRegistry) {
+    readCounter = Counter.builder("swodlr.status.feed.reads")
+        .description("Current status reads for products changed while watched")
+        .register(meterRegistry);
+    meterRegistry.gaugeMapSize("swodlr.status.feed.watched", Tags.empty(), watches);
+    meterRegistry.gauge("swodlr.status.feed.subscribers", subscribers);
+  }
+
+  /*
+   * Returns the product's current status, then the statuses it changes to
+   */
+  public Flux<Status> watch(UUID productId) {
+    return Flux.defer(() -> {
+      Watch watch = watches.compute(productId, (id, existing) -> {
+        Watch watched = existing != null ? existing : new Watch();
+        watched.subscribers++;
+        return watched;
+      });
+      subscribers.incrementAndGet();
+
+      Sinks.Many<Status> changes = Sinks.many().unicast().onBackpressureBuffer();
+      Disposable relay = watch.sink.asFlux().subscribe(changes::tryEmitNext);
+      AtomicReference<UUID> lastStatusId = new AtomicReference<>();
+
+      Mono<Status> current = currentStatus(productId).onErrorResume((ex) -> {
+        logger.warn("Failed to read the current status of product: {}", productId, ex);
+        return Mono.empty();
+      });
+
+      return Flux.concat(current, changes.asFlux())
+          .filter((status) -> !status.getId().equals(lastStatusId.getAndSet(status.getId())))
+          .doFinally((signal) -> {
+            relay.dispose();
+            subscribers.decrementAndGet();
+            watches.computeIfPresent(
+                productId, (id, watched) -> --watched.subscribers > 0 ? watched : null
+            );
+          });
+    });
+  }
+
+  public void productChanged(UUID productId) {
+    Watch watch = watches.get(productId);
+    if (watch == null) {
+      return;
+    }
+
+    synchronized (watch) {
+      if (watch.reading) {
+        watch.stale = true;
+        return;
+      }
+      watch.reading = true;
+    }
+
+    read(productId, watch);
+  }
+
+  /*
+   * Rereads every watched product, for when changes may have been missed
+   */
+  public void resync() {
+    for (UUID productId : watches.keySet()) {
+      productChanged(productId);
+    }
+  }
+
+  private void read(UUID productId, Watch watch) {
+    readCounter.increment();
+    currentStatus(productId).subscribe(
+        (status) -> emit(watch, status),
+        (ex) -> {
+          logger.warn("Failed to read the current status of product: {}", productId, ex);
+          finishRead(productId, watch);
+        },
+        () -> finishRead(productId, watch)
+    );
+  }
+
+  private Mono<Status> currentStatus(UUID productId) {
+    return l2RasterProductReader.findById(productId)
+        .flatMap((product) -> statusReader.findByProductId(product, null, 1))
+        .flatMap((statuses) -> Mono.justOrEmpty(statuses.stream().findFirst()));
+  }
+
+  private void finishRead(UUID productId, Watch watch) {
+    synchronized (watch) {
+      if (!watch.stale) {
+        watch.reading = false;
+        return;
+      }
+      watch.stale = false;
+    }
+
+    read(productId, watch);
+  }
+
+  private void emit(Watch watch, Status status) {
+    synchronized (watch) {
+      if (status.getId().equals(watch.lastStatusId)) {
+        return;
+      }
+
+      watch.lastStatusId = status.getId();
+      watch.sink.tryEmitNext(status);
+    }
+  }
+
+  private static class Watch {
+    final Sinks.Many<Status> sink = Sinks.many().multicast()
+        .onBackpressureBuffer(Queues.SMALL_BUFFER_SIZE, false);
+    int subscribers;
+    boolean reading;
+    boolean stale;
+    UUID lastStatusId;
+  }
+}
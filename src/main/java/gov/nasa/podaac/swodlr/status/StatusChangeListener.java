@@ -0,0 +1,118 @@
+package gov.nasa.podaac.swodlr.status;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/*
+ * Listens on the "status_changes" channel, which is notified with the
+ * product id of each status inserted (see
+ * database/migrations/006_status_notify.sql), and reports the changes to the
+ * StatusChangeFeed. Each instance holds one connection for this outside of
+ * the pool, as a listening connection can't be shared
+ *
+ * Only runs against PostgreSQL. On reconnecting, every watched product is
+ * reread, as notifications sent while disconnected are lost
+ */
+@Component
+public class StatusChangeListener implements SmartLifecycle {
+  private static final String CHANNEL = "status_changes";
+  private static final int POLL_TIMEOUT_MILLIS = 5000;
+  private static final Duration RECONNECT_BACKOFF = Duration.ofSeconds(5);
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private StatusChangeFeed statusChangeFeed;
+
+  private volatile Thread thread;
+
+  @Override
+  public void start() {
+    thread = new Thread(this::listen, "status-change-listener");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public void stop() {
+    thread = null;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return thread != null;
+  }
+
+  @Override
+  public boolean isAutoStartup() {
+    return dataSource instanceof HikariDataSource hikariDataSource
+        && hikariDataSource.getJdbcUrl() != null
+        && hikariDataSource.getJdbcUrl().startsWith("jdbc:postgresql:");
+  }
+
+  private void listen() {
+    Thread current = Thread.currentThread();
+    while (thread == current) {
+      try (Connection connection = connect()) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + CHANNEL);
+        }
+        statusChangeFeed.resync();
+
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (thread == current) {
+          PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+          if (notifications == null) {
+            continue;
+          }
+
+          for (PGNotification notification : notifications) {
+            try {
+              statusChangeFeed.productChanged(UUID.fromString(notification.getParameter()));
+            } catch (IllegalArgumentException ex) {
+              logger.warn("Ignoring malformed status change: {}", notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException ex) {
+        logger.warn("Lost status change notifications, reconnecting in {}", RECONNECT_BACKOFF, ex);
+        try {
+          Thread.sleep(RECONNECT_BACKOFF.toMillis());
+        } catch (InterruptedException interrupted) {
+          return;
+        }
+      }
+    }
+  }
+
+  private Connection connect() throws SQLException {
+    HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
+    Properties properties = new Properties();
+    properties.putAll(hikariDataSource.getDataSourceProperties());
+    if (hikariDataSource.getUsername() != null) {
+      properties.setProperty("user", hikariDataSource.getUsername());
+    }
+    if (hikariDataSource.getPassword() != null) {
+      properties.setProperty("password", hikariDataSource.getPassword());
+    }
+
+    return DriverManager.getConnection(hikariDataSource.getJdbcUrl(), properties);
+  }
+}
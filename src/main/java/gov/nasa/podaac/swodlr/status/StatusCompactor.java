@@ -0,0 +1,91 @@
+package gov.nasa.podaac.swodlr.status;
+
+import gov.nasa.podaac.swodlr.SwodlrProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * Periodically sweeps every product with more than
+ * swodlr.status-compaction.keep-latest statuses and archives the statuses
+ * it no longer needs (see StatusArchive). Products are taken a few at a
+ * time and each batch is archived in its own short transaction, so that
+ * locks are held briefly and a failed batch only loses its own work
+ */
+@Component
+public class StatusCompactor {
+  private static final int PRODUCT_BATCH_SIZE = 50;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final Counter reclaimedCounter;
+  private final Timer runTimer;
+
+  @Autowired
+  private StatusArchive statusArchive;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private SwodlrProperties swodlrProperties;
+
+  public StatusCompactor(MeterRegistry meterRegistry) {
+    reclaimedCounter = Counter.builder("swodlr.status.compaction.reclaimed")
+        .description("Statuses moved to the status archive")
+        .register(meterRegistry);
+    runTimer = Timer.builder("swodlr.status.compaction")
+        .description("Time taken by status compaction runs")
+        .register(meterRegistry);
+  }
+
+  /*
+   * Runs a full sweep and returns the number of statuses archived
+   */
+  @Scheduled(
+      initialDelayString = "${swodlr.status-compaction.interval:PT1H}",
+      fixedDelayString = "${swodlr.status-compaction.interval:PT1H}"
+  )
+  public synchronized int compact() {
+    final int keepLatest = swodlrProperties.statusCompaction().keepLatest();
+    final int batchSize = swodlrProperties.statusCompaction().batchSize();
+    long startedAt = System.nanoTime();
+    int reclaimed = 0;
+    UUID after = null;
+
+    while (true) {
+      List<UUID> productIds = statusArchive.findCompactable(after, keepLatest, PRODUCT_BATCH_SIZE);
+      if (productIds.isEmpty()) {
+        break;
+      }
+
+      int archived;
+      do {
+        Integer batch = transactionTemplate.execute(
+            (status) -> statusArchive.archive(productIds, keepLatest, batchSize)
+        );
+        archived = batch != null ? batch : 0;
+        reclaimed += archived;
+        reclaimedCounter.increment(archived);
+      } while (archived == batchSize);
+
+      after = productIds.get(productIds.size() - 1);
+    }
+
+    long elapsed = System.nanoTime() - startedAt;
+    runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+    logger.info("Archived {} status(es) in {}", reclaimed, Duration.ofNanos(elapsed));
+
+    return reclaimed;
+  }
+}
@@ -1,49 +1,140 @@
 package gov.nasa.podaac.swodlr.status;
 
 import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import gov.nasa.podaac.swodlr.fetcher.BlockingFetcherExecutor;
 import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
-import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductReader;
+import gov.nasa.podaac.swodlr.pagination.Connection;
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.dataloader.DataLoader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Controller
 public class StatusController {
+  private static final String STATUS_LOADER = "statusLoader";
+
+  @Autowired
+  BlockingFetcherExecutor blockingFetcherExecutor;
+
   @Autowired
   StatusRepository statusRepository;
 
   @Autowired
-  L2RasterProductRepository l2RasterProductRepository;
+  StatusReader statusReader;
 
-  @QueryMapping
-  List<Status> statusByProduct(@Argument UUID product, @Argument int limit) {
-    Optional<L2RasterProduct> result = l2RasterProductRepository.findById(product);
-    if (!result.isPresent()) {
-      throw new SwodlrException("Invalid `product` parameter");
-    }
+  @Autowired
+  L2RasterProductReader l2RasterProductReader;
+
+  @Autowired
+  StatusChangeFeed statusChangeFeed;
 
-    return statusRepository.findByProductId(result.get(), null, limit);
+  /*
+   * Loads the status field of every product in a response together, one
+   * statement per distinct (after, limit) rather than one per product
+   */
+  public StatusController(BatchLoaderRegistry batchLoaderRegistry) {
+    batchLoaderRegistry
+        .<StatusBatchKey, List<Status>>forName(STATUS_LOADER)
+        .registerMappedBatchLoader((keys, env) -> loadStatuses(keys));
   }
 
   @QueryMapping
-  List<Status> statusByPrevious(@Argument UUID after, @Argument int limit) {
-    Optional<Status> previous = statusRepository.findById(after);
-    if (!previous.isPresent()) {
-      throw new SwodlrException("Invalid `after` parameter");
-    }
+  Mono<List<Status>> statusByProduct(@Argument UUID product, @Argument int limit) {
+    return l2RasterProductReader
+        .findById(product)
+        .switchIfEmpty(Mono.error(() -> new SwodlrException("Invalid `product` parameter")))
+        .flatMap((result) -> statusReader.findByProductId(result, null, limit));
+  }
+
+  @QueryMapping
+  Mono<List<Status>> statusByPrevious(@Argument UUID after, @Argument int limit) {
+    return blockingFetcherExecutor.fromCallable(() -> {
+      Optional<Status> previous = statusRepository.findById(after);
+      if (!previous.isPresent()) {
+        throw new SwodlrException("Invalid `after` parameter");
+      }
+
+      return statusRepository.findByProductId(previous.get().getProduct(), after, limit);
+    });
+  }
 
-    return statusRepository.findByProductId(previous.get().getProduct(), after, limit);
+  @SubscriptionMapping
+  Flux<Status> productStatus(@Argument UUID id) {
+    return l2RasterProductReader
+        .findById(id)
+        .switchIfEmpty(Mono.error(() -> new SwodlrException("Invalid `id` parameter")))
+        .flatMapMany((product) -> statusChangeFeed.watch(id));
   }
 
   @SchemaMapping(typeName = "L2RasterProduct", field = "status")
-  List<Status> getStatusForL2RasterProduct(
-      L2RasterProduct product, @Argument UUID after, @Argument int limit
+  CompletableFuture<List<Status>> getStatusForL2RasterProduct(
+      L2RasterProduct product,
+      @Argument UUID after,
+      @Argument int limit,
+      DataLoader<StatusBatchKey, List<Status>> statusLoader
   ) {
-    return statusRepository.findByProductId(product, after, limit);
+    return statusLoader.load(new StatusBatchKey(product, after, limit));
   }
+
+  @SchemaMapping(typeName = "L2RasterProduct", field = "statusConnection")
+  Mono<Connection<Status>> getStatusConnectionForL2RasterProduct(
+      L2RasterProduct product, @Argument String after, @Argument int limit
+  ) {
+    return statusReader.findPageByProductId(
+        product, Cursor.decode(after), Connection.validateLimit(limit)
+    );
+  }
+
+  private Mono<Map<StatusBatchKey, List<Status>>> loadStatuses(Set<StatusBatchKey> keys) {
+    Map<Page, List<StatusBatchKey>> batches = new HashMap<>();
+    for (StatusBatchKey key : keys) {
+      batches.computeIfAbsent(key.page(), (page) -> new ArrayList<>()).add(key);
+    }
+
+    return Flux.fromIterable(batches.entrySet())
+        .flatMap((batch) -> {
+          List<L2RasterProduct> products = new ArrayList<>(batch.getValue().size());
+          for (StatusBatchKey key : batch.getValue()) {
+            products.add(key.product());
+          }
+
+          return statusReader
+              .findByProducts(products, batch.getKey().after(), batch.getKey().limit())
+              .flatMapIterable((statuses) -> {
+                List<Map.Entry<StatusBatchKey, List<Status>>> results = new ArrayList<>();
+                for (StatusBatchKey key : batch.getValue()) {
+                  results.add(Map.entry(
+                      key, statuses.getOrDefault(key.product().getId(), List.of())
+                  ));
+                }
+
+                return results;
+              });
+        })
+        .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+  }
+
+  record StatusBatchKey(L2RasterProduct product, UUID after, int limit) {
+    Page page() {
+      return new Page(after, limit);
+    }
+  }
+
+  private record Page(UUID after, int limit) { }
 }
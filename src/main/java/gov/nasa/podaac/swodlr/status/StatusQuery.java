@@ -1,9 +1,12 @@
 package gov.nasa.podaac.swodlr.status;
 
 import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.pagination.Cursor;
 import java.util.List;
 import java.util.UUID;
 
 public interface StatusQuery {
   List<Status> findByProductId(L2RasterProduct product, UUID after, int limit);
+
+  List<Status> findPageByProductId(L2RasterProduct product, Cursor after, int limit);
 }
@@ -1,6 +1,9 @@
 package gov.nasa.podaac.swodlr.status;
 
 import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import gov.nasa.podaac.swodlr.sql.ShapedStatement;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import javax.persistence.EntityManager;
@@ -8,9 +11,49 @@ import javax.persistence.PersistenceContext;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
 import org.hibernate.type.IntegerType;
+import org.hibernate.type.LocalDateTimeType;
 import org.hibernate.type.UUIDCharType;
 
 public class StatusQueryImpl implements StatusQuery {
+  /*
+   * Statuses of a product, newest first. Pages either by the id of the last
+   * status seen (`after`) or by a cursor holding its (timestamp, id)
+   */
+  @SuppressWarnings("LineLength")
+  public static final ShapedStatement FIND_BY_PRODUCT_ID = ShapedStatement
+      .builder("SELECT * FROM \"Status\"")
+      .where("\"productId\" = CAST(:productId AS UUID)")
+      .optional(
+          "(timestamp, id) < (SELECT timestamp, id FROM \"Status\" WHERE id = CAST(:after as UUID))"
+      )
+      .optional(
+          "(timestamp, id) < (CAST(:cursorTimestamp as TIMESTAMP), CAST(:cursorId as UUID))"
+      )
+      .suffix("ORDER BY timestamp DESC, id DESC LIMIT :limit")
+      .build();
+
+  /*
+   * The latest statuses of each of a batch of products, for the status
+   * DataLoader. Ranked per product with a window so that the whole batch is
+   * read with one statement. Rows are ordered by product, then newest first
+   */
+  @SuppressWarnings("LineLength")
+  public static final ShapedStatement FIND_BY_PRODUCT_IDS = ShapedStatement
+      .builder(
+          """
+          SELECT * FROM (
+            SELECT *, row_number() OVER (
+              PARTITION BY \"productId\" ORDER BY timestamp DESC, id DESC
+            ) AS \"rank\" FROM \"Status\"
+          """
+      )
+      .where("\"productId\" IN (:productIds)")
+      .optional(
+          "(timestamp, id) < (SELECT timestamp, id FROM \"Status\" WHERE id = CAST(:after as UUID))"
+      )
+      .suffix(") AS \"ranked\" WHERE \"rank\" <= :limit ORDER BY \"productId\", \"rank\"")
+      .build();
+
   @PersistenceContext
   private EntityManager entityManager;
 
@@ -42,27 +85,41 @@ public class StatusQueryImpl implements StatusQuery {
    */
   @Override
   public List<Status> findByProductId(L2RasterProduct product, UUID after, int limit) {
-    @SuppressWarnings("LineLength")
-    String statement =
-        """
-        SELECT * FROM \"Status\"
-        WHERE 
-          (\"productId\" = CAST(:productId AS UUID))
-          AND
-          (
-            (:after is NULL)
-            OR
-            ((timestamp, id) < (SELECT timestamp, id FROM \"Status\" WHERE id = CAST(:after as UUID)))
-          )
-        ORDER BY timestamp DESC, id DESC LIMIT :limit
-        """;
+    return find(findByProductIdParameters(product.getId(), after, null, limit));
+  }
+
+  @Override
+  public List<Status> findPageByProductId(L2RasterProduct product, Cursor after, int limit) {
+    return find(findByProductIdParameters(product.getId(), null, after, limit));
+  }
+
+  public static ShapedStatement.Parameters findByProductIdParameters(
+      UUID productId, UUID after, Cursor cursor, int limit
+  ) {
+    return new ShapedStatement.Parameters()
+        .set("productId", productId, UUIDCharType.INSTANCE)
+        .set("after", after, UUIDCharType.INSTANCE)
+        .set("cursorTimestamp", cursor != null
+            ? cursor.timestamp() : null, LocalDateTimeType.INSTANCE)
+        .set("cursorId", cursor != null ? cursor.id() : null, UUIDCharType.INSTANCE)
+        .set("limit", limit, IntegerType.INSTANCE);
+  }
+
+  public static ShapedStatement.Parameters findByProductIdsParameters(
+      Collection<UUID> productIds, UUID after, int limit
+  ) {
+    return new ShapedStatement.Parameters()
+        .set("productIds", productIds, UUIDCharType.INSTANCE)
+        .set("after", after, UUIDCharType.INSTANCE)
+        .set("limit", limit, IntegerType.INSTANCE);
+  }
+
+  private List<Status> find(ShapedStatement.Parameters parameters) {
+    ShapedStatement.Bound statement = FIND_BY_PRODUCT_ID.bind(parameters);
 
     Session session = entityManager.unwrap(Session.class);
-    Query<Status> query = session.createNativeQuery(statement, Status.class);
-    query.setParameter("productId", product.getId(), UUIDCharType.INSTANCE);
-    query.setParameter("after", after, UUIDCharType.INSTANCE);
-    query.setParameter("limit", limit, IntegerType.INSTANCE);
+    Query<Status> query = session.createNativeQuery(statement.sql(), Status.class);
 
-    return query.getResultList();
+    return statement.applyTo(query).getResultList();
   }
 }
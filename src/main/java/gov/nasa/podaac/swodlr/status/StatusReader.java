@@ -0,0 +1,28 @@
+package gov.nasa.podaac.swodlr.status;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.pagination.Connection;
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import reactor.core.publisher.Mono;
+
+/*
+ * Read path for statuses used by data fetchers. Implemented with JPA or
+ * R2DBC depending on the swodlr.read-path property
+ */
+public interface StatusReader {
+  Mono<List<Status>> findByProductId(L2RasterProduct product, UUID after, int limit);
+
+  Mono<Connection<Status>> findPageByProductId(L2RasterProduct product, Cursor after, int limit);
+
+  /*
+   * Reads the statuses of a batch of products with one statement, keyed by
+   * product id. Products without statuses are absent from the result
+   */
+  Mono<Map<UUID, List<Status>>> findByProducts(
+      Collection<L2RasterProduct> products, UUID after, int limit
+  );
+}
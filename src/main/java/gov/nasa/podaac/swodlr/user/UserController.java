@@ -1,17 +1,22 @@
 package gov.nasa.podaac.swodlr.user;
 
+import gov.nasa.podaac.swodlr.fetcher.BlockingFetcherExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.ContextValue;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
 
 @Controller
 public class UserController {
+  @Autowired
+  BlockingFetcherExecutor blockingFetcherExecutor;
+
   @Autowired
   UserRepository userRepository;
 
   @QueryMapping
-  public User currentUser(@ContextValue UserReference userRef) {
-    return userRef.fetch();
+  public Mono<User> currentUser(@ContextValue UserReference userRef) {
+    return blockingFetcherExecutor.fromCallable(userRef::fetch);
   }
 }
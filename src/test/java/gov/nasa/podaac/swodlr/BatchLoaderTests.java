@@ -0,0 +1,105 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import gov.nasa.podaac.swodlr.granule.GranuleRepository;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/*
+ * Counts the statements run for nested product fields with H2's query
+ * statistics, which are cleared whenever they are switched off
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource({"file:./src/main/resources/application.properties", "classpath:application.properties"})
+@AutoConfigureHttpGraphQlTester
+public class BatchLoaderTests {
+  private static final int PRODUCTS = 5;
+
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private GranuleRepository granuleRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private ProductGenerator productGenerator;
+
+  @BeforeAll
+  public void createGenerator() {
+    productGenerator = new ProductGenerator(graphQlTester);
+  }
+
+  @AfterEach
+  public void deleteProducts() {
+    jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+    granuleRepository.deleteAll();
+    l2RasterProductRepository.deleteAll();
+  }
+
+  @Test
+  public void loadNestedFieldsOncePerPage() {
+    List<UUID> ids = productGenerator.generateIds(PRODUCTS);
+    for (UUID id : ids) {
+      jdbcTemplate.update(
+          "INSERT INTO \"Granules\" (\"id\", \"productId\", \"uri\") VALUES (?, ?, ?)",
+          UUID.randomUUID(), id, "s3://test-bucket/%s.nc".formatted(id)
+      );
+    }
+
+    jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+    jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+
+    HttpGraphQlTester.Response response = graphQlTester
+        .documentName("query/currentUser_products_nested")
+        .variable("limit", PRODUCTS)
+        .execute();
+
+    for (int i = 0; i < PRODUCTS; i++) {
+      String product = "currentUser.products[%d]".formatted(i);
+      UUID id = response.path(product + ".id").entity(UUID.class).get();
+      response
+          .path(product + ".status[*].state").entityList(String.class).isEqualTo(List.of("NEW"))
+          .path(product + ".status[0].product.id").entity(UUID.class).isEqualTo(id)
+          .path(product + ".granules[*].uri").entityList(String.class)
+          .isEqualTo(List.of("https://earl-grey/test-bucket/%s.nc".formatted(id)));
+    }
+
+    assertEquals(1, executions("row_number()%FROM \"Status\"%"));
+    assertEquals(0, executions("%\"productId\" = CAST(%"));
+    assertEquals(1, executions("SELECT * FROM \"Granules\"%"));
+  }
+
+  private long executions(String pattern) {
+    return jdbcTemplate.queryForObject(
+        """
+        SELECT coalesce(sum(EXECUTION_COUNT), 0) FROM INFORMATION_SCHEMA.QUERY_STATISTICS
+        WHERE SQL_STATEMENT LIKE ?
+        """,
+        Long.class,
+        "%" + pattern
+    );
+  }
+
+}
@@ -0,0 +1,99 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import gov.nasa.podaac.swodlr.fetcher.BlockingFetcherExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestPropertySource({"file:./src/main/resources/application.properties", "classpath:application.properties"})
+@AutoConfigureHttpGraphQlTester
+public class BlockingFetcherExecutorTests {
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private BlockingFetcherExecutor blockingFetcherExecutor;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Test
+  public void runFetchersOnExecutor() {
+    AtomicReference<String> threadName = new AtomicReference<>();
+    blockingFetcherExecutor
+        .fromCallable(() -> threadName.getAndSet(Thread.currentThread().getName()))
+        .block();
+
+    assertTrue(threadName.get().startsWith("blocking-fetcher-"));
+
+    graphQlTester
+        .documentName("query/currentUser")
+        .execute()
+        .path("currentUser.id")
+        .entity(String.class)
+        .isEqualTo("fee1dc78-0604-4fa6-adae-0b4b55440e7d");
+
+    assertTrue(meterRegistry.get("swodlr.fetcher.queue.wait").timer().count() > 0);
+    assertTrue(meterRegistry.get("swodlr.fetcher.run").timer().count() > 0);
+  }
+
+  @Test
+  public void rejectFetchersWhenSaturated() throws InterruptedException {
+    final double rejected = meterRegistry.get("swodlr.fetcher.rejected").counter().count();
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicBoolean saturated = new AtomicBoolean();
+    Disposable.Composite blockers = Disposables.composite();
+
+    try {
+      // Tests run with a single fetcher thread. Wait for it to be occupied
+      // before filling the queue, otherwise it could take queued work and
+      // free up a slot after the executor appeared saturated
+      for (int i = 0; i < 1000 && !saturated.get(); i++) {
+        blockers.add(blockingFetcherExecutor
+            .fromCallable(() -> {
+              running.countDown();
+              release.await();
+              return true;
+            })
+            .subscribe(
+                (result) -> { },
+                (ex) -> saturated.set(ex instanceof SwodlrException)
+            ));
+        running.await();
+      }
+      assertTrue(saturated.get());
+
+      graphQlTester
+          .documentName("query/currentUser")
+          .execute()
+          .errors()
+          .expect((error) -> error.getMessage().equals("The server is busy, please try again later"))
+          .verify()
+          .path("currentUser")
+          .valueIsNull();
+    } finally {
+      release.countDown();
+      blockers.dispose();
+    }
+
+    assertEquals(rejected + 2, meterRegistry.get("swodlr.fetcher.rejected").counter().count());
+  }
+}
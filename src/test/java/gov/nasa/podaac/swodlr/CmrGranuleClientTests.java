@@ -0,0 +1,237 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import gov.nasa.podaac.swodlr.cmr.CmrGranuleClient;
+import gov.nasa.podaac.swodlr.cmr.Scene;
+import gov.nasa.podaac.swodlr.cmr.SceneInputs;
+import gov.nasa.podaac.swodlr.cmr.TileGranules;
+import gov.nasa.podaac.swodlr.exception.SwodlrException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource(
+    locations = {"file:./src/main/resources/application.properties", "classpath:application.properties"},
+    properties = {
+      "swodlr.cmr.tiles-per-query=10",
+      "swodlr.cmr.missing-cache-ttl=PT0S"
+    }
+)
+public class CmrGranuleClientTests {
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+  private static final StubCmr cmr = new StubCmr();
+
+  @Autowired
+  private CmrGranuleClient cmrGranuleClient;
+
+  @DynamicPropertySource
+  static void cmrEndpoint(DynamicPropertyRegistry registry) {
+    registry.add("swodlr.cmr.endpoint", cmr::url);
+  }
+
+  @BeforeEach
+  public void resetCmr() {
+    cmr.reset();
+  }
+
+  @AfterAll
+  public void stopCmr() {
+    cmr.server.stop(0);
+  }
+
+  @Test
+  public void findScenesInBatches() {
+    final List<SceneInputs> inputs = cmrGranuleClient
+        .findScenes(List.of(new Scene(1, 2, 3), new Scene(1, 2, 10)))
+        .block(TIMEOUT);
+
+    // 16 tile sides, 10 per query; queries run concurrently, in any order
+    Set<Integer> batchSizes = new HashSet<>();
+    for (JsonNode request : cmr.requests) {
+      assertEquals(
+          request.at("/pixcParams/readableGranuleName").size(),
+          request.at("/pixcVecParams/readableGranuleName").size()
+      );
+      batchSizes.add(request.at("/pixcParams/readableGranuleName").size());
+    }
+    assertEquals(2, cmr.requests.size());
+    assertEquals(Set.of(10, 6), batchSizes);
+    assertEquals(
+        "SWOT_L2_HR_PIXC_2.0", cmr.requests.get(0).at("/pixcParams/shortName").asText()
+    );
+
+    assertEquals(new Scene(1, 2, 3), inputs.get(0).scene());
+    assertEquals(new Scene(1, 2, 10), inputs.get(1).scene());
+    for (SceneInputs scene : inputs) {
+      assertTrue(scene.available());
+      assertEquals(8, scene.tiles().size());
+      assertEquals(8 * (StubCmr.PIXC_SIZE + StubCmr.PIXC_VEC_SIZE), scene.sizeMb());
+    }
+
+    TileGranules tile = inputs.get(0).tiles().get(0);
+    assertEquals(4, tile.tile().tile());
+    assertEquals('L', tile.tile().side());
+    assertEquals(
+        List.of("s3://podaac-swot/" + tile.pixc().get(0).granuleUr() + ".nc"),
+        tile.pixc().get(0).links()
+    );
+  }
+
+  @Test
+  public void cacheTiles() {
+    cmrGranuleClient.findScenes(List.of(new Scene(4, 5, 2))).block(TIMEOUT);
+    assertEquals(1, cmr.requests.size());
+
+    cmrGranuleClient.findScenes(List.of(new Scene(4, 5, 2))).block(TIMEOUT);
+    assertEquals(1, cmr.requests.size());
+
+    // Shares tiles 4 and 5 with scene 2, so only 6 and 7 are looked up
+    assertTrue(cmrGranuleClient.findScenes(List.of(new Scene(4, 5, 3))).block(TIMEOUT)
+        .get(0).available());
+    assertEquals(2, cmr.requests.size());
+    assertEquals(4, cmr.requests.get(1).at("/pixcParams/readableGranuleName").size());
+  }
+
+  @Test
+  public void retryMissingTiles() {
+    cmr.missing.add("SWOT_L2_HR_PIXCVec_007_008_003R_*");
+
+    SceneInputs inputs = cmrGranuleClient.findScenes(List.of(new Scene(7, 8, 2)))
+        .block(TIMEOUT).get(0);
+    assertFalse(inputs.available());
+    assertTrue(inputs.tiles().get(3).pixcVec().isEmpty());
+    assertFalse(inputs.tiles().get(3).pixc().isEmpty());
+
+    // Missing tiles aren't cached for long, so ingested granules are found
+    cmr.missing.clear();
+    assertTrue(cmrGranuleClient.findScenes(List.of(new Scene(7, 8, 2))).block(TIMEOUT)
+        .get(0).available());
+  }
+
+  @Test
+  public void reportErrors() {
+    cmr.failing = true;
+    assertThrows(
+        SwodlrException.class,
+        () -> cmrGranuleClient.findScenes(List.of(new Scene(9, 9, 9))).block(TIMEOUT)
+    );
+  }
+
+  /*
+   * Answers granule lookups with a granule for each name pattern it's given
+   */
+  private static class StubCmr {
+    static final double PIXC_SIZE = 250.5;
+    static final double PIXC_VEC_SIZE = 40.25;
+
+    final HttpServer server;
+    final List<JsonNode> requests = new ArrayList<>();
+    final Set<String> missing = ConcurrentHashMap.newKeySet();
+    volatile boolean failing;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    StubCmr() {
+      try {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      server.createContext("/api", this::handle);
+      server.start();
+    }
+
+    String url() {
+      return "http://localhost:%d/api".formatted(server.getAddress().getPort());
+    }
+
+    synchronized void reset() {
+      requests.clear();
+      missing.clear();
+      failing = false;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+      JsonNode variables = objectMapper.readTree(exchange.getRequestBody()).get("variables");
+      synchronized (this) {
+        requests.add(variables);
+      }
+
+      Object body;
+      if (failing) {
+        body = Map.of("errors", List.of(Map.of("message", "Service unavailable")));
+      } else {
+        body = Map.of("data", Map.of(
+            "pixc", granules(variables.get("pixcParams"), PIXC_SIZE),
+            "pixcVec", granules(variables.get("pixcVecParams"), PIXC_VEC_SIZE)
+        ));
+      }
+
+      byte[] response = objectMapper.writeValueAsBytes(body);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, response.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(response);
+      }
+    }
+
+    private Map<String, Object> granules(JsonNode params, double size) {
+      List<Map<String, Object>> items = new ArrayList<>();
+      for (JsonNode pattern : params.get("readableGranuleName")) {
+        if (missing.contains(pattern.asText())) {
+          continue;
+        }
+
+        String granuleUr = pattern.asText()
+            .replace("*", "20230801T000000_20230801T000100_PIC0_01");
+        items.add(Map.of(
+            "granuleUr", granuleUr,
+            "granuleSize", size,
+            "links", List.of(
+                Map.of(
+                    "href", "s3://podaac-swot/" + granuleUr + ".nc",
+                    "rel", "http://esipfed.org/ns/fedsearch/1.1/s3#"
+                ),
+                Map.of(
+                    "href", "https://cmr.earthdata.nasa.gov/search/concepts/G1-POCLOUD.xml",
+                    "rel", "http://esipfed.org/ns/fedsearch/1.1/metadata#"
+                )
+            )
+        ));
+      }
+
+      return Map.of("count", items.size(), "items", items);
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.nasa.podaac.swodlr.granule.GranuleManifestRepository;
+import gov.nasa.podaac.swodlr.granule.GranuleRepository;
+import gov.nasa.podaac.swodlr.granule.ManifestEntry;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductFilter;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.producthistory.ProductHistoryBuffer;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource(
+    locations = {"file:./src/main/resources/application.properties", "classpath:application.properties"},
+    properties = {"swodlr.granule-manifest.page-size=50"}
+)
+@AutoConfigureHttpGraphQlTester
+public class GranuleManifestTests {
+  private static final int GRANULES = 300;
+
+  private final Set<String> firstUrls = new HashSet<>();
+  private final Set<String> secondUrls = new HashSet<>();
+
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private GranuleRepository granuleRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private GranuleManifestRepository granuleManifestRepository;
+
+  @Autowired
+  private ProductHistoryBuffer productHistoryBuffer;
+
+  private UUID first;
+  private ProductGenerator productGenerator;
+
+  @BeforeAll
+  public void createGenerator() {
+    productGenerator = new ProductGenerator(graphQlTester);
+  }
+
+  @BeforeEach
+  public void seedGranules() {
+    first = productGenerator.generateId(ProductGenerator.request(70));
+    final UUID second = productGenerator.generateId(ProductGenerator.request(71));
+
+    // Not requested by the mock user, so never in its manifests
+    L2RasterProduct other = l2RasterProductRepository.save(
+        new L2RasterProduct(72, 1, 1, false, GridType.GEO, 8, null, null)
+    );
+    insertGranule(other.getId(), "other/granule.nc");
+
+    for (int i = 0; i < GRANULES; i++) {
+      firstUrls.add(insertGranule(first, "first/granule_" + i + ".nc"));
+    }
+    secondUrls.add(insertGranule(second, "second/granule.nc"));
+  }
+
+  @AfterEach
+  public void deleteProducts() {
+    firstUrls.clear();
+    secondUrls.clear();
+    granuleRepository.deleteAll();
+    l2RasterProductRepository.deleteAll();
+  }
+
+  @Test
+  public void streamNdjson() throws IOException {
+    String body = webTestClient.get()
+        .uri("/granules/manifest")
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentType(MediaType.parseMediaType("application/x-ndjson"))
+        .expectHeader().valueEquals(
+            "Content-Disposition", "attachment; filename=\"swodlr-granules.ndjson\""
+        )
+        .expectBody(String.class)
+        .returnResult()
+        .getResponseBody();
+
+    Set<String> urls = new HashSet<>();
+    for (String line : body.split("\n")) {
+      JsonNode entry = objectMapper.readTree(line);
+      assertTrue(entry.get("cycle").asInt() == 70 || entry.get("cycle").asInt() == 71);
+      urls.add(entry.get("url").asText());
+    }
+
+    Set<String> expected = new HashSet<>(firstUrls);
+    expected.addAll(secondUrls);
+    assertEquals(GRANULES + 1, body.split("\n").length);
+    assertEquals(expected, urls);
+  }
+
+  @Test
+  public void filterProducts() throws IOException {
+    String body = webTestClient.get()
+        .uri("/granules/manifest?cycleMin=71&currentStates=NEW")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(String.class)
+        .returnResult()
+        .getResponseBody();
+
+    List<String> urls = new ArrayList<>();
+    for (String line : body.split("\n")) {
+      urls.add(objectMapper.readTree(line).get("url").asText());
+    }
+    assertEquals(List.copyOf(secondUrls), urls);
+
+    webTestClient.get()
+        .uri("/granules/manifest?currentStates=READY")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody().isEmpty();
+  }
+
+  @Test
+  public void streamMetalink() {
+    String body = webTestClient.get()
+        .uri("/granules/manifest?format=METALINK&cycleMin=71")
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentType(MediaType.parseMediaType("application/metalink4+xml"))
+        .expectBody(String.class)
+        .returnResult()
+        .getResponseBody();
+
+    assertEquals(
+        """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <metalink xmlns="urn:ietf:params:xml:ns:metalink">
+          <file name="granule.nc">
+            <url>https://earl-grey/test-bucket/second/granule.nc</url>
+          </file>
+        </metalink>
+        """,
+        body
+    );
+  }
+
+  @Test
+  public void streamWgetScript() {
+    String body = webTestClient.get()
+        .uri("/granules/manifest?format=WGET")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(String.class)
+        .returnResult()
+        .getResponseBody();
+
+    assertTrue(body.startsWith("#!/bin/sh\n"));
+    assertTrue(body.contains("\nfetch 'https://earl-grey/test-bucket/second/granule.nc'\n"));
+    assertEquals(GRANULES + 1, body.lines().filter((line) -> line.startsWith("fetch '")).count());
+  }
+
+  @Test
+  public void releaseConnectionBetweenPages() {
+    productHistoryBuffer.flush();
+    UUID userId = jdbcTemplate.queryForObject(
+        "SELECT \"requestedById\" FROM \"ProductHistory\" WHERE \"rasterProductId\" = ?",
+        UUID.class, first
+    );
+    L2RasterProductFilter filter = new L2RasterProductFilter(
+        null, null, null, null, null, null, null
+    );
+
+    Iterator<ManifestEntry> entries = granuleManifestRepository
+        .streamManifest(userId, filter)
+        .toIterable(1)
+        .iterator();
+    entries.next();
+
+    // The pool's only connection isn't held by the partly read manifest
+    assertEquals(GRANULES + 2, granuleRepository.count());
+
+    int count = 1;
+    for (; entries.hasNext(); count++) {
+      entries.next();
+    }
+    assertEquals(GRANULES + 1, count);
+  }
+
+  @Test
+  public void rejectInvalidRequests() {
+    webTestClient.get()
+        .uri("/granules/manifest?format=ZIP")
+        .exchange()
+        .expectStatus().isBadRequest();
+
+    webTestClient.get()
+        .uri("/granules/manifest?passes=")
+        .exchange()
+        .expectStatus().isBadRequest()
+        .expectBody()
+        .jsonPath("$.error").isEqualTo("`passes` must not be empty");
+  }
+
+  private String insertGranule(UUID productId, String path) {
+    jdbcTemplate.update(
+        """
+        INSERT INTO \"Granules\" (\"id\", \"productId\", \"timestamp\", \"uri\")
+        VALUES (?, ?, ?, ?)
+        """,
+        UUID.randomUUID(), productId, Timestamp.valueOf(LocalDateTime.now()),
+        "s3://test-bucket/" + path
+    );
+
+    return "https://earl-grey/test-bucket/" + path;
+  }
+
+}
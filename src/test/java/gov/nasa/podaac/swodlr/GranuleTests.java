@@ -1,12 +1,17 @@
 package gov.nasa.podaac.swodlr;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import gov.nasa.podaac.swodlr.granule.Granule;
 import gov.nasa.podaac.swodlr.granule.GranuleRepository;
+import gov.nasa.podaac.swodlr.granule.TeaMapper;
 import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
 import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
 import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -38,6 +43,9 @@ public class GranuleTests {
   @Autowired
   private HttpGraphQlTester graphQlTester;
 
+  @Autowired
+  private TeaMapper teaMapper;
+
   @BeforeAll
   void initMocks() {
     mockProduct = new L2RasterProduct(
@@ -79,4 +87,30 @@ public class GranuleTests {
           assertTrue(uri.equals("https://earl-grey/test-bucket/path"))
         );
   }
+
+  @Test
+  public void convertMatchesUriConversion() throws URISyntaxException {
+    List<String> s3Uris = List.of(
+        "s3://test-bucket/path",
+        "s3://test-bucket/a/b/SWOT_L2_HR_Raster_100m_UTM10T_N_x_x_x_001_002_003F.nc",
+        "s3://test-bucket/with%20space",
+        "s3://test-bucket/with%2Fslash",
+        "s3://test-bucket/query?x=1",
+        "s3://test-bucket/caf\u00e9", // non-ASCII
+        "s3://other-bucket/path"
+    );
+
+    for (String s3Uri : s3Uris) {
+      assertEquals(
+          teaMapper.convertS3Uri(URI.create(s3Uri)).toString(),
+          teaMapper.convert(s3Uri),
+          s3Uri
+      );
+    }
+
+    assertEquals(
+        List.of("https://earl-grey/test-bucket/b", "https://earl-grey/test-bucket/a"),
+        teaMapper.convertAll(List.of("s3://test-bucket/b", "s3://test-bucket/a"))
+    );
+  }
 }
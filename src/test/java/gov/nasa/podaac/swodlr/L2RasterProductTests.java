@@ -2,23 +2,32 @@ package gov.nasa.podaac.swodlr;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductBatchRepository;
 import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
-import gov.nasa.podaac.swodlr.queue.ProductCreateQueue;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductService;
+import gov.nasa.podaac.swodlr.queue.InMemorySqsAsyncClient;
+import gov.nasa.podaac.swodlr.queue.ProductCreateOutboxRelay;
 import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
 import gov.nasa.podaac.swodlr.status.State;
+import gov.nasa.podaac.swodlr.status.Status;
+import gov.nasa.podaac.swodlr.status.StatusRepository;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,13 +37,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
-import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.graphql.test.tester.GraphQlTester.Response;
 import org.springframework.graphql.test.tester.HttpGraphQlTester;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
-import reactor.core.publisher.Mono;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
 @ActiveProfiles({"test"})
@@ -48,13 +57,31 @@ public class L2RasterProductTests {
   @Autowired
   private L2RasterProductRepository l2RasterProductRepository;
 
-  @MockBean
-  private ProductCreateQueue productCreateQueue;
+  @Autowired
+  private L2RasterProductService l2RasterProductService;
+
+  @Autowired
+  private StatusRepository statusRepository;
+
+  @Autowired
+  private L2RasterProductBatchRepository l2RasterProductBatchRepository;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private ProductCreateOutboxRelay productCreateOutboxRelay;
+
+  @Autowired
+  private InMemorySqsAsyncClient sqsClient;
 
-  @BeforeEach 
-  public void initMock() {
-    when(productCreateQueue.queueProduct(any(L2RasterProduct.class)))
-        .thenReturn(Mono.empty());
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @BeforeEach
+  public void resetQueue() {
+    productCreateOutboxRelay.relay();
+    sqsClient.reset();
   }
 
   @AfterEach
@@ -104,7 +131,8 @@ public class L2RasterProductTests {
         });
       
     // Verify queue invoked on new product
-    verify(productCreateQueue).queueProduct(any());
+    UUID id = response.path("generateL2RasterProduct.id").entity(UUID.class).get();
+    assertEquals(List.of(id), relayQueuedProducts());
 
     /* -- Status -- */
     // Timestamp
@@ -129,6 +157,453 @@ public class L2RasterProductTests {
         .path("generateL2RasterProduct.status[*].reason")
         .entityList(Object.class)
         .containsExactly(new Object[] {null});
+
+    // Current state
+    response
+        .path("generateL2RasterProduct.currentState")
+        .entity(String.class)
+        .isEqualTo(State.NEW.toString());
+    response
+        .path("generateL2RasterProduct.currentStatusId")
+        .entity(UUID.class)
+        .isEqualTo(response.path("generateL2RasterProduct.status[0].id").entity(UUID.class).get());
+  }
+
+  @Test
+  public void trackCurrentStateAcrossStatuses() {
+    UUID id = graphQlTester
+        .documentName("mutation/generateL2RasterProduct")
+        .variable("cycle", 4)
+        .variable("pass", 5)
+        .variable("scene", 6)
+        .variable("outputGranuleExtentFlag", false)
+        .variable("outputSamplingGridType", GridType.GEO)
+        .variable("rasterResolution", 8)
+        .execute()
+        .path("generateL2RasterProduct.id")
+        .entity(UUID.class)
+        .get();
+    relayQueuedProducts();
+    sqsClient.reset();
+
+    L2RasterProduct invalidated = l2RasterProductService.invalidateProduct(id);
+    assertEquals(State.UNAVAILABLE, invalidated.getCurrentState());
+
+    L2RasterProduct stored = l2RasterProductRepository.findById(id).get();
+    assertEquals(State.UNAVAILABLE, stored.getCurrentState());
+    assertEquals(invalidated.getCurrentStatusId(), stored.getCurrentStatusId());
+
+    // Requesting an unavailable product restarts generation
+    Response response = graphQlTester
+        .documentName("mutation/generateL2RasterProduct")
+        .variable("cycle", 4)
+        .variable("pass", 5)
+        .variable("scene", 6)
+        .variable("outputGranuleExtentFlag", false)
+        .variable("outputSamplingGridType", GridType.GEO)
+        .variable("rasterResolution", 8)
+        .execute();
+
+    response
+        .path("generateL2RasterProduct.currentState")
+        .entity(String.class)
+        .isEqualTo(State.NEW.toString());
+    response
+        .path("generateL2RasterProduct.status[*].state")
+        .entityList(String.class)
+        .containsExactly(State.NEW.toString(), State.UNAVAILABLE.toString(), State.NEW.toString());
+    assertEquals(List.of(id), relayQueuedProducts());
+
+    stored = l2RasterProductRepository.findById(id).get();
+    assertEquals(State.NEW, stored.getCurrentState());
+    assertEquals(
+        response.path("generateL2RasterProduct.status[0].id").entity(UUID.class).get(),
+        stored.getCurrentStatusId()
+    );
+  }
+
+  @Test
+  public void coalesceConcurrentIdenticalRequests() throws Exception {
+    final int requests = 16;
+
+    ExecutorService executor = Executors.newFixedThreadPool(requests);
+    List<Future<UUID>> results = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < requests; i++) {
+        results.add(executor.submit(() -> graphQlTester
+            .documentName("mutation/generateL2RasterProduct")
+            .variable("cycle", 4)
+            .variable("pass", 5)
+            .variable("scene", 6)
+            .variable("outputGranuleExtentFlag", false)
+            .variable("outputSamplingGridType", GridType.UTM)
+            .variable("rasterResolution", 1000)
+            .variable("utmZoneAdjust", 0)
+            .variable("mgrsBandAdjust", 0)
+            .execute()
+            .path("generateL2RasterProduct.id")
+            .entity(UUID.class)
+            .get()
+        ));
+      }
+
+      Set<UUID> productIds = new HashSet<>();
+      for (Future<UUID> result : results) {
+        productIds.add(result.get());
+      }
+
+      assertEquals(1, productIds.size());
+      assertEquals(1, l2RasterProductRepository.count());
+      assertEquals(List.copyOf(productIds), relayQueuedProducts());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void generateL2RasterProductsInBatch() {
+    // Pre-existing product which should be resolved rather than recreated
+    UUID existingId = graphQlTester
+        .documentName("mutation/generateL2RasterProduct")
+        .variable("cycle", 7)
+        .variable("pass", 8)
+        .variable("scene", 9)
+        .variable("outputGranuleExtentFlag", false)
+        .variable("outputSamplingGridType", GridType.GEO)
+        .variable("rasterResolution", 8)
+        .execute()
+        .path("generateL2RasterProduct.id")
+        .entity(UUID.class)
+        .get();
+
+    List<Map<String, Object>> requests = List.of(
+        batchRequest(10, 11, 12),
+        batchRequest(7, 8, 9),
+        batchRequest(13, 14, 15),
+        batchRequest(10, 11, 12)
+    );
+
+    Response response = graphQlTester
+        .documentName("mutation/generateL2RasterProducts")
+        .variable("requests", requests)
+        .execute();
+
+    List<UUID> ids = response
+        .path("generateL2RasterProducts[*].id")
+        .entityList(UUID.class)
+        .hasSize(requests.size())
+        .get();
+
+    // Results are returned in request order
+    response
+        .path("generateL2RasterProducts[*].scene")
+        .entityList(Integer.class)
+        .containsExactly(12, 9, 15, 12);
+
+    assertEquals(existingId, ids.get(1));
+    assertEquals(ids.get(0), ids.get(3));
+    assertEquals(3, new HashSet<>(ids).size());
+    assertEquals(3, l2RasterProductRepository.count());
+
+    // Only the new products are queued after the pre-existing product
+    assertEquals(List.of(existingId, ids.get(0), ids.get(2)), relayQueuedProducts());
+    response
+        .path("generateL2RasterProducts[*].status[*].state")
+        .entityList(String.class)
+        .containsExactly(
+            State.NEW.toString(),
+            State.NEW.toString(),
+            State.NEW.toString(),
+            State.NEW.toString()
+        );
+
+    // Every product is added to the user's history
+    graphQlTester
+        .documentName("query/currentUser_products")
+        .variable("limit", 10)
+        .execute()
+        .path("currentUser.products[*].id")
+        .entityList(UUID.class)
+        .hasSize(3)
+        .contains(ids.get(0), ids.get(1), ids.get(2));
+  }
+
+  @Test
+  public void generateL2RasterProductsWithInvalidRequest() {
+    Map<String, Object> invalidRequest = new HashMap<>(batchRequest(1, 1, 1));
+    invalidRequest.put("scene", 1000);
+
+    graphQlTester
+        .documentName("mutation/generateL2RasterProducts")
+        .variable("requests", List.of(batchRequest(0, 0, 0), invalidRequest))
+        .execute()
+        .errors()
+        .satisfy(errors -> {
+          assertEquals(1, errors.size());
+
+          var error = errors.get(0);
+          assertEquals("generateL2RasterProducts", error.getPath());
+          assertEquals("ValidationError", error.getExtensions().get("classification"));
+          assertEquals("requests[1].scene", error.getExtensions().get("property"));
+        });
+
+    assertEquals(0, l2RasterProductRepository.count());
+  }
+
+  @Test
+  public void pageCurrentUsersProductsWithCursors() {
+    final int total = 7;
+    final int pageLimit = 3;
+
+    for (int i = 0; i < total; i++) {
+      graphQlTester
+          .documentName("mutation/generateL2RasterProduct")
+          .variable("cycle", i)
+          .variable("pass", i)
+          .variable("scene", i)
+          .variable("outputGranuleExtentFlag", false)
+          .variable("outputSamplingGridType", GridType.GEO)
+          .variable("rasterResolution", 8)
+          .executeAndVerify();
+    }
+
+    // Cursor pages follow the same order as the `after: ID` pages
+    List<UUID> expected = graphQlTester
+        .documentName("query/currentUser_products")
+        .variable("limit", total)
+        .execute()
+        .path("currentUser.products[*].id")
+        .entityList(UUID.class)
+        .hasSize(total)
+        .get();
+
+    List<UUID> seen = new ArrayList<>();
+    List<Boolean> hasNextPages = new ArrayList<>();
+    String after = null;
+    boolean hasNextPage = true;
+
+    while (hasNextPage) {
+      Response response = graphQlTester
+          .documentName("query/currentUser_productsConnection")
+          .variable("after", after)
+          .variable("limit", pageLimit)
+          .execute();
+
+      final List<UUID> ids = response
+          .path("currentUser.productsConnection.edges[*].node.id")
+          .entityList(UUID.class)
+          .get();
+      final List<String> cursors = response
+          .path("currentUser.productsConnection.edges[*].cursor")
+          .entityList(String.class)
+          .get();
+      hasNextPage = response
+          .path("currentUser.productsConnection.pageInfo.hasNextPage")
+          .entity(Boolean.class)
+          .get();
+
+      response
+          .path("currentUser.productsConnection.edges[*].node.currentState")
+          .entityList(String.class)
+          .satisfies((states) -> assertTrue(
+              states.stream().allMatch(State.NEW.toString()::equals)
+          ));
+
+      after = response
+          .path("currentUser.productsConnection.pageInfo.endCursor")
+          .entity(String.class)
+          .get();
+      assertEquals(cursors.get(cursors.size() - 1), after);
+
+      seen.addAll(ids);
+      hasNextPages.add(hasNextPage);
+    }
+
+    assertEquals(expected, seen);
+    assertEquals(List.of(true, true, false), hasNextPages);
+  }
+
+  @Test
+  public void pageCurrentUsersProductsWithInvalidCursor() {
+    graphQlTester
+        .documentName("query/currentUser_productsConnection")
+        .variable("after", "not-a-cursor")
+        .execute()
+        .errors()
+        .satisfy(errors -> {
+          assertEquals(1, errors.size());
+          assertEquals("Invalid `after` parameter", errors.get(0).getMessage());
+        });
+  }
+
+  @Test
+  public void pageCurrentUsersProductsWithNegativeLimit() {
+    graphQlTester
+        .documentName("query/currentUser_productsConnection")
+        .variable("limit", -1)
+        .execute()
+        .errors()
+        .satisfy(errors -> {
+          assertEquals(1, errors.size());
+
+          var error = errors.get(0);
+          assertEquals("currentUser.productsConnection", error.getPath());
+          assertEquals("ValidationError", error.getExtensions().get("classification"));
+          assertEquals("limit", error.getExtensions().get("property"));
+        });
+  }
+
+  @Test
+  public void invalidateProductsMatchingFilter() {
+    List<Map<String, Object>> requests = new ArrayList<>();
+    for (int pass = 1; pass <= 3; pass++) {
+      for (int scene = 1; scene <= 2; scene++) {
+        requests.add(batchRequest(20, pass, scene));
+      }
+    }
+    requests.add(batchRequest(21, 1, 1));
+
+    final List<UUID> ids = graphQlTester
+        .documentName("mutation/generateL2RasterProducts")
+        .variable("requests", requests)
+        .execute()
+        .path("generateL2RasterProducts[*].id")
+        .entityList(UUID.class)
+        .get();
+    relayQueuedProducts();
+    sqsClient.reset();
+
+    graphQlTester
+        .documentName("mutation/invalidateProducts")
+        .variable("filter", Map.of("cycleMin", 20, "cycleMax", 20, "passes", List.of(1, 2)))
+        .variable("reason", "Reprocessing")
+        .execute()
+        .path("invalidateProducts")
+        .entity(Integer.class)
+        .isEqualTo(4);
+
+    // Only the first four requests are for cycle 20, passes 1 and 2
+    for (int i = 0; i < ids.size(); i++) {
+      L2RasterProduct product = l2RasterProductRepository.findById(ids.get(i)).get();
+      if (i < 4) {
+        assertEquals(State.UNAVAILABLE, product.getCurrentState());
+        Status status = statusRepository.findById(product.getCurrentStatusId()).get();
+        assertEquals(State.UNAVAILABLE, status.getState());
+        assertEquals("Reprocessing", status.getReason());
+      } else {
+        assertEquals(State.NEW, product.getCurrentState());
+      }
+    }
+
+    assertTrue(relayQueuedProducts().isEmpty());
+  }
+
+  @Test
+  public void keepNewerCurrentStatusesOnBulkOperations() {
+    final List<UUID> ids = graphQlTester
+        .documentName("mutation/generateL2RasterProducts")
+        .variable("requests", List.of(batchRequest(22, 1, 1), batchRequest(22, 1, 2)))
+        .execute()
+        .path("generateL2RasterProducts[*].id")
+        .entityList(UUID.class)
+        .get();
+    relayQueuedProducts();
+    sqsClient.reset();
+
+    L2RasterProduct ready = l2RasterProductRepository.findById(ids.get(0)).get();
+    transactionTemplate.executeWithoutResult((status) -> {
+      l2RasterProductBatchRepository.insertStatuses(List.of(
+          new Status(ready, State.READY, null, LocalDateTime.now().plusMinutes(1))
+      ));
+    });
+
+    graphQlTester
+        .documentName("mutation/regenerateProducts")
+        .variable("filter", Map.of("cycleMin", 22, "cycleMax", 22))
+        .variable("reason", "Reprocessing")
+        .execute()
+        .path("regenerateProducts")
+        .entity(Integer.class)
+        .isEqualTo(2);
+
+    // Both statuses are recorded and queued, but only the older current
+    // status is replaced
+    assertEquals(State.READY, l2RasterProductRepository.findById(ids.get(0)).get()
+        .getCurrentState());
+    L2RasterProduct regenerated = l2RasterProductRepository.findById(ids.get(1)).get();
+    assertEquals(State.NEW, regenerated.getCurrentState());
+    assertEquals("Reprocessing",
+        statusRepository.findById(regenerated.getCurrentStatusId()).get().getReason());
+    for (UUID id : ids) {
+      assertEquals(1, statusRepository.findAll().stream()
+          .filter((status) -> status.getProduct().getId().equals(id))
+          .filter((status) -> "Reprocessing".equals(status.getReason()))
+          .count());
+    }
+    assertEquals(Set.copyOf(ids), Set.copyOf(relayQueuedProducts()));
+  }
+
+  @Test
+  public void rejectUnfilteredBulkOperations() {
+    graphQlTester
+        .documentName("mutation/invalidateProducts")
+        .variable("filter", Map.of())
+        .execute()
+        .errors()
+        .satisfy(errors -> {
+          assertEquals(1, errors.size());
+          assertEquals("At least one filter must be given", errors.get(0).getMessage());
+        });
+
+    graphQlTester
+        .documentName("mutation/regenerateProducts")
+        .variable("filter", Map.of("cycleMin", 1, "passes", List.of()))
+        .execute()
+        .errors()
+        .satisfy(errors -> {
+          assertEquals(1, errors.size());
+          assertEquals("`passes` must not be empty", errors.get(0).getMessage());
+        });
+  }
+
+  private List<UUID> relayQueuedProducts() {
+    productCreateOutboxRelay.relay();
+
+    List<UUID> productIds = new ArrayList<>();
+    for (String message : sqsClient.getMessages()) {
+      try {
+        productIds.add(UUID.fromString(objectMapper.readTree(message).get("product_id").asText()));
+      } catch (Exception ex) {
+        throw new RuntimeException(ex);
+      }
+    }
+
+    return productIds;
+  }
+
+  private Map<String, Object> batchRequest(int cycle, int pass, int scene) {
+    return Map.of(
+        "cycle", cycle,
+        "pass", pass,
+        "scene", scene,
+        "outputGranuleExtentFlag", false,
+        "outputSamplingGridType", GridType.GEO.toString(),
+        "rasterResolution", 8
+    );
+  }
+
+  @Test
+  public void rejectDuplicateProductKeys() {
+    l2RasterProductRepository.saveAndFlush(
+        new L2RasterProduct(1, 2, 3, false, GridType.UTM, 1000, 0, 0)
+    );
+
+    assertThrows(DataIntegrityViolationException.class, () -> {
+      l2RasterProductRepository.saveAndFlush(
+          new L2RasterProduct(1, 2, 3, false, GridType.UTM, 1000, 0, 0)
+      );
+    });
   }
 
   @Test
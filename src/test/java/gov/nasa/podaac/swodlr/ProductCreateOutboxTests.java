@@ -0,0 +1,208 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.queue.InMemorySqsAsyncClient;
+import gov.nasa.podaac.swodlr.queue.ProductCreateOutbox;
+import gov.nasa.podaac.swodlr.queue.ProductCreateOutboxRelay;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource(
+    locations = {"file:./src/main/resources/application.properties", "classpath:application.properties"},
+    properties = {
+      "swodlr.product-create-relay.bulk-limit=5",
+      "swodlr.product-create-relay.max-attempts=2"
+    }
+)
+@AutoConfigureHttpGraphQlTester
+public class ProductCreateOutboxTests {
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private ProductCreateOutbox productCreateOutbox;
+
+  @Autowired
+  private ProductCreateOutboxRelay productCreateOutboxRelay;
+
+  @Autowired
+  private InMemorySqsAsyncClient sqsClient;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private ProductGenerator productGenerator;
+
+  @BeforeAll
+  public void createGenerator() {
+    productGenerator = new ProductGenerator(graphQlTester);
+  }
+
+  @BeforeEach
+  public void resetQueue() {
+    productCreateOutboxRelay.relay();
+    sqsClient.reset();
+  }
+
+  @AfterEach
+  public void deleteProducts() {
+    l2RasterProductRepository.deleteAll();
+  }
+
+  @Test
+  public void relayProductsInBatchesInOrder() {
+    final List<UUID> ids = productGenerator.generateIds(12);
+
+    // Products are only queued once relayed
+    assertEquals(12, productCreateOutbox.size());
+    assertTrue(sqsClient.getMessages().isEmpty());
+
+    productCreateOutboxRelay.relay();
+
+    assertEquals(ids, queuedProductIds());
+    assertEquals(List.of(10, 2), sqsClient.getBatchSizes());
+    assertEquals(0, productCreateOutbox.size());
+  }
+
+  @Test
+  public void retryFailedBatches() throws InterruptedException {
+    sqsClient.failNextRequests(1);
+
+    final UUID id = productGenerator.generateId();
+
+    productCreateOutboxRelay.relay();
+    assertTrue(sqsClient.getMessages().isEmpty());
+    assertEquals(1, productCreateOutbox.size());
+
+    // The failed entry is retried once the relay's backoff has elapsed
+    for (int i = 0; i < 50 && sqsClient.getMessages().isEmpty(); i++) {
+      Thread.sleep(100);
+      productCreateOutboxRelay.relay();
+    }
+
+    assertEquals(List.of(id), queuedProductIds());
+    assertEquals(0, productCreateOutbox.size());
+  }
+
+  @Test
+  public void retryOnlyRejectedEntries() throws InterruptedException {
+    final List<UUID> ids = productGenerator.generateIds(3);
+    sqsClient.rejectMessagesContaining(ids.get(1).toString());
+
+    productCreateOutboxRelay.relay();
+    assertEquals(List.of(ids.get(0), ids.get(2)), queuedProductIds());
+    assertEquals(1, productCreateOutbox.size());
+
+    // Only the rejected entry is sent again, once its backoff has elapsed
+    sqsClient.reset();
+    for (int i = 0; i < 50 && sqsClient.getMessages().isEmpty(); i++) {
+      Thread.sleep(100);
+      productCreateOutboxRelay.relay();
+    }
+
+    assertEquals(List.of(ids.get(1)), queuedProductIds());
+    assertEquals(0, productCreateOutbox.size());
+  }
+
+  @Test
+  public void skipDeadLetters() throws InterruptedException {
+    final List<UUID> ids = productGenerator.generateIds(2);
+    sqsClient.rejectMessagesContaining(ids.get(0).toString());
+
+    productCreateOutboxRelay.relay();
+    assertEquals(List.of(ids.get(1)), queuedProductIds());
+
+    for (int i = 0; i < 50 && productCreateOutbox.deadLetters(2) == 0; i++) {
+      Thread.sleep(100);
+      productCreateOutboxRelay.relay();
+    }
+    assertEquals(1, productCreateOutbox.deadLetters(2));
+
+    // Entries behind the dead letter are still relayed, and it isn't retried
+    sqsClient.reset();
+    final List<UUID> later = productGenerator.generateIds(1);
+    productCreateOutboxRelay.relay();
+
+    assertEquals(later, queuedProductIds());
+    assertEquals(1, productCreateOutbox.size());
+  }
+
+  @Test
+  public void relayBulkEntriesAtLimitedRate() {
+    List<Map<String, Object>> requests = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      requests.add(ProductGenerator.request(1));
+    }
+
+    final List<UUID> ids = productGenerator.generateIds(requests);
+    productCreateOutboxRelay.relay();
+    sqsClient.reset();
+
+    graphQlTester
+        .documentName("mutation/regenerateProducts")
+        .variable("filter", Map.of("cycleMin", 1, "cycleMax", 1))
+        .execute()
+        .path("regenerateProducts")
+        .entity(Integer.class)
+        .isEqualTo(12);
+
+    productCreateOutboxRelay.relay();
+    assertEquals(5, queuedProductIds().size());
+    assertEquals(7, productCreateOutbox.size());
+
+    // Products requested by users are sent ahead of the remaining bulk entries
+    final UUID requested = productGenerator.generateIds(1).get(0);
+
+    productCreateOutboxRelay.relay();
+    assertEquals(requested, queuedProductIds().get(5));
+    assertEquals(11, queuedProductIds().size());
+
+    productCreateOutboxRelay.relay();
+    assertEquals(0, productCreateOutbox.size());
+
+    List<UUID> regenerated = new ArrayList<>(queuedProductIds());
+    regenerated.remove(requested);
+    assertEquals(new HashSet<>(ids), new HashSet<>(regenerated));
+    assertEquals(12, regenerated.size());
+  }
+
+
+  private List<UUID> queuedProductIds() {
+    List<UUID> productIds = new ArrayList<>();
+    for (String message : sqsClient.getMessages()) {
+      try {
+        productIds.add(UUID.fromString(objectMapper.readTree(message).get("product_id").asText()));
+      } catch (Exception ex) {
+        throw new RuntimeException(ex);
+      }
+    }
+
+    return productIds;
+  }
+}
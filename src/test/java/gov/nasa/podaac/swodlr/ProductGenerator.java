@@ -0,0 +1,92 @@
+package gov.nasa.podaac.swodlr;
+
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.graphql.test.tester.GraphQlTester.Response;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+
+/*
+ * Generates products through the GraphQL API. Each request is given a
+ * (pass, scene) which no other request in the test run has had, so tests
+ * whose classes share an application context, and so a database and
+ * product cache, never coalesce onto or hit each other's products. Requests
+ * are for cycle DEFAULT_CYCLE unless a test needs to filter on cycles
+ */
+public class ProductGenerator {
+  public static final int DEFAULT_CYCLE = 900;
+
+  private static final AtomicInteger allocated = new AtomicInteger();
+
+  private final HttpGraphQlTester graphQlTester;
+
+  public ProductGenerator(HttpGraphQlTester graphQlTester) {
+    this.graphQlTester = graphQlTester;
+  }
+
+  /*
+   * Parameters of a product not yet requested, as the variables of
+   * mutation/generateL2RasterProduct or an entry of the requests of
+   * mutation/generateL2RasterProducts. Mutable so that tests can change
+   * the raster options
+   */
+  public static Map<String, Object> request(int cycle) {
+    int allocation = allocated.getAndIncrement();
+
+    Map<String, Object> request = new HashMap<>();
+    request.put("cycle", cycle);
+    request.put("pass", 1 + allocation / 1000);
+    request.put("scene", allocation % 1000);
+    request.put("outputGranuleExtentFlag", false);
+    request.put("outputSamplingGridType", GridType.GEO.toString());
+    request.put("rasterResolution", 8);
+    return request;
+  }
+
+  public static Map<String, Object> request() {
+    return request(DEFAULT_CYCLE);
+  }
+
+  public Response generate(Map<String, Object> request) {
+    GraphQlTester.Request<?> mutation = graphQlTester
+        .documentName("mutation/generateL2RasterProduct");
+    request.forEach(mutation::variable);
+
+    return mutation.execute();
+  }
+
+  public UUID generateId(Map<String, Object> request) {
+    return generate(request).path("generateL2RasterProduct.id").entity(UUID.class).get();
+  }
+
+  public UUID generateId() {
+    return generateId(request());
+  }
+
+  /*
+   * Generates the products in one batch, returning their ids in order
+   */
+  public List<UUID> generateIds(List<Map<String, Object>> requests) {
+    return graphQlTester
+        .documentName("mutation/generateL2RasterProducts")
+        .variable("requests", requests)
+        .execute()
+        .path("generateL2RasterProducts[*].id")
+        .entityList(UUID.class)
+        .get();
+  }
+
+  public List<UUID> generateIds(int count) {
+    List<Map<String, Object>> requests = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      requests.add(request());
+    }
+
+    return generateIds(requests);
+  }
+}
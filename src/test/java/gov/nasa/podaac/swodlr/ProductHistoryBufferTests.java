@@ -0,0 +1,143 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.producthistory.ProductHistoryBuffer;
+import gov.nasa.podaac.swodlr.producthistory.ProductHistoryRepository;
+import gov.nasa.podaac.swodlr.user.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource(
+    locations = {"file:./src/main/resources/application.properties", "classpath:application.properties"},
+    properties = {"swodlr.product-history.flush-interval=PT1H"}
+)
+@AutoConfigureHttpGraphQlTester
+public class ProductHistoryBufferTests {
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private ProductHistoryRepository productHistoryRepository;
+
+  @Autowired
+  private ProductHistoryBuffer productHistoryBuffer;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private ProductGenerator productGenerator;
+
+  @BeforeAll
+  public void createGenerator() {
+    productGenerator = new ProductGenerator(graphQlTester);
+  }
+
+  @AfterEach
+  public void deleteProducts() {
+    l2RasterProductRepository.deleteAll();
+    productHistoryBuffer.flush();
+  }
+
+  @Test
+  public void coalesceRepeatedRequestsUntilFlushed() {
+    final Map<String, Object> request = ProductGenerator.request();
+    for (int i = 0; i < 3; i++) {
+      productGenerator.generate(request);
+    }
+
+    assertEquals(0, productHistoryRepository.count());
+    assertEquals(1, pendingUsers());
+
+    productHistoryBuffer.flush();
+    assertEquals(1, productHistoryRepository.count());
+    assertEquals(0, pendingUsers());
+    final LocalDateTime firstFlushed = productHistoryRepository.findAll().get(0).getTimestamp();
+
+    // Repeat requests bump the existing row
+    productGenerator.generate(request);
+    productHistoryBuffer.flush();
+    assertEquals(1, productHistoryRepository.count());
+    assertTrue(productHistoryRepository.findAll().get(0).getTimestamp().isAfter(firstFlushed));
+  }
+
+  @Test
+  public void flushUsersHistoryBeforeReadingIt() {
+    final UUID first = productGenerator.generateId();
+    final UUID second = productGenerator.generateId();
+    assertEquals(0, productHistoryRepository.count());
+
+    graphQlTester
+        .documentName("query/currentUser_products")
+        .variable("limit", 10)
+        .execute()
+        .path("currentUser.products[*].id")
+        .entityList(UUID.class)
+        .isEqualTo(List.of(second, first));
+
+    assertEquals(2, productHistoryRepository.count());
+  }
+
+  @Test
+  public void dropRequestsForDeletedProducts() {
+    productGenerator.generateId();
+    l2RasterProductRepository.deleteAll();
+
+    productHistoryBuffer.flush();
+    assertEquals(0, productHistoryRepository.count());
+    assertEquals(0, pendingUsers());
+  }
+
+  @Test
+  public void bufferRequestsOnceCommitted() {
+    User user = new User("history-buffer", "history-buffer@example.com", "History", "Buffer");
+    L2RasterProduct product = l2RasterProductRepository.findById(productGenerator.generateId()).get();
+    productHistoryBuffer.flush();
+
+    transactionTemplate.executeWithoutResult((status) -> {
+      productHistoryBuffer.record(user, List.of(product));
+      assertEquals(0, pendingUsers());
+      status.setRollbackOnly();
+    });
+    assertEquals(0, pendingUsers());
+
+    transactionTemplate.executeWithoutResult((status) -> {
+      productHistoryBuffer.record(user, List.of(product));
+      assertEquals(0, pendingUsers());
+    });
+    assertEquals(1, pendingUsers());
+  }
+
+
+  private double pendingUsers() {
+    return meterRegistry.get("swodlr.product.history.pending-users").gauge().value();
+  }
+}
@@ -0,0 +1,212 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductParameters;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductService;
+import gov.nasa.podaac.swodlr.l2rasterproduct.ProductLookupCache;
+import gov.nasa.podaac.swodlr.producthistory.ProductHistoryBuffer;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.status.State;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.GraphQlTester.Response;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource({"file:./src/main/resources/application.properties", "classpath:application.properties"})
+@AutoConfigureHttpGraphQlTester
+public class ProductLookupCacheTests {
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private L2RasterProductService l2RasterProductService;
+
+  @Autowired
+  private ProductLookupCache productLookupCache;
+
+  @Autowired
+  private ProductHistoryBuffer productHistoryBuffer;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private ProductGenerator productGenerator;
+
+  @BeforeAll
+  public void createGenerator() {
+    productGenerator = new ProductGenerator(graphQlTester);
+  }
+
+  @AfterEach
+  public void deleteProducts() {
+    l2RasterProductRepository.deleteAll();
+  }
+
+  @Test
+  public void packParametersUniquely() {
+    List<L2RasterProductParameters> parameters = List.of(
+        new L2RasterProductParameters(1, 2, 3, false, GridType.GEO, 8, null, null),
+        new L2RasterProductParameters(2, 2, 3, false, GridType.GEO, 8, null, null),
+        new L2RasterProductParameters(1, 3, 3, false, GridType.GEO, 8, null, null),
+        new L2RasterProductParameters(1, 2, 4, false, GridType.GEO, 8, null, null),
+        new L2RasterProductParameters(1, 2, 3, true, GridType.GEO, 8, null, null),
+        new L2RasterProductParameters(1, 2, 3, false, GridType.GEO, 15, null, null),
+        new L2RasterProductParameters(999, 999, 999, true, GridType.UTM, 10000, 1, 1),
+        new L2RasterProductParameters(1, 2, 3, false, GridType.UTM, 1000, -1, 0),
+        new L2RasterProductParameters(1, 2, 3, false, GridType.UTM, 1000, 0, -1),
+        new L2RasterProductParameters(1, 2, 3, false, GridType.UTM, 1000, 0, 0)
+    );
+
+    Set<Long> keys = new HashSet<>();
+    for (L2RasterProductParameters parameter : parameters) {
+      keys.add(ProductLookupCache.pack(parameter));
+    }
+    assertEquals(parameters.size(), keys.size());
+
+    // Adjusts don't apply to GEO rasters, so don't change the key
+    assertEquals(
+        ProductLookupCache.pack(
+            new L2RasterProductParameters(1, 2, 3, false, GridType.GEO, 8, null, null)),
+        ProductLookupCache.pack(
+            new L2RasterProductParameters(1, 2, 3, false, GridType.GEO, 8, 1, -1))
+    );
+
+    assertEquals(
+        ProductLookupCache.UNPACKABLE,
+        ProductLookupCache.pack(
+            new L2RasterProductParameters(1024, 2, 3, false, GridType.GEO, 8, null, null))
+    );
+    assertEquals(
+        ProductLookupCache.UNPACKABLE,
+        ProductLookupCache.pack(
+            new L2RasterProductParameters(1, 2, 3, false, GridType.UTM, 1000, 2, 0))
+    );
+  }
+
+  @Test
+  public void serveRepeatRequestsFromCache() {
+    final Map<String, Object> request = ProductGenerator.request();
+    final double hits = lookups("hit");
+
+    // Created, then read from the database and cached
+    UUID id = productGenerator.generateId(request);
+    productGenerator.generate(request)
+        .path("generateL2RasterProduct.id").entity(UUID.class).isEqualTo(id);
+    assertEquals(hits, lookups("hit"));
+
+    Response response = productGenerator.generate(request);
+    response.path("generateL2RasterProduct.id").entity(UUID.class).isEqualTo(id);
+    response
+        .path("generateL2RasterProduct.currentState")
+        .entity(String.class)
+        .isEqualTo(State.NEW.toString());
+    response
+        .path("generateL2RasterProduct.status[*].state")
+        .entityList(String.class)
+        .containsExactly(State.NEW.toString());
+    assertEquals(hits + 1, lookups("hit"));
+  }
+
+  @Test
+  public void dropInvalidatedProducts() {
+    final Map<String, Object> request = ProductGenerator.request();
+    final UUID id = productGenerator.generateId(request);
+    productGenerator.generate(request);
+
+    l2RasterProductService.invalidateProduct(id);
+    final double hits = lookups("hit");
+
+    // Requesting an unavailable product restarts generation
+    Response response = productGenerator.generate(request);
+    response.path("generateL2RasterProduct.id").entity(UUID.class).isEqualTo(id);
+    response
+        .path("generateL2RasterProduct.status[*].state")
+        .entityList(String.class)
+        .containsExactly(State.NEW.toString(), State.UNAVAILABLE.toString(), State.NEW.toString());
+    assertEquals(hits, lookups("hit"));
+  }
+
+  @Test
+  public void cacheReadsOverlappingOtherInvalidations() {
+    final UUID invalidatedId = productGenerator.generateId();
+    final UUID otherId = productGenerator.generateId();
+    productLookupCache.invalidateAll();
+
+    long stamp = productLookupCache.stamp();
+    L2RasterProduct invalidated = l2RasterProductRepository.findById(invalidatedId).get();
+    L2RasterProduct other = l2RasterProductRepository.findById(otherId).get();
+    productLookupCache.invalidate(invalidated);
+
+    // Only reads of the invalidated product are kept from being cached
+    productLookupCache.put(invalidated, stamp);
+    productLookupCache.put(other, stamp);
+    assertNull(productLookupCache.get(L2RasterProductParameters.of(invalidated)));
+    assertEquals(otherId, productLookupCache.get(L2RasterProductParameters.of(other)).getId());
+  }
+
+  @Test
+  public void dropDeletedProducts() {
+    final Map<String, Object> request = ProductGenerator.request();
+    final UUID id = productGenerator.generateId(request);
+    productGenerator.generate(request);
+
+    l2RasterProductRepository.deleteAll();
+
+    UUID recreated = productGenerator.generateId(request);
+    assertNotEquals(id, recreated);
+    assertEquals(recreated, productGenerator.generateId(request));
+  }
+
+  @Test
+  public void warmFromHistory() {
+    final Map<String, Object> request = ProductGenerator.request();
+    final UUID id = productGenerator.generateId(request);
+    productHistoryBuffer.flush();
+
+    productLookupCache.invalidateAll();
+    assertEquals(0, productLookupCache.size());
+
+    productLookupCache.warm();
+    assertTrue(productLookupCache.size() >= 1);
+
+    final double hits = lookups("hit");
+    assertEquals(id, productGenerator.generateId(request));
+    assertEquals(hits + 1, lookups("hit"));
+  }
+
+
+  private double lookups(String result) {
+    return meterRegistry
+        .get("swodlr.product.cache.lookups")
+        .tag("result", result)
+        .counter()
+        .count();
+  }
+}
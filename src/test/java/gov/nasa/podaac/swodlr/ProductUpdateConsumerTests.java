@@ -0,0 +1,200 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import gov.nasa.podaac.swodlr.granule.GranuleRepository;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductBatchRepository;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.queue.InMemorySqsAsyncClient;
+import gov.nasa.podaac.swodlr.queue.ProductUpdateConsumer;
+import gov.nasa.podaac.swodlr.status.State;
+import gov.nasa.podaac.swodlr.status.Status;
+import java.sql.Connection;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource({"file:./src/main/resources/application.properties", "classpath:application.properties"})
+@AutoConfigureHttpGraphQlTester
+public class ProductUpdateConsumerTests {
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private GranuleRepository granuleRepository;
+
+  @Autowired
+  private ProductUpdateConsumer productUpdateConsumer;
+
+  @Autowired
+  private InMemorySqsAsyncClient sqsClient;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private L2RasterProductBatchRepository l2RasterProductBatchRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private ProductGenerator productGenerator;
+
+  @BeforeAll
+  public void createGenerator() {
+    productGenerator = new ProductGenerator(graphQlTester);
+  }
+
+  @BeforeEach
+  public void resetQueue() {
+    sqsClient.reset();
+  }
+
+  @AfterEach
+  public void deleteProducts() {
+    granuleRepository.deleteAll();
+    l2RasterProductRepository.deleteAll();
+  }
+
+  @Test
+  public void applyUpdatesInBatches() {
+    List<UUID> ids = productGenerator.generateIds(12);
+    for (int i = 0; i < ids.size(); i++) {
+      sqsClient.offer(
+          """
+          {"product_id": "%s", "status": "READY", "granules": ["s3://test-bucket/%d.nc"]}
+          """.formatted(ids.get(i), i)
+      );
+    }
+
+    assertEquals(10, productUpdateConsumer.poll().block());
+    assertEquals(2, productUpdateConsumer.poll().block());
+    assertEquals(0, productUpdateConsumer.poll().block());
+    assertEquals(0, sqsClient.getInFlightCount());
+
+    for (L2RasterProduct product : l2RasterProductRepository.findAllById(ids)) {
+      assertEquals(State.READY, product.getCurrentState());
+    }
+    assertEquals(12, granuleRepository.count());
+  }
+
+  @Test
+  public void dropUnusableUpdates() {
+    UUID id = productGenerator.generateId();
+    sqsClient.offer("not json");
+    sqsClient.offer("{\"status\": \"READY\"}");
+    sqsClient.offer("{\"product_id\": \"%s\", \"status\": \"READY\"}".formatted(UUID.randomUUID()));
+    sqsClient.offer(
+        "{\"product_id\": \"%s\", \"status\": \"ERROR\", \"reason\": \"Failed\"}".formatted(id)
+    );
+
+    assertEquals(4, productUpdateConsumer.poll().block());
+    assertEquals(0, sqsClient.getInFlightCount());
+    assertEquals(State.ERROR, l2RasterProductRepository.findById(id).get().getCurrentState());
+  }
+
+  @Test
+  public void pausePollingWhilePoolIsSaturated() throws Exception {
+    UUID id = productGenerator.generateId();
+    sqsClient.offer("{\"product_id\": \"%s\", \"status\": \"GENERATING\"}".formatted(id));
+
+    // Holds the pool's only connection
+    try (Connection connection = dataSource.getConnection()) {
+      assertTrue(connection.isValid(1));
+      assertTrue(productUpdateConsumer.poll().blockOptional().isEmpty());
+      assertEquals(1, sqsClient.getReceivableCount());
+    }
+
+    assertEquals(1, productUpdateConsumer.poll().block());
+    assertEquals(State.GENERATING, l2RasterProductRepository.findById(id).get().getCurrentState());
+  }
+
+  @Test
+  public void applyRedeliveredAndLateUpdatesOnce() {
+    UUID id = productGenerator.generateId();
+    Instant now = Instant.now();
+    String ready =
+        """
+        {"product_id": "%s", "status": "READY", "timestamp": "%s", "granules": ["s3://test-bucket/%s.nc"]}
+        """.formatted(id, now.plusSeconds(2), id);
+
+    sqsClient.offer(ready);
+    sqsClient.offer(
+        """
+        {"product_id": "%s", "status": "GENERATING", "timestamp": "%s"}
+        """.formatted(id, now.plusSeconds(1))
+    );
+    sqsClient.offer(ready);
+
+    assertEquals(3, productUpdateConsumer.poll().block());
+    assertEquals(State.READY, l2RasterProductRepository.findById(id).get().getCurrentState());
+    // NEW, READY and GENERATING
+    assertEquals(3, jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM \"Status\" WHERE \"productId\" = ?", Long.class, id
+    ));
+    assertEquals(1, granuleRepository.count());
+  }
+
+  @Test
+  public void releaseFailedBatches() {
+    UUID id = productGenerator.generateId();
+    sqsClient.offer("{\"product_id\": \"%s\", \"granules\": [null]}".formatted(id));
+
+    assertThrows(RuntimeException.class, () -> productUpdateConsumer.poll().block());
+    assertEquals(0, sqsClient.getInFlightCount());
+    assertEquals(1, sqsClient.getReceivableCount());
+  }
+
+  @Test
+  public void keepNewerCurrentStatus() {
+    UUID id = productGenerator.generateId();
+    L2RasterProduct product = l2RasterProductRepository.findById(id).get();
+    LocalDateTime now = LocalDateTime.now();
+
+    transactionTemplate.executeWithoutResult((status) -> {
+      l2RasterProductBatchRepository.insertStatuses(List.of(
+          new Status(product, State.READY, null, now.plusMinutes(1))
+      ));
+      l2RasterProductBatchRepository.insertStatuses(List.of(
+          new Status(product, State.GENERATING, null, now)
+      ));
+    });
+
+    // The older status is recorded without becoming current
+    assertEquals(State.READY, product.getCurrentState());
+    assertEquals(State.READY, l2RasterProductRepository.findById(id).get().getCurrentState());
+    assertEquals(3, jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM \"Status\" WHERE \"productId\" = ?", Long.class, id
+    ));
+  }
+
+}
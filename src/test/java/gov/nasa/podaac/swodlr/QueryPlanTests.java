@@ -0,0 +1,330 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductBatchRepository;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductQueryImpl;
+import gov.nasa.podaac.swodlr.pagination.Cursor;
+import gov.nasa.podaac.swodlr.producthistory.ProductHistoryBuffer;
+import gov.nasa.podaac.swodlr.queue.ProductCreateOutbox;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.rasterdefinition.RasterDefinitionQueryImpl;
+import gov.nasa.podaac.swodlr.sql.ShapedStatement;
+import gov.nasa.podaac.swodlr.status.StatusQueryImpl;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import org.hibernate.type.BooleanType;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.StringType;
+import org.hibernate.type.UUIDCharType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/*
+ * Guards the plans of the hot path queries against a large seeded dataset:
+ * none may scan a table, each shape of the shaped statements must use the
+ * indexes of the filters it was given, and pages must be read in index
+ * order rather than sorted. The statements are those the repositories, the
+ * outbox and the history buffer issue; add to them when adding a query.
+ * The pool name only gives this class its own context, and so its own
+ * in-memory database, keeping the seeded rows from other tests
+ */
+@SpringBootTest
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource(
+    locations = {"file:./src/main/resources/application.properties", "classpath:application.properties"},
+    properties = {"spring.datasource.hikari.pool-name=query-plans"}
+)
+public class QueryPlanTests {
+  private static final String INDEX_SORTED = "/* index sorted */";
+
+  private SyntheticDataset dataset;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  @BeforeAll
+  public void seed() {
+    dataset = new SyntheticDataset(jdbcTemplate).seed(200, 5, 10000, 5, 2);
+  }
+
+  @Test
+  public void renderOnlySuppliedPredicates() {
+    ShapedStatement.Bound statement = RasterDefinitionQueryImpl.FIND_BY_PARAMETER.bind(
+        definitionParameters(null, null, 8)
+    );
+
+    assertTrue(statement.sql().contains("\"rasterResolution\" = :rasterResolution"));
+    assertFalse(statement.sql().contains(":id"));
+    assertFalse(statement.sql().contains(":utmZoneAdjust"));
+    assertFalse(statement.sql().toLowerCase().contains("is null"));
+    assertEquals(
+        List.of("userId", "rasterResolution"),
+        statement.parameters().stream().map(ShapedStatement.Parameter::name).toList()
+    );
+
+    // Statements of the same shape are rendered once
+    int shapes = RasterDefinitionQueryImpl.FIND_BY_PARAMETER.shapeCount();
+    ShapedStatement.Bound sameShape = RasterDefinitionQueryImpl.FIND_BY_PARAMETER.bind(
+        definitionParameters(null, null, 16)
+    );
+    assertSame(statement.sql(), sameShape.sql());
+    assertEquals(shapes, RasterDefinitionQueryImpl.FIND_BY_PARAMETER.shapeCount());
+  }
+
+  @Test
+  public void readProductPagesInIndexOrder() {
+    final UUID userId = dataset.userIds.get(0);
+    final UUID productId = dataset.productIds.get(0);
+    final LocalDateTime now = LocalDateTime.now();
+
+    List<ShapedStatement.Parameters> shapes = List.of(
+        productParameters(userId, null, null, null, null, null, null, null, null),
+        productParameters(userId, 5, null, null, null, null, null, null, null),
+        productParameters(userId, 5, 5, 5, GridType.GEO, null, null, null, null),
+        productParameters(userId, null, null, null, null, now, now.minusDays(2), null, null),
+        productParameters(userId, null, null, null, null, null, null, productId, null),
+        productParameters(
+            userId, null, null, null, null, null, null, null, new Cursor(now, productId)
+        )
+    );
+
+    // H2 only sorts by an index whose leading columns match the ORDER BY, so
+    // it can't see that Postgres reads a single user's rows of the
+    // (requestedById, timestamp, rasterProductId) index in order; it picks
+    // any index on requestedById, so only that lookup is asserted
+    for (ShapedStatement.Parameters shape : shapes) {
+      String plan = explain(L2RasterProductQueryImpl.FIND_BY_USER.bind(shape));
+      assertUsesIndex(plan, "ProductHistory", "requestedById");
+      assertUsesIndex(plan, "L2RasterProducts", "id");
+    }
+  }
+
+  @Test
+  public void readStatusPagesInIndexOrder() {
+    final UUID productId = dataset.productIds.get(0);
+
+    List<ShapedStatement.Parameters> shapes = List.of(
+        StatusQueryImpl.findByProductIdParameters(productId, null, null, 10),
+        StatusQueryImpl.findByProductIdParameters(productId, UUID.randomUUID(), null, 10),
+        StatusQueryImpl.findByProductIdParameters(
+            productId, null, new Cursor(LocalDateTime.now(), UUID.randomUUID()), 10
+        )
+    );
+
+    // As with product pages, H2 can't tell that a single product's rows of
+    // the (productId, timestamp, id) index are already in order
+    for (ShapedStatement.Parameters shape : shapes) {
+      String plan = explain(StatusQueryImpl.FIND_BY_PRODUCT_ID.bind(shape));
+      assertUsesIndex(plan, "Status", "productId");
+    }
+  }
+
+  @Test
+  public void readRasterDefinitionsByIndex() {
+    ShapedStatement shaped = RasterDefinitionQueryImpl.FIND_BY_PARAMETER;
+
+    // H2 indexes foreign keys itself, so may pick its own index on userId
+    assertUsesIndex(
+        explain(shaped.bind(definitionParameters(null, null, null))),
+        "RasterDefinitions", "userId"
+    );
+    assertUsesIndex(
+        explain(shaped.bind(definitionParameters(null, false, 8))),
+        "RasterDefinitions", "userId"
+    );
+    assertUsesIndex(
+        explain(shaped.bind(definitionParameters(dataset.definitionIds.get(0), null, null))),
+        "RasterDefinitions", "id"
+    );
+  }
+
+  @Test
+  public void genericStatementCannotUseFilterIndex() {
+    // The statement RasterDefinitionQueryImpl used before it was shaped
+    String generic =
+        """
+        SELECT * FROM \"RasterDefinitions\" WHERE
+        (\"userId\" = CAST(:userId as UUID)) AND
+        (:id is NULL OR \"id\" = CAST(:id as UUID))
+        ORDER BY id
+        """;
+
+    String plan = explain(generic, Map.of(
+        "userId", dataset.userIds.get(0), "id", dataset.definitionIds.get(0)
+    ));
+
+    // The id filter is checked row by row after the userId index lookup
+    assertUsesIndex(plan, "RasterDefinitions", "userId");
+    assertFalse(usesIndex(plan, "RasterDefinitions", "id"), plan);
+  }
+
+  @Test
+  public void readOutboxInIndexOrder() {
+    // H2 doesn't note whether a locking read is index sorted, so the claim
+    // is explained without its FOR UPDATE
+    for (boolean bulk : List.of(false, true)) {
+      String plan = explain(
+          ProductCreateOutbox.CLAIM_NEXT, bulk, 10, Timestamp.from(Instant.now()), 10
+      );
+
+      assertNoScan(plan);
+      assertTrue(plan.contains("ProductCreateOutbox_bulk_id_idx"), plan);
+      assertTrue(plan.contains(INDEX_SORTED), plan);
+    }
+  }
+
+  @Test
+  public void writeRowsByIndex() {
+    final UUID userId = dataset.userIds.get(0);
+    final UUID productId = dataset.productIds.get(0);
+    final Timestamp now = Timestamp.from(Instant.now());
+
+    assertNoScan(explain(
+        L2RasterProductBatchRepository.UPDATE_CURRENT_STATUS,
+        UUID.randomUUID(), "READY", productId, now
+    ));
+    assertNoScan(explain(ProductHistoryBuffer.UPDATE_HISTORY, now, userId, productId, now));
+    assertNoScan(explain(ProductHistoryBuffer.INSERT_HISTORY, userId, productId, now, productId));
+    assertNoScan(explain(ProductCreateOutbox.LEASE, now, 1L));
+    assertNoScan(explain(ProductCreateOutbox.REMOVE, 1L));
+    assertNoScan(explain(ProductCreateOutbox.RECORD_FAILED_ATTEMPT, now, 1L));
+  }
+
+  @Test
+  public void lookUpRowsByIndex() {
+    final UUID userId = dataset.userIds.get(0);
+    final UUID productId = dataset.productIds.get(0);
+    final Map<String, Object> parameters = Map.of(
+        "userId", userId,
+        "productId", productId,
+        "productKeys", List.of("synthetic-1", "synthetic-2"),
+        "username", "synthetic-1"
+    );
+
+    // The statements issued by the repositories' derived queries
+    List<String> statements = List.of(
+        "SELECT * FROM \"L2RasterProducts\" WHERE \"id\" = :productId",
+        "SELECT * FROM \"L2RasterProducts\" WHERE \"productKey\" IN (:productKeys)",
+        "SELECT * FROM \"Granules\" WHERE \"productId\" = :productId",
+        "SELECT * FROM \"Users\" WHERE \"username\" = :username",
+        """
+        SELECT * FROM \"ProductHistory\"
+        WHERE \"requestedById\" = :userId AND \"rasterProductId\" = :productId
+        """
+    );
+
+    for (String statement : statements) {
+      assertNoScan(explain(statement, parameters));
+    }
+  }
+
+  private ShapedStatement.Parameters productParameters(
+      UUID userId,
+      Integer cycle,
+      Integer pass,
+      Integer scene,
+      GridType outputSamplingGridType,
+      LocalDateTime beforeTimestamp,
+      LocalDateTime afterTimestamp,
+      UUID after,
+      Cursor cursor
+  ) {
+    return L2RasterProductQueryImpl.findByUserParameters(
+        userId,
+        cycle,
+        pass,
+        scene,
+        null,
+        outputSamplingGridType,
+        null,
+        null,
+        null,
+        beforeTimestamp,
+        afterTimestamp,
+        after,
+        cursor,
+        10
+    );
+  }
+
+  private ShapedStatement.Parameters definitionParameters(
+      UUID id, Boolean outputGranuleExtentFlag, Integer rasterResolution
+  ) {
+    return new ShapedStatement.Parameters()
+        .set("userId", dataset.userIds.get(0), UUIDCharType.INSTANCE)
+        .set("id", id, UUIDCharType.INSTANCE)
+        .set("outputGranuleExtentFlag", outputGranuleExtentFlag, BooleanType.INSTANCE)
+        .set("outputSamplingGridType", null, StringType.INSTANCE)
+        .set("rasterResolution", rasterResolution, IntegerType.INSTANCE)
+        .set("utmZoneAdjust", null, IntegerType.INSTANCE)
+        .set("mgrsBandAdjust", null, IntegerType.INSTANCE);
+  }
+
+  /*
+   * H2 notes a full scan of a table as "tableScan" in the comment following
+   * it in the plan, in place of the index and condition it would otherwise use
+   */
+  private static void assertNoScan(String plan) {
+    assertFalse(plan.contains("tableScan"), plan);
+  }
+
+  /*
+   * Asserts that the table is read through an index on the column rather
+   * than scanned. H2 notes the index and condition used for each table in
+   * a comment following it in the plan (eg: "public.PRIMARY_KEY_9: id = ?1")
+   */
+  private static void assertUsesIndex(String plan, String table, String column) {
+    assertNoScan(plan);
+    assertTrue(usesIndex(plan, table, column), plan);
+  }
+
+  private static boolean usesIndex(String plan, String table, String column) {
+    Pattern pattern = Pattern.compile(
+        "(FROM|JOIN) \"public\"\\.\"%s\"\\s*/\\* public\\.\\w+: %s = "
+            .formatted(table, column)
+    );
+
+    return pattern.matcher(plan).find();
+  }
+
+  private String explain(ShapedStatement.Bound statement) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource();
+    for (ShapedStatement.Parameter parameter : statement.parameters()) {
+      parameters.addValue(parameter.name(), parameter.value());
+    }
+
+    return namedParameterJdbcTemplate.queryForObject(
+        "EXPLAIN " + statement.sql(), parameters, String.class);
+  }
+
+  private String explain(String statement, Map<String, Object> parameters) {
+    return namedParameterJdbcTemplate.queryForObject(
+        "EXPLAIN " + statement, parameters, String.class);
+  }
+
+  private String explain(String statement, Object... parameters) {
+    return jdbcTemplate.queryForObject("EXPLAIN " + statement, String.class, parameters);
+  }
+}
@@ -0,0 +1,153 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import gov.nasa.podaac.swodlr.granule.Granule;
+import gov.nasa.podaac.swodlr.granule.GranuleReader;
+import gov.nasa.podaac.swodlr.granule.GranuleRepository;
+import gov.nasa.podaac.swodlr.granule.R2dbcGranuleReader;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.status.State;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/*
+ * Runs the read queries over R2DBC. The JDBC and R2DBC connections share a
+ * named in-memory database so that rows written through JPA are visible to
+ * the R2DBC reads; the schema is only created by the JDBC connection
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestPropertySource(
+    locations = {"file:./src/main/resources/application.properties", "classpath:application.properties"},
+    properties = {
+        "swodlr.read-path=r2dbc",
+        "spring.datasource.url=jdbc:h2:mem:r2dbc-read-path;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;INIT=CREATE ALIAS IF NOT EXISTS gen_random_uuid FOR 'java.util.UUID.randomUUID'\\\\;RUNSCRIPT FROM 'database/schema.sql'\\\\;RUNSCRIPT FROM 'database/local_data.sql'",
+        "spring.r2dbc.url=r2dbc:h2:mem:///r2dbc-read-path?options=MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa"
+    }
+)
+@AutoConfigureHttpGraphQlTester
+public class R2dbcReadPathTests {
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private GranuleReader granuleReader;
+
+  @Autowired
+  private GranuleRepository granuleRepository;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @AfterEach
+  public void deleteProducts() {
+    granuleRepository.deleteAll();
+    l2RasterProductRepository.deleteAll();
+  }
+
+  @Test
+  public void readProductsStatusesAndGranules() {
+    assertEquals(R2dbcGranuleReader.class, granuleReader.getClass());
+
+    final UUID id = graphQlTester
+        .documentName("mutation/generateL2RasterProduct")
+        .variable("cycle", 1)
+        .variable("pass", 2)
+        .variable("scene", 3)
+        .variable("outputGranuleExtentFlag", false)
+        .variable("outputSamplingGridType", GridType.UTM)
+        .variable("rasterResolution", 1000)
+        .variable("utmZoneAdjust", 1)
+        .variable("mgrsBandAdjust", -1)
+        .execute()
+        .path("generateL2RasterProduct.id")
+        .entity(UUID.class)
+        .get();
+
+    granuleRepository.save(new Granule(
+        l2RasterProductRepository.findById(id).get(),
+        "s3://test-bucket/path"
+    ));
+
+    graphQlTester
+        .documentName("query/currentUser_products")
+        .variable("limit", 10)
+        .execute()
+        .path("currentUser.products[*].id")
+        .entityList(UUID.class)
+        .isEqualTo(List.of(id))
+        .path("currentUser.products[0].outputSamplingGridType")
+        .entity(GridType.class)
+        .isEqualTo(GridType.UTM)
+        .path("currentUser.products[0].status[*].state")
+        .entityList(State.class)
+        .isEqualTo(List.of(State.NEW));
+
+    graphQlTester
+        .documentName("query/statusByProduct")
+        .variable("product", id)
+        .variable("limit", 10)
+        .execute()
+        .path("status[0].state")
+        .entity(State.class)
+        .isEqualTo(State.NEW)
+        .path("status[0].product.mgrsBandAdjust")
+        .entity(Integer.class)
+        .isEqualTo(-1);
+
+    graphQlTester
+        .documentName("query/currentUser_productsConnection")
+        .variable("limit", 10)
+        .execute()
+        .path("currentUser.productsConnection.edges[*].node.id")
+        .entityList(UUID.class)
+        .isEqualTo(List.of(id))
+        .path("currentUser.productsConnection.edges[0].node.currentState")
+        .entity(State.class)
+        .isEqualTo(State.NEW)
+        .path("currentUser.productsConnection.pageInfo.hasNextPage")
+        .entity(Boolean.class)
+        .isEqualTo(false);
+
+    graphQlTester
+        .documentName("query/l2RasterProduct_statusConnection")
+        .variable("id", id)
+        .variable("limit", 10)
+        .execute()
+        .path("l2RasterProduct.statusConnection.edges[*].node.state")
+        .entityList(State.class)
+        .isEqualTo(List.of(State.NEW));
+
+    graphQlTester
+        .documentName("query/l2RasterProduct_granules")
+        .variable("id", id)
+        .execute()
+        .path("l2RasterProduct.granules[0].uri")
+        .entity(String.class)
+        .isEqualTo("https://earl-grey/test-bucket/path");
+  }
+
+  @Test
+  public void rejectUnknownProduct() {
+    graphQlTester
+        .documentName("query/statusByProduct")
+        .variable("product", UUID.randomUUID())
+        .variable("limit", 10)
+        .execute()
+        .errors()
+        .expect((error) -> error.getMessage().equals("Invalid `product` parameter"))
+        .verify();
+  }
+}
@@ -0,0 +1,134 @@
+package gov.nasa.podaac.swodlr;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProduct;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductReader;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.status.State;
+import gov.nasa.podaac.swodlr.status.Status;
+import gov.nasa.podaac.swodlr.status.StatusReader;
+import gov.nasa.podaac.swodlr.status.StatusRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/*
+ * Compares the throughput of the JPA and R2DBC read paths with 1000
+ * concurrent pollers, each repeatedly fetching a product and its latest
+ * statuses as the status page does. Excluded from the regular test run;
+ * run with `gradle benchmark`
+ */
+@Tag("benchmark")
+@TestInstance(Lifecycle.PER_CLASS)
+public abstract class ReadPathBenchmarkTests {
+  private static final int POLLERS = 1000;
+  private static final int PRODUCTS = 100;
+  private static final int STATUSES_PER_PRODUCT = 20;
+  private static final Duration WARMUP = Duration.ofSeconds(10);
+  private static final Duration DURATION = Duration.ofSeconds(30);
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final List<UUID> productIds = new ArrayList<>();
+
+  @Autowired
+  private L2RasterProductReader l2RasterProductReader;
+
+  @Autowired
+  private StatusReader statusReader;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private StatusRepository statusRepository;
+
+  @BeforeAll
+  void seedProducts() {
+    for (int i = 0; i < PRODUCTS; i++) {
+      L2RasterProduct product = l2RasterProductRepository.save(
+          new L2RasterProduct(1, 1, i, false, GridType.GEO, 8, null, null)
+      );
+
+      List<Status> statuses = new ArrayList<>(STATUSES_PER_PRODUCT);
+      for (int j = 0; j < STATUSES_PER_PRODUCT; j++) {
+        statuses.add(new Status(product, State.GENERATING, "Poll " + j));
+      }
+      statusRepository.saveAll(statuses);
+      productIds.add(product.getId());
+    }
+  }
+
+  @Test
+  public void pollProductStatus() {
+    poll(WARMUP);
+
+    long polls = poll(DURATION);
+    logger.info(
+        "{}: {} polls in {}s with {} pollers ({} polls/s)",
+        getClass().getSimpleName(), polls, DURATION.toSeconds(), POLLERS,
+        polls / DURATION.toSeconds()
+    );
+  }
+
+  private long poll(Duration duration) {
+    long deadline = System.nanoTime() + duration.toNanos();
+
+    return Flux.range(0, POLLERS)
+        .flatMap((poller) -> {
+          UUID productId = productIds.get(poller % productIds.size());
+          return Mono
+              .defer(() -> l2RasterProductReader.findById(productId))
+              .flatMap((product) -> statusReader.findByProductId(product, null, 10))
+              .repeat(() -> System.nanoTime() < deadline)
+              .count();
+        }, POLLERS)
+        .reduce(0L, Long::sum)
+        .block();
+  }
+
+  @SpringBootTest(webEnvironment = WebEnvironment.NONE)
+  @ActiveProfiles({"test"})
+  @TestPropertySource(
+      locations = {
+          "file:./src/main/resources/application.properties",
+          "classpath:application.properties",
+          "classpath:benchmark.properties"
+      },
+      properties = {
+          "swodlr.read-path=jpa",
+          "spring.datasource.url=jdbc:h2:mem:jpa-benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;INIT=CREATE ALIAS IF NOT EXISTS gen_random_uuid FOR 'java.util.UUID.randomUUID'"
+      }
+  )
+  static class Jpa extends ReadPathBenchmarkTests { }
+
+  @SpringBootTest(webEnvironment = WebEnvironment.NONE)
+  @ActiveProfiles({"test"})
+  @TestPropertySource(
+      locations = {
+          "file:./src/main/resources/application.properties",
+          "classpath:application.properties",
+          "classpath:benchmark.properties"
+      },
+      properties = {
+          "swodlr.read-path=r2dbc",
+          "spring.datasource.url=jdbc:h2:mem:r2dbc-benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;INIT=CREATE ALIAS IF NOT EXISTS gen_random_uuid FOR 'java.util.UUID.randomUUID'",
+          "spring.r2dbc.url=r2dbc:h2:mem:///r2dbc-benchmark?options=MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1"
+      }
+  )
+  static class R2dbc extends ReadPathBenchmarkTests { }
+}
@@ -0,0 +1,313 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import gov.nasa.podaac.swodlr.scene.InMemoryDynamoDbAsyncClient;
+import gov.nasa.podaac.swodlr.scene.SceneAvailability;
+import gov.nasa.podaac.swodlr.scene.SceneLookupService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource(
+    locations = {"file:./src/main/resources/application.properties", "classpath:application.properties"},
+    properties = {
+      "swodlr.scene-cache.unavailable-ttl=PT1S",
+      "swodlr.scene-lookup.max-scenes=40",
+      "swodlr.scene-lookup.max-attempts=3",
+      "swodlr.scene-lookup.base-backoff=PT0.01S"
+    }
+)
+@AutoConfigureHttpGraphQlTester
+public class SceneAvailabilityTests {
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private InMemoryDynamoDbAsyncClient dynamoDbClient;
+
+  @Autowired
+  private SceneLookupService sceneLookupService;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @BeforeEach
+  public void resetTiles() {
+    dynamoDbClient.reset();
+  }
+
+  @Test
+  public void cacheAvailableScenes() {
+    dynamoDbClient.putTiles(tiles(1, 2, 3));
+    final double hits = lookups("hit");
+
+    assertTrue(availableScene(1, 2, 3));
+    assertTrue(availableScene(1, 2, 3));
+    assertTrue(availableScene(1, 2, 3));
+
+    assertEquals(List.of(16), dynamoDbClient.getBatchSizes());
+    assertEquals(hits + 2, lookups("hit"));
+  }
+
+  @Test
+  public void expireUnavailableScenes() throws InterruptedException {
+    List<String> tiles = tiles(4, 5, 6);
+    dynamoDbClient.putTiles(tiles.subList(0, 15));
+
+    assertFalse(availableScene(4, 5, 6));
+    dynamoDbClient.putTiles(tiles);
+    assertFalse(availableScene(4, 5, 6));
+    assertEquals(1, dynamoDbClient.getBatchSizes().size());
+
+    Thread.sleep(1500);
+    assertTrue(availableScene(4, 5, 6));
+    assertEquals(2, dynamoDbClient.getBatchSizes().size());
+  }
+
+  @Test
+  public void coalesceConcurrentLookups() {
+    dynamoDbClient.putTiles(tiles(7, 8, 9));
+    dynamoDbClient.hold();
+    final double coalesced = lookups("coalesced");
+
+    List<Mono<Boolean>> lookups = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      lookups.add(sceneLookupService.sceneExists(7, 8, 9));
+    }
+    Mono<List<Boolean>> results = Flux.merge(lookups).collectList().cache();
+    results.subscribe();
+
+    dynamoDbClient.release();
+    assertEquals(List.of(true, true, true, true, true), results.block(TIMEOUT));
+    assertEquals(List.of(16), dynamoDbClient.getBatchSizes());
+    assertEquals(coalesced + 4, lookups("coalesced"));
+  }
+
+  @Test
+  public void retryUnprocessedLookups() {
+    dynamoDbClient.putTiles(tiles(10, 11, 12));
+    dynamoDbClient.leaveNextUnprocessed(2);
+
+    assertTrue(availableScene(10, 11, 12));
+    assertEquals(List.of(16, 16, 16), dynamoDbClient.getBatchSizes());
+  }
+
+  @Test
+  public void failExhaustedLookups() {
+    dynamoDbClient.putTiles(tiles(13, 14, 15));
+    dynamoDbClient.leaveNextUnprocessed(3);
+
+    graphQlTester
+        .documentName("query/availableScene")
+        .variable("cycle", 13)
+        .variable("pass", 14)
+        .variable("scene", 15)
+        .execute()
+        .errors()
+        .expect((error) -> error.getMessage().equals(
+            "Scene availability is temporarily unavailable, please try again later"
+        ))
+        .verify();
+
+    assertTrue(availableScene(13, 14, 15));
+  }
+
+  @Test
+  public void lookupManyScenesInChunks() {
+    List<Integer> scenes = new ArrayList<>();
+    for (int scene = 1; scene <= 30; scene++) {
+      scenes.add(scene);
+    }
+    for (int scene = 1; scene <= 4; scene++) {
+      dynamoDbClient.putTiles(tiles(20, 21, scene));
+    }
+    dynamoDbClient.putTiles(tiles(20, 21, 30));
+    // Tile 9 is shared with scene 5
+    final List<String> missing = List.of("PIXC,20,21,9R", "PIXCVec,20,21,9L");
+    dynamoDbClient.removeTiles(missing);
+
+    List<SceneAvailability> availability = availableScenes(20, 21, scenes);
+
+    assertEquals(30, availability.size());
+    for (int i = 0; i < 30; i++) {
+      SceneAvailability sceneAvailability = availability.get(i);
+      int scene = i + 1;
+      assertEquals(scene, sceneAvailability.scene());
+      assertEquals(scene <= 3 || scene == 30, sceneAvailability.available());
+    }
+    assertEquals(missing, availability.get(3).missingTiles());
+    assertEquals(16, availability.get(5).missingTiles().size());
+
+    // Tiles 0 to 61, of 2 sides and 2 products, each requested once
+    List<Integer> batchSizes = new ArrayList<>(dynamoDbClient.getBatchSizes());
+    batchSizes.sort(null);
+    assertEquals(List.of(48, 100, 100), batchSizes);
+    assertEquals(Set.of("tile_id"), dynamoDbClient.getProjections());
+
+    // Available scenes are cached
+    assertTrue(availableScene(20, 21, 2));
+    assertEquals(3, dynamoDbClient.getBatchSizes().size());
+  }
+
+  @Test
+  public void rejectTooManyScenes() {
+    List<Integer> scenes = new ArrayList<>();
+    for (int scene = 1; scene <= 41; scene++) {
+      scenes.add(scene);
+    }
+
+    graphQlTester
+        .documentName("query/availableScenes")
+        .variable("cycle", 22)
+        .variable("pass", 23)
+        .variable("scenes", scenes)
+        .execute()
+        .errors()
+        .expect((error) -> error.getMessage().equals("At most 40 scenes can be looked up at once"))
+        .verify();
+
+    assertEquals(List.of(), dynamoDbClient.getBatchSizes());
+  }
+
+  @Test
+  public void passAvailabilityBitset() {
+    // Scene 2 shares its tiles with scenes 1 and 3
+    for (int scene : List.of(1, 3, 9)) {
+      dynamoDbClient.putTiles(tiles(50, 51, scene));
+    }
+    byte[] expected = new byte[10];
+    expected[0] = 0b111;
+    expected[1] = 0b1;
+
+    EntityExchangeResult<JsonNode> result = webTestClient.get()
+        .uri("/scenes/availability?cycle=50&pass=51")
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic())
+        .expectBody(JsonNode.class)
+        .returnResult();
+
+    JsonNode body = result.getResponseBody();
+    assertEquals(50, body.get("cycle").asInt());
+    assertEquals(80, body.get("scenesPerPass").asInt());
+    assertEquals(1, body.get("passes").size());
+    assertEquals(51, body.get("passes").get(0).get("pass").asInt());
+    assertEquals(
+        Base64.getEncoder().encodeToString(expected),
+        body.get("passes").get(0).get("scenes").asText()
+    );
+
+    String etag = result.getResponseHeaders().getETag();
+    webTestClient.get()
+        .uri("/scenes/availability?cycle=50&pass=51")
+        .header(HttpHeaders.IF_NONE_MATCH, etag)
+        .exchange()
+        .expectStatus().isNotModified()
+        .expectBody().isEmpty();
+  }
+
+  @Test
+  public void rejectInvalidAvailabilityRequests() {
+    webTestClient.get()
+        .uri("/scenes/availability?cycle=50&pass=585")
+        .exchange()
+        .expectStatus().isBadRequest()
+        .expectBody().jsonPath("$.error").isEqualTo("Invalid `pass` parameter");
+
+    // Without the tile index, whole cycles would take thousands of lookups
+    webTestClient.get()
+        .uri("/scenes/availability?cycle=50")
+        .exchange()
+        .expectStatus().isBadRequest()
+        .expectBody().jsonPath("$.error")
+        .isEqualTo("Availability of a whole cycle isn't available, please specify a pass");
+
+    assertEquals(List.of(), dynamoDbClient.getBatchSizes());
+  }
+
+  @Test
+  public void retryExhaustedAvailabilityRequestsLater() {
+    dynamoDbClient.leaveNextUnprocessed(Integer.MAX_VALUE);
+
+    webTestClient.get()
+        .uri("/scenes/availability?cycle=52&pass=53")
+        .exchange()
+        .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+        .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "2")
+        .expectBody().jsonPath("$.error")
+        .isEqualTo("Scene availability is temporarily unavailable, please try again later");
+  }
+
+  private boolean availableScene(int cycle, int pass, int scene) {
+    return graphQlTester
+        .documentName("query/availableScene")
+        .variable("cycle", cycle)
+        .variable("pass", pass)
+        .variable("scene", scene)
+        .execute()
+        .path("availableScene")
+        .entity(Boolean.class)
+        .get();
+  }
+
+  private List<SceneAvailability> availableScenes(int cycle, int pass, List<Integer> scenes) {
+    return graphQlTester
+        .documentName("query/availableScenes")
+        .variable("cycle", cycle)
+        .variable("pass", pass)
+        .variable("scenes", scenes)
+        .execute()
+        .path("availableScenes")
+        .entityList(SceneAvailability.class)
+        .get();
+  }
+
+  private double lookups(String result) {
+    return meterRegistry.get("swodlr.scene.cache.lookups").tag("result", result).counter().count();
+  }
+
+  private static List<String> tiles(int cycle, int pass, int scene) {
+    List<String> tiles = new ArrayList<>();
+    for (String product : List.of("PIXC", "PIXCVec")) {
+      for (int tile = (scene * 2) - 2; tile <= (scene * 2) + 1; tile++) {
+        tiles.add("%s,%d,%d,%dL".formatted(product, cycle, pass, tile));
+        tiles.add("%s,%d,%d,%dR".formatted(product, cycle, pass, tile));
+      }
+    }
+
+    return tiles;
+  }
+}
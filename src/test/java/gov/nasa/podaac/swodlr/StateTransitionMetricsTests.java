@@ -0,0 +1,149 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.queue.InMemorySqsAsyncClient;
+import gov.nasa.podaac.swodlr.queue.ProductUpdateConsumer;
+import gov.nasa.podaac.swodlr.rasterdefinition.GridType;
+import gov.nasa.podaac.swodlr.status.StateTransitionMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource({"file:./src/main/resources/application.properties", "classpath:application.properties"})
+@AutoConfigureHttpGraphQlTester
+public class StateTransitionMetricsTests {
+  private static final String LIVE = "swodlr.status.transition";
+  private static final String BACKFILL = "swodlr.status.transition.backfill";
+
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private StateTransitionMetrics stateTransitionMetrics;
+
+  @Autowired
+  private ProductUpdateConsumer productUpdateConsumer;
+
+  @Autowired
+  private InMemorySqsAsyncClient sqsClient;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private ProductGenerator productGenerator;
+
+  @BeforeAll
+  public void createGenerator() {
+    productGenerator = new ProductGenerator(graphQlTester);
+  }
+
+  @BeforeEach
+  public void resetQueue() {
+    sqsClient.reset();
+  }
+
+  @AfterEach
+  public void deleteProducts() {
+    l2RasterProductRepository.deleteAll();
+  }
+
+  @Test
+  public void recordTransitionsAsWritten() {
+    final long generating = count("NEW", "GENERATING", 500);
+    final long ready = count("GENERATING", "READY", 500);
+    UUID id = generate(500);
+
+    // Both updates arrive in one batch, the second following the first
+    sqsClient.offer("{\"product_id\": \"%s\", \"status\": \"GENERATING\"}".formatted(id));
+    sqsClient.offer("{\"product_id\": \"%s\", \"status\": \"READY\"}".formatted(id));
+    assertEquals(2, productUpdateConsumer.poll().block());
+
+    assertEquals(generating + 1, count("NEW", "GENERATING", 500));
+    assertEquals(ready + 1, count("GENERATING", "READY", 500));
+  }
+
+  @Test
+  public void backfillFromStatusTable() {
+    final UUID id = generate(1000);
+    final LocalDateTime start = LocalDateTime.now().minusHours(1);
+    final double generatingSeconds = totalSeconds(BACKFILL, "NEW", "GENERATING", 1000);
+    final double readySeconds = totalSeconds(BACKFILL, "GENERATING", "READY", 1000);
+    final long live = count("GENERATING", "READY", 1000);
+
+    insertStatus(id, start.plusSeconds(30), "GENERATING");
+    insertStatus(id, start.plusSeconds(30 + 600), "READY");
+
+    // The NEW status was written after the window, so only the later transition is in it
+    assertEquals(1, stateTransitionMetrics.backfill(start.plusMinutes(5), start.plusMinutes(15)));
+    assertEquals(readySeconds + 600, totalSeconds(BACKFILL, "GENERATING", "READY", 1000), 0.001);
+    assertEquals(generatingSeconds, totalSeconds(BACKFILL, "NEW", "GENERATING", 1000), 0.001);
+    // Backfilled transitions are kept out of the live histograms
+    assertEquals(live, count("GENERATING", "READY", 1000));
+  }
+
+  private void insertStatus(UUID productId, LocalDateTime timestamp, String state) {
+    jdbcTemplate.update(
+        "INSERT INTO \"Status\" (\"id\", \"productId\", \"timestamp\", \"state\") VALUES (?, ?, ?, ?)",
+        UUID.randomUUID(), productId, Timestamp.valueOf(timestamp), state
+    );
+  }
+
+  private long count(String from, String to, int resolution) {
+    Timer timer = find(LIVE, from, to, resolution);
+    return timer != null ? timer.count() : 0;
+  }
+
+  private double totalSeconds(String metric, String from, String to, int resolution) {
+    Timer timer = find(metric, from, to, resolution);
+    return timer != null ? timer.totalTime(TimeUnit.SECONDS) : 0;
+  }
+
+  private Timer find(String metric, String from, String to, int resolution) {
+    return meterRegistry.find(metric)
+        .tag("from", from)
+        .tag("to", to)
+        .tag("grid_type", "UTM")
+        .tag("resolution", Integer.toString(resolution))
+        .tag("extent", "false")
+        .timer();
+  }
+
+  private UUID generate(int resolution) {
+    Map<String, Object> request = ProductGenerator.request();
+    request.put("outputSamplingGridType", GridType.UTM.toString());
+    request.put("rasterResolution", resolution);
+    request.put("utmZoneAdjust", 0);
+    request.put("mgrsBandAdjust", 0);
+
+    return productGenerator.generateId(request);
+  }
+}
@@ -0,0 +1,178 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.status.State;
+import gov.nasa.podaac.swodlr.status.StatusCompactor;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource(
+    locations = {"file:./src/main/resources/application.properties", "classpath:application.properties"},
+    properties = {
+      "swodlr.status-compaction.keep-latest=3",
+      "swodlr.status-compaction.batch-size=2"
+    }
+)
+@AutoConfigureHttpGraphQlTester
+public class StatusCompactionTests {
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private StatusCompactor statusCompactor;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private ProductGenerator productGenerator;
+
+  @BeforeAll
+  public void createGenerator() {
+    productGenerator = new ProductGenerator(graphQlTester);
+  }
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private ScheduledTaskHolder scheduledTaskHolder;
+
+  @Autowired
+  private ThreadPoolTaskScheduler taskScheduler;
+
+  @AfterEach
+  public void deleteProducts() {
+    l2RasterProductRepository.deleteAll();
+  }
+
+  @Test
+  public void runScheduledJobsOnTheirOwnThreads() {
+    // Fixed-delay jobs never overlap themselves, so a thread each is enough
+    // for compaction never to delay the other jobs
+    int jobs = scheduledTaskHolder.getScheduledTasks().size();
+    assertTrue(taskScheduler.getPoolSize() >= jobs, "%d jobs".formatted(jobs));
+  }
+
+  @Test
+  public void keepLatestAndStateBoundaries() throws IOException {
+    final UUID id = productGenerator.generateId();
+    final UUID untouched = productGenerator.generateId();
+
+    // After the product's NEW status: GENERATING x5, ERROR, NEW, GENERATING x3, READY
+    List<UUID> added = new ArrayList<>();
+    LocalDateTime timestamp = LocalDateTime.now().plusMinutes(1);
+    for (State state : List.of(
+        State.GENERATING, State.GENERATING, State.GENERATING, State.GENERATING,
+        State.GENERATING, State.ERROR, State.NEW, State.GENERATING, State.GENERATING,
+        State.GENERATING, State.READY
+    )) {
+      timestamp = timestamp.plusSeconds(1);
+      added.add(insertStatus(id, timestamp, state));
+    }
+
+    final double reclaimed = meterRegistry.get("swodlr.status.compaction.reclaimed")
+        .counter().count();
+    assertEquals(5, statusCompactor.compact());
+
+    // Middle GENERATING statuses, outside of the latest three
+    List<UUID> archived = List.of(
+        added.get(1), added.get(2), added.get(3), added.get(4), added.get(7)
+    );
+    assertEquals(archived, archivedIds(id));
+    assertEquals(7, statusCount(id));
+    assertEquals(1, statusCount(untouched));
+    assertEquals(reclaimed + 5, meterRegistry.get("swodlr.status.compaction.reclaimed")
+        .counter().count());
+
+    assertEquals(0, statusCompactor.compact());
+    assertEquals(
+        "READY",
+        jdbcTemplate.queryForObject(
+            "SELECT \"currentState\" FROM \"L2RasterProducts\" WHERE \"id\" = ?",
+            String.class, id
+        )
+    );
+  }
+
+  private UUID insertStatus(UUID productId, LocalDateTime timestamp, State state) {
+    UUID id = UUID.randomUUID();
+    jdbcTemplate.update(
+        """
+        INSERT INTO \"Status\" (\"id\", \"productId\", \"timestamp\", \"state\")
+        VALUES (?, ?, ?, ?)
+        """,
+        id, productId, Timestamp.valueOf(timestamp), state.toString()
+    );
+    jdbcTemplate.update(
+        """
+        UPDATE \"L2RasterProducts\" SET \"currentStatusId\" = ?, \"currentState\" = ?
+        WHERE \"id\" = ?
+        """,
+        id, state.toString(), productId
+    );
+
+    return id;
+  }
+
+  private List<UUID> archivedIds(UUID productId) throws IOException {
+    List<UUID> ids = new ArrayList<>();
+    List<byte[]> batches = jdbcTemplate.queryForList(
+        "SELECT \"statuses\" FROM \"StatusArchive\" WHERE \"productId\" = ? ORDER BY \"id\"",
+        byte[].class, productId
+    );
+
+    for (byte[] batch : batches) {
+      try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(batch))) {
+        for (JsonNode entry : objectMapper.readTree(input)) {
+          ids.add(UUID.fromString(entry.get("id").asText()));
+        }
+      }
+    }
+
+    return ids;
+  }
+
+  private int statusCount(UUID productId) {
+    return jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM \"Status\" WHERE \"productId\" = ?", Integer.class, productId
+    );
+  }
+
+}
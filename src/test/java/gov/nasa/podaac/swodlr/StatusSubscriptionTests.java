@@ -0,0 +1,176 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductRepository;
+import gov.nasa.podaac.swodlr.l2rasterproduct.L2RasterProductService;
+import gov.nasa.podaac.swodlr.queue.InMemorySqsAsyncClient;
+import gov.nasa.podaac.swodlr.queue.ProductUpdateConsumer;
+import gov.nasa.podaac.swodlr.status.StatusChangeFeed;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.graphql.client.SubscriptionErrorException;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.graphql.test.tester.WebSocketGraphQlTester;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource(
+    locations = {"file:./src/main/resources/application.properties", "classpath:application.properties"},
+    // Own context, so that H2StatusNotifyTrigger reports to this context's feed
+    properties = {"spring.datasource.hikari.pool-name=status-subscriptions"}
+)
+@AutoConfigureHttpGraphQlTester
+public class StatusSubscriptionTests {
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private L2RasterProductRepository l2RasterProductRepository;
+
+  @Autowired
+  private L2RasterProductService l2RasterProductService;
+
+  @Autowired
+  private ProductUpdateConsumer productUpdateConsumer;
+
+  @Autowired
+  private InMemorySqsAsyncClient sqsClient;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private StatusChangeFeed statusChangeFeed;
+
+  private WebSocketGraphQlTester webSocketGraphQlTester;
+  private ProductGenerator productGenerator;
+
+  @BeforeAll
+  public void connect() {
+    webSocketGraphQlTester = WebSocketGraphQlTester
+        .builder(URI.create("ws://localhost:%d/graphql".formatted(port)),
+            new ReactorNettyWebSocketClient())
+        .build();
+    productGenerator = new ProductGenerator(graphQlTester);
+  }
+
+  @AfterEach
+  public void deleteProducts() {
+    l2RasterProductRepository.deleteAll();
+  }
+
+  @Test
+  public void fanOutEachChangeOncePerNode() throws InterruptedException {
+    final UUID id = productGenerator.generateId();
+    final List<String> first = new CopyOnWriteArrayList<>();
+    final List<String> second = new CopyOnWriteArrayList<>();
+
+    final Disposable firstSubscription = subscribe(id).subscribe(first::add);
+    final Disposable secondSubscription = subscribe(id).subscribe(second::add);
+    await(() -> gauge("swodlr.status.feed.subscribers") == 2);
+    assertEquals(1, gauge("swodlr.status.feed.watched"));
+    await(() -> first.size() == 1 && second.size() == 1);
+
+    final double reads = reads();
+    l2RasterProductService.invalidateProduct(id);
+    await(() -> first.size() == 2 && second.size() == 2);
+
+    sqsClient.reset();
+    sqsClient.offer("{\"product_id\": \"%s\", \"status\": \"READY\"}".formatted(id));
+    productUpdateConsumer.poll().block();
+    await(() -> first.size() == 3 && second.size() == 3);
+
+    assertEquals(List.of("NEW", "UNAVAILABLE", "READY"), first);
+    assertEquals(first, second);
+    assertEquals(reads + 2, reads());
+
+    firstSubscription.dispose();
+    secondSubscription.dispose();
+    await(() -> gauge("swodlr.status.feed.watched") == 0);
+  }
+
+  @Test
+  public void startWithCurrentStatus() throws InterruptedException {
+    final UUID id = productGenerator.generateId();
+    // Changed after the client read the status, but before it subscribed
+    l2RasterProductService.invalidateProduct(id);
+
+    final List<String> states = new CopyOnWriteArrayList<>();
+    final Disposable subscription = subscribe(id).subscribe(states::add);
+    await(() -> states.size() == 1);
+    assertEquals("UNAVAILABLE", states.get(0));
+
+    // The notification of the change was handled after subscribing
+    statusChangeFeed.productChanged(id);
+    sqsClient.reset();
+    sqsClient.offer("{\"product_id\": \"%s\", \"status\": \"READY\"}".formatted(id));
+    productUpdateConsumer.poll().block();
+    await(() -> states.size() == 2);
+
+    assertEquals(List.of("UNAVAILABLE", "READY"), states);
+    subscription.dispose();
+  }
+
+  @Test
+  public void rejectUnknownProducts() {
+    SubscriptionErrorException ex = assertThrows(
+        SubscriptionErrorException.class,
+        () -> subscribe(UUID.randomUUID()).blockFirst(TIMEOUT)
+    );
+    assertEquals("Invalid `id` parameter", ex.getErrors().get(0).getMessage());
+  }
+
+  private Flux<String> subscribe(UUID id) {
+    return webSocketGraphQlTester
+        .documentName("subscription/productStatus")
+        .variable("id", id)
+        .executeSubscription()
+        .toFlux("productStatus.state", String.class);
+  }
+
+
+  private double gauge(String name) {
+    return meterRegistry.get(name).gauge().value();
+  }
+
+  private double reads() {
+    return meterRegistry.get("swodlr.status.feed.reads").counter().count();
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TIMEOUT.toNanos();
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "Timed out waiting for condition");
+      Thread.sleep(10);
+    }
+  }
+}
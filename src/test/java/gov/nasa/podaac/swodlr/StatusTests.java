@@ -15,6 +15,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -192,6 +193,56 @@ public class StatusTests {
     }
   }
 
+  @Test
+  public void pageStatusWithCursors() {
+    final L2RasterProduct mockProduct = new L2RasterProduct(
+        3,
+        4,
+        5,
+        false,
+        GridType.GEO,
+        8,
+        null,
+        null
+    );
+    l2RasterProductRepository.save(mockProduct);
+
+    List<UUID> expected = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Status status = new Status(mockProduct, State.NEW);
+      statusRepository.save(status);
+      expected.add(0, status.getId());
+    }
+
+    List<UUID> seen = new ArrayList<>();
+    String after = null;
+    boolean hasNextPage = true;
+
+    while (hasNextPage) {
+      Response response = graphQlTester
+          .documentName("query/l2RasterProduct_statusConnection")
+          .variable("id", mockProduct.getId())
+          .variable("after", after)
+          .variable("limit", 2)
+          .execute();
+
+      seen.addAll(response
+          .path("l2RasterProduct.statusConnection.edges[*].node.id")
+          .entityList(UUID.class)
+          .get());
+      after = response
+          .path("l2RasterProduct.statusConnection.pageInfo.endCursor")
+          .entity(String.class)
+          .get();
+      hasNextPage = response
+          .path("l2RasterProduct.statusConnection.pageInfo.hasNextPage")
+          .entity(Boolean.class)
+          .get();
+    }
+
+    assertEquals(expected, seen);
+  }
+
   @Test
   public void queryStatusWithInvalidProduct() {
     graphQlTester
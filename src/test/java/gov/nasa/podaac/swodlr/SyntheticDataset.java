@@ -0,0 +1,125 @@
+package gov.nasa.podaac.swodlr;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/*
+ * Seeds users, raster definitions, products (with history, statuses and
+ * granules) and outbox entries directly with JDBC, for tests which check
+ * query plans and need the tables to be large enough for the planner to
+ * prefer indexes. Products are spread across users round-robin and are
+ * requested one second apart
+ */
+public class SyntheticDataset {
+  public final List<UUID> userIds = new ArrayList<>();
+  public final List<UUID> productIds = new ArrayList<>();
+  public final List<UUID> definitionIds = new ArrayList<>();
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public SyntheticDataset(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public SyntheticDataset seed(
+      int users,
+      int definitionsPerUser,
+      int products,
+      int statusesPerProduct,
+      int granulesPerProduct
+  ) {
+    final LocalDateTime start = LocalDateTime.now().minusDays(1);
+
+    List<Object[]> userRows = new ArrayList<>();
+    List<Object[]> definitionRows = new ArrayList<>();
+    for (int i = 0; i < users; i++) {
+      UUID userId = UUID.randomUUID();
+      userIds.add(userId);
+      userRows.add(new Object[] {
+          userId, "synthetic-" + i, "synthetic-" + i + "@localhost", "First", "Last"
+      });
+
+      for (int j = 0; j < definitionsPerUser; j++) {
+        UUID definitionId = UUID.randomUUID();
+        definitionIds.add(definitionId);
+        definitionRows.add(new Object[] {
+            definitionId, userId, "definition-" + j, j % 2 == 0, "GEO", 8 + j
+        });
+      }
+    }
+
+    List<Object[]> productRows = new ArrayList<>();
+    List<Object[]> historyRows = new ArrayList<>();
+    List<Object[]> statusRows = new ArrayList<>();
+    List<Object[]> granuleRows = new ArrayList<>();
+    List<Object[]> outboxRows = new ArrayList<>();
+    for (int i = 0; i < products; i++) {
+      UUID productId = UUID.randomUUID();
+      productIds.add(productId);
+
+      LocalDateTime requestedAt = start.plusSeconds(i);
+      Timestamp timestamp = Timestamp.valueOf(requestedAt);
+      productRows.add(new Object[] {
+          productId, timestamp, i % 100, i % 50, i % 10, "GEO", 8, "synthetic-" + i
+      });
+      historyRows.add(new Object[] {userIds.get(i % users), productId, timestamp});
+
+      for (int j = 0; j < statusesPerProduct; j++) {
+        statusRows.add(new Object[] {
+            UUID.randomUUID(), productId, Timestamp.valueOf(requestedAt.plusNanos(j * 1000))
+        });
+      }
+      for (int j = 0; j < granulesPerProduct; j++) {
+        granuleRows.add(new Object[] {
+            UUID.randomUUID(), productId, "s3://synthetic/" + i + "/" + j
+        });
+      }
+      if (i % 100 == 0) {
+        outboxRows.add(new Object[] {productId});
+      }
+    }
+
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO \"Users\" (\"id\", \"username\", \"email\", \"firstName\", \"lastName\") "
+            + "VALUES (?, ?, ?, ?, ?)",
+        userRows
+    );
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO \"RasterDefinitions\" (\"id\", \"userId\", \"name\", "
+            + "\"outputGranuleExtentFlag\", \"outputSamplingGridType\", \"rasterResolution\") "
+            + "VALUES (?, ?, ?, ?, ?, ?)",
+        definitionRows
+    );
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO \"L2RasterProducts\" (\"id\", \"timestamp\", \"cycle\", \"pass\", \"scene\", "
+            + "\"outputGranuleExtentFlag\", \"outputSamplingGridType\", \"rasterResolution\", "
+            + "\"productKey\") VALUES (?, ?, ?, ?, ?, false, ?, ?, ?)",
+        productRows
+    );
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO \"ProductHistory\" (\"requestedById\", \"rasterProductId\", \"timestamp\") "
+            + "VALUES (?, ?, ?)",
+        historyRows
+    );
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO \"Status\" (\"id\", \"productId\", \"timestamp\", \"state\") "
+            + "VALUES (?, ?, ?, 'READY')",
+        statusRows
+    );
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO \"Granules\" (\"id\", \"productId\", \"uri\") VALUES (?, ?, ?)",
+        granuleRows
+    );
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO \"ProductCreateOutbox\" (\"productId\") VALUES (?)",
+        outboxRows
+    );
+    jdbcTemplate.execute("ANALYZE");
+
+    return this;
+  }
+}
@@ -0,0 +1,99 @@
+package gov.nasa.podaac.swodlr;
+
+import gov.nasa.podaac.swodlr.granule.TeaMapper;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/*
+ * Measures the per-granule cost of generating download links through URI
+ * parsing and building, as granules used to, against the compiled prefix
+ * table with a cold and a warm cache. Excluded from the regular test run;
+ * run with `gradle benchmark`
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+@ActiveProfiles({"test"})
+@TestPropertySource({"file:./src/main/resources/application.properties", "classpath:application.properties"})
+public class TeaMapperBenchmarkTests {
+  private static final int GRANULES = 10000;
+  private static final int ROUNDS = 200;
+  private static final int WARMUP_ROUNDS = 50;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @Autowired
+  private TeaMapper teaMapper;
+
+  @Test
+  public void perGranuleCost() throws URISyntaxException {
+    long sink = 0;
+
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      for (String s3Uri : s3Uris(round)) {
+        sink += teaMapper.convertS3Uri(URI.create(s3Uri)).toString().length();
+      }
+      sink += teaMapper.convertAll(s3Uris(round)).size();
+    }
+
+    List<List<String>> rounds = new ArrayList<>(ROUNDS);
+    for (int round = 0; round < ROUNDS; round++) {
+      rounds.add(s3Uris(WARMUP_ROUNDS + round));
+    }
+
+    long began = System.nanoTime();
+    for (List<String> s3Uris : rounds) {
+      for (String s3Uri : s3Uris) {
+        sink += teaMapper.convertS3Uri(URI.create(s3Uri)).toString().length();
+      }
+    }
+    report("URI conversion", System.nanoTime() - began);
+
+    // Each round is new to the cache, so these are all misses
+    began = System.nanoTime();
+    for (List<String> s3Uris : rounds) {
+      sink += teaMapper.convertAll(s3Uris).size();
+    }
+    report("Prefix table, cold cache", System.nanoTime() - began);
+
+    List<String> warm = rounds.get(ROUNDS - 1);
+    began = System.nanoTime();
+    for (int round = 0; round < ROUNDS; round++) {
+      sink += teaMapper.convertAll(warm).size();
+    }
+    report("Prefix table, warm cache", System.nanoTime() - began);
+
+    logger.debug("Sink: {}", sink);
+  }
+
+  private List<String> s3Uris(int round) {
+    List<String> s3Uris = new ArrayList<>(GRANULES);
+    for (int i = 0; i < GRANULES; i++) {
+      s3Uris.add(
+          "s3://test-bucket/SWOT_L2_HR_Raster/" + round + "/SWOT_L2_HR_Raster_100m_UTM10T_N_"
+          + i + "_001_002_003F.nc"
+      );
+    }
+
+    return s3Uris;
+  }
+
+  private void report(String label, long elapsedNanos) {
+    logger.info(
+        "{}: {} ns/granule over {} granules ({})",
+        label, elapsedNanos / ((long) GRANULES * ROUNDS), GRANULES * ROUNDS,
+        Duration.ofNanos(elapsedNanos)
+    );
+  }
+}
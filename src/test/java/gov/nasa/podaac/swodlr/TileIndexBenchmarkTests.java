@@ -0,0 +1,130 @@
+package gov.nasa.podaac.swodlr;
+
+import gov.nasa.podaac.swodlr.scene.TileIndex;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Measures the memory taken by a TileIndex of a synthetic table against a
+ * set of the table's tile ids, and the cost of looking up a scene in each.
+ * Looking up a scene in the set builds its 16 tile ids, as DynamoDB
+ * lookups do. Excluded from the regular test run; run with
+ * `gradle benchmark`
+ */
+@Tag("benchmark")
+public class TileIndexBenchmarkTests {
+  private static final int CYCLES = 10;
+  private static final int PASSES = 584;
+  private static final int SCENES = 80;
+  private static final int INDEX_LOOKUPS = 2_000_000;
+  /* Building tile ids dominates, so fewer lookups are enough */
+  private static final int SET_LOOKUPS = 50_000;
+  private static final int WARMUP_LOOKUPS = 20_000;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @Test
+  public void footprintAndLookupCost() {
+    long before = usedMemory();
+    TileIndex.Builder builder = new TileIndex.Builder();
+    for (int cycle = 1; cycle <= CYCLES; cycle++) {
+      for (int pass = 1; pass <= PASSES; pass++) {
+        for (int scene = 1; scene <= SCENES; scene += 2) {
+          for (String tileId : TileIndex.sceneTiles(cycle, pass, scene)) {
+            builder.add(tileId);
+          }
+        }
+      }
+    }
+    final TileIndex index = builder.build();
+    builder = null;
+    final long indexBytes = usedMemory() - before;
+
+    before = usedMemory();
+    Set<String> tileIds = new HashSet<>();
+    for (int cycle = 1; cycle <= CYCLES; cycle++) {
+      for (int pass = 1; pass <= PASSES; pass++) {
+        for (int scene = 1; scene <= SCENES; scene += 2) {
+          for (String tileId : TileIndex.sceneTiles(cycle, pass, scene)) {
+            tileIds.add(tileId);
+          }
+        }
+      }
+    }
+    final long setBytes = usedMemory() - before;
+
+    logger.info(
+        "{} tiles: index {} bytes estimated, {} bytes measured; tile id set {} bytes measured",
+        index.tiles(), index.sizeInBytes(), indexBytes, setBytes
+    );
+
+    long sink = 0;
+    sink += lookupIndex(index, WARMUP_LOOKUPS, 1);
+    sink += lookupSet(tileIds, WARMUP_LOOKUPS, 1);
+
+    long began = System.nanoTime();
+    sink += lookupIndex(index, INDEX_LOOKUPS, 2);
+    report("Index", INDEX_LOOKUPS, System.nanoTime() - began);
+
+    began = System.nanoTime();
+    sink += lookupSet(tileIds, SET_LOOKUPS, 2);
+    report("Tile id set", SET_LOOKUPS, System.nanoTime() - began);
+
+    logger.debug("Sink: {}", sink);
+  }
+
+  private static long lookupIndex(TileIndex index, int lookups, long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    long available = 0;
+    for (int i = 0; i < lookups; i++) {
+      if (index.containsScene(
+          random.nextInt(1, CYCLES + 1), random.nextInt(1, PASSES + 1), random.nextInt(1, SCENES)
+      )) {
+        available++;
+      }
+    }
+
+    return available;
+  }
+
+  private static long lookupSet(Set<String> tileIds, int lookups, long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    long available = 0;
+    for (int i = 0; i < lookups; i++) {
+      boolean all = true;
+      for (String tileId : TileIndex.sceneTiles(
+          random.nextInt(1, CYCLES + 1), random.nextInt(1, PASSES + 1), random.nextInt(1, SCENES)
+      )) {
+        all &= tileIds.contains(tileId);
+      }
+
+      if (all) {
+        available++;
+      }
+    }
+
+    return available;
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private void report(String label, int lookups, long elapsedNanos) {
+    logger.info(
+        "{}: {} ns/scene over {} lookups ({})",
+        label, elapsedNanos / lookups, lookups, Duration.ofNanos(elapsedNanos)
+    );
+  }
+}
@@ -0,0 +1,188 @@
+package gov.nasa.podaac.swodlr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import gov.nasa.podaac.swodlr.scene.InMemoryDynamoDbAsyncClient;
+import gov.nasa.podaac.swodlr.scene.SceneAvailability;
+import gov.nasa.podaac.swodlr.scene.TileIndex;
+import gov.nasa.podaac.swodlr.scene.TileIndexLoader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureHttpGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test"})
+@TestInstance(Lifecycle.PER_CLASS)
+@TestPropertySource(
+    locations = {"file:./src/main/resources/application.properties", "classpath:application.properties"},
+    properties = {
+      "swodlr.scene-lookup.mode=bitmap",
+      "swodlr.tile-index.scan-segments=4",
+      "swodlr.tile-index.page-size=7"
+    }
+)
+@AutoConfigureHttpGraphQlTester
+public class TileIndexTests {
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  @Autowired
+  private HttpGraphQlTester graphQlTester;
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private InMemoryDynamoDbAsyncClient dynamoDbClient;
+
+  @Autowired
+  private TileIndexLoader tileIndexLoader;
+
+  @BeforeEach
+  public void resetTiles() {
+    dynamoDbClient.reset();
+  }
+
+  @Test
+  public void lookupScenesInIndex() {
+    for (int scene : List.of(1, 2, 3, 8)) {
+      dynamoDbClient.putTiles(List.of(TileIndex.sceneTiles(40, 41, scene)));
+    }
+    dynamoDbClient.removeTiles(List.of("PIXCVec,40,41,7R"));
+
+    TileIndex index = tileIndexLoader.refresh().block(TIMEOUT);
+    // Scenes 1 to 3 cover tiles 0 to 7, scene 8 tiles 14 to 17
+    assertEquals((8 + 4) * 4 - 1, index.tiles());
+
+    assertTrue(availableScene(40, 41, 1));
+    assertTrue(availableScene(40, 41, 2));
+    assertFalse(availableScene(40, 41, 3));
+    // Its bits span two words
+    assertTrue(availableScene(40, 41, 8));
+    assertFalse(availableScene(40, 41, 9));
+    assertFalse(availableScene(41, 40, 1));
+
+    List<SceneAvailability> availability = availableScenes(40, 41, List.of(2, 3, 4));
+    assertTrue(availability.get(0).available());
+    assertEquals(List.of("PIXCVec,40,41,7R"), availability.get(1).missingTiles());
+    // Tiles 8 and 9 along with the missing tile
+    assertEquals(9, availability.get(2).missingTiles().size());
+
+    assertEquals(List.of(), dynamoDbClient.getBatchSizes());
+    assertEquals(Set.of(0, 1, 2, 3), dynamoDbClient.getScannedSegments());
+    assertEquals(Set.of("tile_id"), dynamoDbClient.getProjections());
+  }
+
+  @Test
+  public void refreshIndex() {
+    List<String> tiles = List.of(TileIndex.sceneTiles(42, 43, 5));
+    dynamoDbClient.putTiles(tiles.subList(0, 10));
+    tileIndexLoader.refresh().block(TIMEOUT);
+    assertFalse(availableScene(42, 43, 5));
+
+    dynamoDbClient.putTiles(tiles);
+    assertFalse(availableScene(42, 43, 5));
+
+    tileIndexLoader.refresh().block(TIMEOUT);
+    assertTrue(availableScene(42, 43, 5));
+  }
+
+  @Test
+  public void skipUnrecognizedTiles() {
+    dynamoDbClient.putTiles(List.of(TileIndex.sceneTiles(44, 45, 1)));
+    dynamoDbClient.putTiles(List.of(
+        "PIXC,44,45,4X", "PIXC,44,45,L", "PIXCVec,44,45", "Raster,44,45,4L", "PIXC,44,-1,4L",
+        "PIXC,70000,45,4L"
+    ));
+
+    TileIndex index = tileIndexLoader.refresh().block(TIMEOUT);
+    assertEquals(16, index.tiles());
+    assertTrue(availableScene(44, 45, 1));
+  }
+
+  @Test
+  public void cycleAvailabilityBitsets() {
+    dynamoDbClient.putTiles(List.of(TileIndex.sceneTiles(46, 3, 1)));
+    dynamoDbClient.putTiles(List.of(TileIndex.sceneTiles(46, 7, 80)));
+    dynamoDbClient.putTiles(List.of(TileIndex.sceneTiles(46, 9, 2)).subList(0, 15));
+    tileIndexLoader.refresh().block(TIMEOUT);
+
+    byte[] first = new byte[10];
+    first[0] = 0b1;
+    byte[] last = new byte[10];
+    last[9] = (byte) 0b10000000;
+
+    EntityExchangeResult<JsonNode> result = webTestClient.get()
+        .uri("/scenes/availability?cycle=46")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(JsonNode.class)
+        .returnResult();
+
+    // Pass 9 has tiles but no available scene
+    JsonNode passes = result.getResponseBody().get("passes");
+    assertEquals(2, passes.size());
+    assertEquals(3, passes.get(0).get("pass").asInt());
+    assertEquals(Base64.getEncoder().encodeToString(first), passes.get(0).get("scenes").asText());
+    assertEquals(7, passes.get(1).get("pass").asInt());
+    assertEquals(Base64.getEncoder().encodeToString(last), passes.get(1).get("scenes").asText());
+
+    String etag = result.getResponseHeaders().getETag();
+    dynamoDbClient.putTiles(List.of(TileIndex.sceneTiles(46, 9, 2)));
+    tileIndexLoader.refresh().block(TIMEOUT);
+
+    EntityExchangeResult<JsonNode> refreshed = webTestClient.get()
+        .uri("/scenes/availability?cycle=46")
+        .header(HttpHeaders.IF_NONE_MATCH, etag)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(JsonNode.class)
+        .returnResult();
+
+    assertEquals(3, refreshed.getResponseBody().get("passes").size());
+    assertNotEquals(etag, refreshed.getResponseHeaders().getETag());
+  }
+
+  private boolean availableScene(int cycle, int pass, int scene) {
+    return graphQlTester
+        .documentName("query/availableScene")
+        .variable("cycle", cycle)
+        .variable("pass", pass)
+        .variable("scene", scene)
+        .execute()
+        .path("availableScene")
+        .entity(Boolean.class)
+        .get();
+  }
+
+  private List<SceneAvailability> availableScenes(int cycle, int pass, List<Integer> scenes) {
+    return graphQlTester
+        .documentName("query/availableScenes")
+        .variable("cycle", cycle)
+        .variable("pass", pass)
+        .variable("scenes", new ArrayList<>(scenes))
+        .execute()
+        .path("availableScenes")
+        .entityList(SceneAvailability.class)
+        .get();
+  }
+}
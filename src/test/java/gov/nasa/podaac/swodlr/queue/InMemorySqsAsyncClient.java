@@ -0,0 +1,200 @@
+package gov.nasa.podaac.swodlr.queue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+/*
+ * In-memory stand-in for SQS. Records the bodies of messages sent with
+ * SendMessageBatch, in the order they were received, and can be told to fail
+ * upcoming requests, or reject entries whose body contains some text, to
+ * exercise retries. Messages offered to it can be
+ * received, without waiting, and are held in flight until deleted or made
+ * visible again
+ */
+@Component
+@Profile("test")
+public class InMemorySqsAsyncClient implements SqsAsyncClient {
+  private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+  private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicInteger failures = new AtomicInteger();
+  private final Set<String> rejected = ConcurrentHashMap.newKeySet();
+
+  private final Deque<Message> receivable = new ArrayDeque<>();
+  private final Map<String, Message> inFlight = new HashMap<>();
+
+  @Override
+  public CompletableFuture<SendMessageBatchResponse> sendMessageBatch(
+      SendMessageBatchRequest request
+  ) {
+    if (failures.getAndUpdate((count) -> Math.max(count - 1, 0)) > 0) {
+      return CompletableFuture.failedFuture(
+          SqsException.builder().message("Simulated failure").build()
+      );
+    }
+
+    List<SendMessageBatchResultEntry> results = new ArrayList<>();
+    List<BatchResultErrorEntry> failed = new ArrayList<>();
+    synchronized (messages) {
+      batchSizes.add(request.entries().size());
+      for (SendMessageBatchRequestEntry entry : request.entries()) {
+        if (rejected.stream().anyMatch(entry.messageBody()::contains)) {
+          failed.add(BatchResultErrorEntry.builder()
+              .id(entry.id())
+              .code("InternalError")
+              .message("Simulated rejection")
+              .senderFault(false)
+              .build());
+          continue;
+        }
+
+        messages.add(entry.messageBody());
+        results.add(SendMessageBatchResultEntry.builder()
+            .id(entry.id())
+            .messageId(UUID.randomUUID().toString())
+            .build());
+      }
+    }
+
+    return CompletableFuture.completedFuture(
+        SendMessageBatchResponse.builder().successful(results).failed(failed).build()
+    );
+  }
+
+  @Override
+  public synchronized CompletableFuture<ReceiveMessageResponse> receiveMessage(
+      ReceiveMessageRequest request
+  ) {
+    int max = request.maxNumberOfMessages() != null ? request.maxNumberOfMessages() : 1;
+    List<Message> received = new ArrayList<>();
+    while (received.size() < max && !receivable.isEmpty()) {
+      Message message = receivable.poll();
+      inFlight.put(message.receiptHandle(), message);
+      received.add(message);
+    }
+
+    return CompletableFuture.completedFuture(
+        ReceiveMessageResponse.builder().messages(received).build()
+    );
+  }
+
+  @Override
+  public synchronized CompletableFuture<DeleteMessageBatchResponse> deleteMessageBatch(
+      DeleteMessageBatchRequest request
+  ) {
+    List<DeleteMessageBatchResultEntry> results = new ArrayList<>();
+    for (DeleteMessageBatchRequestEntry entry : request.entries()) {
+      inFlight.remove(entry.receiptHandle());
+      results.add(DeleteMessageBatchResultEntry.builder().id(entry.id()).build());
+    }
+
+    return CompletableFuture.completedFuture(
+        DeleteMessageBatchResponse.builder().successful(results).build()
+    );
+  }
+
+  @Override
+  public synchronized CompletableFuture<ChangeMessageVisibilityBatchResponse>
+      changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest request) {
+    List<ChangeMessageVisibilityBatchResultEntry> results = new ArrayList<>();
+    for (ChangeMessageVisibilityBatchRequestEntry entry : request.entries()) {
+      Message message = inFlight.get(entry.receiptHandle());
+      if (message != null && entry.visibilityTimeout() == 0) {
+        inFlight.remove(entry.receiptHandle());
+        receivable.add(message);
+      }
+      results.add(ChangeMessageVisibilityBatchResultEntry.builder().id(entry.id()).build());
+    }
+
+    return CompletableFuture.completedFuture(
+        ChangeMessageVisibilityBatchResponse.builder().successful(results).build()
+    );
+  }
+
+  public synchronized void offer(String body) {
+    receivable.add(Message.builder()
+        .messageId(UUID.randomUUID().toString())
+        .receiptHandle(UUID.randomUUID().toString())
+        .body(body)
+        .attributes(Map.of(
+            MessageSystemAttributeName.SENT_TIMESTAMP,
+            Long.toString(System.currentTimeMillis())
+        ))
+        .build());
+  }
+
+  public synchronized int getReceivableCount() {
+    return receivable.size();
+  }
+
+  public synchronized int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  public List<String> getMessages() {
+    synchronized (messages) {
+      return List.copyOf(messages);
+    }
+  }
+
+  public List<Integer> getBatchSizes() {
+    synchronized (batchSizes) {
+      return List.copyOf(batchSizes);
+    }
+  }
+
+  public void failNextRequests(int count) {
+    failures.set(count);
+  }
+
+  public void rejectMessagesContaining(String text) {
+    rejected.add(text);
+  }
+
+  public synchronized void reset() {
+    messages.clear();
+    batchSizes.clear();
+    failures.set(0);
+    rejected.clear();
+    receivable.clear();
+    inFlight.clear();
+  }
+
+  @Override
+  public String serviceName() {
+    return SERVICE_NAME;
+  }
+
+  @Override
+  public void close() { }
+}
@@ -0,0 +1,170 @@
+package gov.nasa.podaac.swodlr.scene;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+/*
+ * In-memory stand-in for the available tiles table. Answers BatchGetItem
+ * with the tiles put into it, and records the number of keys and the
+ * projection requested in each call. Responses can be held back until
+ * released, to exercise concurrent lookups, and the next responses can
+ * leave every key unprocessed. Scans page through the tiles of each
+ * segment in order, the segment of a tile given by its hash
+ */
+@Component
+@Profile("test")
+public class InMemoryDynamoDbAsyncClient implements DynamoDbAsyncClient {
+  private final Set<String> tiles = ConcurrentHashMap.newKeySet();
+  private final List<Integer> batchSizes = new ArrayList<>();
+  private final Set<String> projections = new HashSet<>();
+  private final Set<Integer> scannedSegments = new HashSet<>();
+  private final List<Runnable> held = new ArrayList<>();
+  private boolean holding;
+  private int leaveUnprocessed;
+
+  @Override
+  public synchronized CompletableFuture<BatchGetItemResponse> batchGetItem(
+      BatchGetItemRequest request
+  ) {
+    Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+    int keys = 0;
+    for (var table : request.requestItems().entrySet()) {
+      List<Map<String, AttributeValue>> items = new ArrayList<>();
+      projections.add(String.valueOf(table.getValue().projectionExpression()));
+      for (Map<String, AttributeValue> key : table.getValue().keys()) {
+        keys++;
+        if (tiles.contains(key.get("tile_id").s())) {
+          items.add(key);
+        }
+      }
+      responses.put(table.getKey(), items);
+    }
+    batchSizes.add(keys);
+
+    BatchGetItemResponse response;
+    if (leaveUnprocessed > 0) {
+      leaveUnprocessed--;
+      response = BatchGetItemResponse.builder()
+          .responses(Map.of())
+          .unprocessedKeys(request.requestItems())
+          .build();
+    } else {
+      response = BatchGetItemResponse.builder()
+          .responses(responses)
+          .unprocessedKeys(Map.<String, KeysAndAttributes>of())
+          .build();
+    }
+
+    CompletableFuture<BatchGetItemResponse> future = new CompletableFuture<>();
+    if (holding) {
+      held.add(() -> future.complete(response));
+    } else {
+      future.complete(response);
+    }
+
+    return future;
+  }
+
+  @Override
+  public synchronized CompletableFuture<ScanResponse> scan(ScanRequest request) {
+    projections.add(String.valueOf(request.projectionExpression()));
+    scannedSegments.add(request.segment());
+
+    String after = request.hasExclusiveStartKey()
+        ? request.exclusiveStartKey().get("tile_id").s()
+        : null;
+    List<String> segment = new ArrayList<>();
+    for (String tile : tiles) {
+      if (Math.floorMod(tile.hashCode(), request.totalSegments()) == request.segment()
+          && (after == null || tile.compareTo(after) > 0)) {
+        segment.add(tile);
+      }
+    }
+    segment.sort(null);
+
+    List<Map<String, AttributeValue>> items = new ArrayList<>();
+    for (String tile : segment.subList(0, Math.min(request.limit(), segment.size()))) {
+      items.add(Map.of("tile_id", AttributeValue.fromS(tile)));
+    }
+
+    ScanResponse.Builder response = ScanResponse.builder().items(items);
+    if (segment.size() > request.limit()) {
+      response.lastEvaluatedKey(items.get(items.size() - 1));
+    }
+
+    return CompletableFuture.completedFuture(response.build());
+  }
+
+  public void putTiles(Collection<String> tileIds) {
+    tiles.addAll(tileIds);
+  }
+
+  public void removeTiles(Collection<String> tileIds) {
+    tiles.removeAll(tileIds);
+  }
+
+  public synchronized List<Integer> getBatchSizes() {
+    return List.copyOf(batchSizes);
+  }
+
+  public synchronized Set<Integer> getScannedSegments() {
+    return Set.copyOf(scannedSegments);
+  }
+
+  public synchronized Set<String> getProjections() {
+    return Set.copyOf(projections);
+  }
+
+  public synchronized void hold() {
+    holding = true;
+  }
+
+  public void release() {
+    List<Runnable> released;
+    synchronized (this) {
+      holding = false;
+      released = List.copyOf(held);
+      held.clear();
+    }
+
+    released.forEach(Runnable::run);
+  }
+
+  public synchronized void leaveNextUnprocessed(int calls) {
+    leaveUnprocessed = calls;
+  }
+
+  public synchronized void reset() {
+    tiles.clear();
+    batchSizes.clear();
+    projections.clear();
+    scannedSegments.clear();
+    held.clear();
+    holding = false;
+    leaveUnprocessed = 0;
+  }
+
+  @Override
+  public String serviceName() {
+    return SERVICE_NAME;
+  }
+
+  @Override
+  public void close() { }
+}
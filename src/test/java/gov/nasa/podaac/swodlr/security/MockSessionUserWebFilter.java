@@ -0,0 +1,33 @@
+package gov.nasa.podaac.swodlr.security;
+
+import gov.nasa.podaac.swodlr.user.User;
+import gov.nasa.podaac.swodlr.user.UserReference;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/*
+ * Signs every session in as the mock user, as UserBootstrapWebFilter does
+ * for authenticated users, for REST endpoints which read the user from the
+ * session
+ */
+@Component
+@Profile("test")
+public class MockSessionUserWebFilter implements WebFilter {
+  @Autowired
+  private User mockUser;
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    return exchange.getSession().flatMap((session) -> {
+      session.getAttributes().putIfAbsent(
+          UserBootstrapWebFilter.SESSION_ATTRIBUTE_KEY, new UserReference(mockUser)
+      );
+      return chain.filter(exchange);
+    });
+  }
+}
@@ -0,0 +1,31 @@
+package gov.nasa.podaac.swodlr.status;
+
+import gov.nasa.podaac.swodlr.Utils;
+import java.sql.Connection;
+import java.util.UUID;
+import org.h2.api.Trigger;
+import org.springframework.beans.BeansException;
+import org.springframework.context.ApplicationContext;
+
+/*
+ * H2 stand-in for the PostgreSQL status notification trigger and
+ * StatusChangeListener: reports each inserted status straight to the
+ * StatusChangeFeed of the most recently started context. Unlike NOTIFY, this
+ * fires on insert rather than commit; the feed's read waits on the test
+ * pool's single connection, so it still sees the committed status
+ */
+public class H2StatusNotifyTrigger implements Trigger {
+  @Override
+  public void fire(Connection connection, Object[] oldRow, Object[] newRow) {
+    ApplicationContext applicationContext = Utils.applicationContext();
+    if (applicationContext == null) {
+      return;
+    }
+
+    try {
+      applicationContext.getBean(StatusChangeFeed.class).productChanged((UUID) newRow[1]);
+    } catch (BeansException | IllegalStateException ex) {
+      // Context is starting or has been closed
+    }
+  }
+}
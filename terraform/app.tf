@@ -152,6 +152,24 @@ resource "aws_ssm_parameter" "app_db_password" {
   value = aws_ssm_parameter.db_app_password.value
 }
 
+resource "aws_ssm_parameter" "app_r2dbc_url" {
+  name = "${local.app_path}/spring.r2dbc.url"
+  type = "String"
+  value = "r2dbc:postgresql://${aws_db_instance.database.endpoint}/${var.db_name}"
+}
+
+resource "aws_ssm_parameter" "app_r2dbc_username" {
+  name = "${local.app_path}/spring.r2dbc.username"
+  type = "String"
+  value = aws_ssm_parameter.db_app_username.value
+}
+
+resource "aws_ssm_parameter" "app_r2dbc_password" {
+  name = "${local.app_path}/spring.r2dbc.password"
+  type = "SecureString"
+  value = aws_ssm_parameter.db_app_password.value
+}
+
 resource "aws_ssm_parameter" "app_edl_base_url" {
   name = "${local.app_path}/swodlr.security.edl-base-url"
   type = "String"
@@ -203,6 +221,12 @@ resource "aws_ssm_parameter" "app_product_create_queue_url" {
   value = aws_sqs_queue.product_create.url
 }
 
+resource "aws_ssm_parameter" "app_product_update_queue_url" {
+  name = "${local.app_path}/swodlr.product-update-queue-url"
+  type = "SecureString"
+  value = aws_sqs_queue.app_update.url
+}
+
 resource "aws_ssm_parameter" "available_tiles_table_name" {
   name = "${local.app_path}/swodlr.available-tiles-table-name"
   type = "String"
@@ -306,6 +330,31 @@ resource "aws_iam_role" "app_task" {
     })
   }
 
+  inline_policy {
+    name = "AllowProductUpdateQueue"
+    policy = jsonencode({
+      Version = "2012-10-17",
+      Statement = [
+        {
+          Sid = ""
+          Effect = "Allow",
+          Action = [
+            "sqs:ReceiveMessage",
+            "sqs:DeleteMessage",
+            "sqs:ChangeMessageVisibility"
+          ]
+          Resource = aws_sqs_queue.app_update.arn
+        },
+        {
+          Sid = ""
+          Effect = "Allow",
+          Action = ["kms:Decrypt"]
+          Resource = aws_kms_key.app_update.arn
+        }
+      ]
+    })
+  }
+
   inline_policy {
     name = "AllowQueryAvailableTiles"
     policy = jsonencode({
@@ -170,6 +170,47 @@ resource "aws_kms_key_policy" "user_notify" {
   })
 }
 
+resource "aws_kms_key" "app_update" {
+  description = "${local.resource_prefix}-app-update"
+  deletion_window_in_days = 10
+}
+
+resource "aws_kms_key_policy" "app_update" {
+  key_id = aws_kms_key.app_update.id
+  policy = jsonencode({
+    Version = "2012-10-17"
+    Statement = [
+      {
+        Sid = "Enable IAM User Permissions"
+        Effect = "Allow"
+        Principal = {
+          AWS = "arn:aws:iam::${data.aws_caller_identity.current.account_id}:root"
+        }
+        Action = "kms:*"
+        Resource = aws_kms_key.app_update.arn
+      },
+
+      {
+        Sid = "Allow SNS topic to access the encryption keys"
+        Effect = "Allow"
+        Principal = {
+          Service = "sns.amazonaws.com"
+        }
+        Action = [
+          "kms:GenerateDataKey",
+          "kms:Decrypt"
+        ]
+        Resource = aws_kms_key.app_update.arn
+        Condition = {
+          ArnEquals = {
+            "aws:SourceArn" = aws_sns_topic.product_update.arn
+          }
+        }
+      }
+    ]
+  })
+}
+
 // - SNS
 resource "aws_sns_topic" "ingest" {
   name = "${local.resource_prefix}-ingest-topic"
@@ -211,6 +252,13 @@ resource "aws_sns_topic_subscription" "async_update_target" {
   raw_message_delivery = true
 }
 
+resource "aws_sns_topic_subscription" "app_update_target" {
+  topic_arn = aws_sns_topic.product_update.arn
+  protocol = "sqs"
+  endpoint = aws_sqs_queue.app_update.arn
+  raw_message_delivery = true
+}
+
 resource "aws_sns_topic_subscription" "user_notify_target" {
   topic_arn = aws_sns_topic.product_update.arn
   protocol = "sqs"
@@ -326,3 +374,32 @@ resource "aws_sqs_queue_policy" "user_notify" {
     }]
   })
 }
+
+// Consumed by the API's ProductUpdateConsumer, which applies the updates
+// to its database
+resource "aws_sqs_queue" "app_update" {
+  name = "${local.resource_prefix}-app-update-queue"
+  kms_master_key_id = aws_kms_key.app_update.id
+  message_retention_seconds = 7 * 24 * 60 * 60  # 1 week
+  visibility_timeout_seconds = 12 * 60 * 60     # 12 hours
+}
+
+resource "aws_sqs_queue_policy" "app_update" {
+  queue_url = aws_sqs_queue.app_update.url
+  policy = jsonencode({
+    Version = "2012-10-17"
+    Statement = [{
+      Effect = "Allow"
+      Principal = {
+        Service = "sns.amazonaws.com"
+      }
+      Action = "sqs:SendMessage"
+      Resource = aws_sqs_queue.app_update.arn
+      Condition = {
+        ArnEquals = {
+          "aws:SourceArn" = aws_sns_topic.product_update.arn
+        }
+      }
+    }]
+  })
+}